@@ -0,0 +1,82 @@
+package com.lingecho.benchmarks;
+
+import com.lingecho.common.core.search.config.MetadataType;
+import com.lingecho.common.core.search.config.SearchConfig;
+import com.lingecho.common.core.search.config.StorageType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试的公共工具：按存储类型创建配置，测试结束后清理索引目录和内嵌数据库
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+        // 工具类，不允许实例化
+    }
+
+    /**
+     * 创建搜索配置
+     * JDBC存储使用MySQL兼容模式的内存H2数据库，每个索引目录对应一个独立的库
+     *
+     * @param storage 存储类型
+     * @param indexPath 索引目录
+     * @return 搜索配置
+     */
+    public static SearchConfig config(StorageType storage, Path indexPath) {
+        SearchConfig config = new SearchConfig(indexPath)
+                .setMetadataType(Corpus.FIELD_VIEWS, MetadataType.LONG);
+        config.setStorageType(storage);
+        if (storage == StorageType.JDBC) {
+            // 连接关闭后保留内存库，JdbcDirectory会反复打开和关闭连接
+            config.setJdbcUrl(h2Url(indexPath));
+            config.setJdbcUser("sa");
+            config.setJdbcPassword("");
+            config.setJdbcTable("bench_index");
+            config.setJdbcSuggestTable("bench_suggest");
+        }
+        return config;
+    }
+
+    /**
+     * 清理配置使用的索引目录，JDBC存储时同时删除内存库
+     *
+     * @param config 搜索配置
+     * @throws IOException 删除失败
+     */
+    public static void cleanup(SearchConfig config) throws IOException {
+        if (config.getStorageType() == StorageType.JDBC) {
+            try (Connection connection = DriverManager.getConnection(config.getJdbcUrl(), "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            } catch (SQLException e) {
+                throw new IOException("Failed to drop benchmark database " + config.getJdbcUrl(), e);
+            }
+        }
+        Path root = config.getIndexPath();
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String h2Url(Path indexPath) {
+        String name = indexPath.getFileName().toString().replaceAll("[^A-Za-z0-9_]", "_");
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+}
@@ -0,0 +1,251 @@
+package com.lingecho.benchmarks;
+
+import com.lingecho.common.core.search.model.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 可复现的合成语料
+ * 词按Zipf分布从固定词表中抽取，相同的语言、种子和数量总是生成相同的文档和查询，
+ * 便于在不同版本之间对比基准测试结果。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public final class Corpus {
+
+    /**
+     * 语料语言
+     */
+    public enum Language {
+        ZH, EN
+    }
+
+    /**
+     * 分类元数据字段，用于过滤查询
+     */
+    public static final String FIELD_CATEGORY = "category";
+
+    /**
+     * 数值元数据字段，用于排序查询
+     */
+    public static final String FIELD_VIEWS = "views";
+
+    /**
+     * 标签元数据字段，用于子串检索（CONTAINS）查询
+     */
+    public static final String FIELD_TAGS = "tags";
+
+    /**
+     * 子串检索查询的长度，不小于默认的N元组长度
+     */
+    public static final int CONTAINS_LENGTH = 4;
+
+    /**
+     * 分类数量
+     */
+    public static final int CATEGORY_COUNT = 16;
+
+    // 文档时间戳的起点，固定值保证可复现
+    private static final long BASE_TIMESTAMP = 1_700_000_000_000L;
+
+    private static final String[] ZH_WORDS = {
+            "知识", "检索", "搜索", "索引", "文档", "查询", "用户", "系统", "数据", "服务",
+            "模型", "语音", "助手", "对话", "问题", "答案", "配置", "管理", "分析", "结果",
+            "向量", "分词", "排序", "过滤", "高亮", "建议", "缓存", "性能", "延迟", "吞吐",
+            "分片", "合并", "提交", "刷新", "存储", "磁盘", "内存", "网络", "接口", "请求",
+            "响应", "设备", "计费", "告警", "租户", "权限", "日志", "监控", "指标", "报表",
+            "上传", "下载", "文件", "图片", "视频", "音频", "识别", "合成", "翻译", "摘要",
+            "标题", "内容", "标签", "分类", "版本", "更新", "删除", "创建", "导入", "导出",
+            "客户", "订单", "支付", "退款", "发票", "合同", "产品", "价格", "库存", "物流",
+            "医院", "学校", "银行", "保险", "政策", "法规", "标准", "流程", "审批", "通知",
+            "天气", "交通", "旅游", "酒店", "餐厅", "电影", "音乐", "体育", "新闻", "财经",
+            "北京", "上海", "深圳", "杭州", "成都", "武汉", "南京", "西安", "重庆", "广州",
+            "智能", "自动", "实时", "离线", "批量", "增量", "全文", "精确", "模糊", "语义",
+            "开发", "测试", "部署", "运维", "升级", "回滚", "扩容", "迁移", "备份", "恢复",
+            "安全", "加密", "认证", "审计", "隐私", "合规", "风险", "异常", "故障", "修复",
+            "春天", "夏天", "秋天", "冬天", "早上", "晚上", "今天", "明天", "昨天", "周末"
+    };
+
+    private static final String[] EN_WORDS = {
+            "the", "search", "index", "document", "query", "user", "system", "data", "service", "model",
+            "voice", "assistant", "dialog", "question", "answer", "config", "manage", "analysis", "result", "vector",
+            "token", "sort", "filter", "highlight", "suggest", "cache", "performance", "latency", "throughput", "shard",
+            "merge", "commit", "refresh", "storage", "disk", "memory", "network", "interface", "request", "response",
+            "device", "billing", "alert", "tenant", "permission", "log", "monitor", "metric", "report", "upload",
+            "download", "file", "image", "video", "audio", "recognition", "synthesis", "translation", "summary", "title",
+            "content", "tag", "category", "version", "update", "delete", "create", "import", "export", "customer",
+            "order", "payment", "refund", "invoice", "contract", "product", "price", "stock", "shipping", "hospital",
+            "school", "bank", "insurance", "policy", "regulation", "standard", "process", "approval", "notice", "weather",
+            "traffic", "travel", "hotel", "restaurant", "movie", "music", "sport", "news", "finance", "london",
+            "paris", "tokyo", "berlin", "sydney", "toronto", "smart", "automatic", "realtime", "offline", "batch",
+            "incremental", "fulltext", "exact", "fuzzy", "semantic", "develop", "test", "deploy", "operate", "upgrade",
+            "rollback", "scale", "migrate", "backup", "restore", "security", "encrypt", "auth", "audit", "privacy",
+            "compliance", "risk", "exception", "failure", "repair", "spring", "summer", "autumn", "winter", "morning",
+            "evening", "today", "tomorrow", "yesterday", "weekend", "quick", "brown", "lazy", "river", "mountain"
+    };
+
+    private final Language language;
+    private final String[] words;
+    private final ZipfianGenerator wordRanks;
+    private final ZipfianGenerator categoryRanks = new ZipfianGenerator(CATEGORY_COUNT, 1.0);
+    private final String separator;
+    private final String sentenceEnd;
+
+    public Corpus(Language language) {
+        this.language = language;
+        this.words = language == Language.ZH ? ZH_WORDS : EN_WORDS;
+        this.wordRanks = new ZipfianGenerator(words.length, 1.0);
+        // 中文词之间不加空格，由分词器切分
+        this.separator = language == Language.ZH ? "" : " ";
+        this.sentenceEnd = language == Language.ZH ? "。" : ". ";
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    /**
+     * 生成文档
+     *
+     * @param count 文档数量
+     * @param seed 随机种子
+     * @return 文档列表，ID为doc-0到doc-(count-1)
+     */
+    public List<Document> documents(int count, long seed) {
+        Random random = new Random(seed);
+        List<Document> docs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            docs.add(document("doc-" + i, i, random));
+        }
+        return docs;
+    }
+
+    /**
+     * 生成单个文档
+     *
+     * @param id 文档ID
+     * @param ordinal 文档序号，决定时间戳
+     * @param random 随机数源
+     * @return 文档
+     */
+    public Document document(String id, long ordinal, Random random) {
+        Document doc = new Document(id, "doc", text(4 + random.nextInt(5), random), content(random));
+        doc.addMetadata(FIELD_CATEGORY, category(random));
+        doc.addMetadata(FIELD_VIEWS, String.valueOf(random.nextInt(100_000)));
+        doc.setTimestamp(BASE_TIMESTAMP + ordinal * 1000);
+        return doc;
+    }
+
+    /**
+     * 生成单词项查询，词的热度服从Zipf分布
+     *
+     * @param count 查询数量
+     * @param seed 随机种子
+     * @return 查询列表
+     */
+    public List<String> termQueries(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queries.add(word(random));
+        }
+        return queries;
+    }
+
+    /**
+     * 生成两个词的短语查询
+     *
+     * @param count 查询数量
+     * @param seed 随机种子
+     * @return 带引号的短语查询列表
+     */
+    public List<String> phraseQueries(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queries.add("\"" + word(random) + " " + word(random) + "\"");
+        }
+        return queries;
+    }
+
+    /**
+     * 生成搜索建议的前缀
+     *
+     * @param count 前缀数量
+     * @param seed 随机种子
+     * @return 前缀列表，中文取词的首字，英文取前两个字母
+     */
+    public List<String> suggestPrefixes(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> prefixes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = word(random);
+            prefixes.add(word.substring(0, Math.min(word.length(), language == Language.ZH ? 1 : 2)));
+        }
+        return prefixes;
+    }
+
+    /**
+     * 生成子串检索查询，从随机标签中截取一段，可能跨越词的边界
+     *
+     * @param count 查询数量
+     * @param seed 随机种子
+     * @return 长度为{@link #CONTAINS_LENGTH}的子串列表
+     */
+    public List<String> containsQueries(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> queries = new ArrayList<>(count);
+        while (queries.size() < count) {
+            String tags = tags(random);
+            if (tags.length() >= CONTAINS_LENGTH) {
+                int start = random.nextInt(tags.length() - CONTAINS_LENGTH + 1);
+                queries.add(tags.substring(start, start + CONTAINS_LENGTH));
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * 生成标签，由3到5个按Zipf分布抽取的词组成
+     */
+    public String tags(Random random) {
+        return text(3 + random.nextInt(3), random);
+    }
+
+    /**
+     * 按Zipf分布抽取分类
+     */
+    public String category(Random random) {
+        return "cat-" + categoryRanks.next(random);
+    }
+
+    /**
+     * 按Zipf分布抽取一个词
+     */
+    public String word(Random random) {
+        return words[wordRanks.next(random)];
+    }
+
+    private String content(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int sentences = 5 + random.nextInt(11);
+        for (int i = 0; i < sentences; i++) {
+            sb.append(text(8 + random.nextInt(13), random)).append(sentenceEnd);
+        }
+        return sb.toString().trim();
+    }
+
+    private String text(int wordCount, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(word(random));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package com.lingecho.benchmarks;
+
+import com.lingecho.common.core.search.config.SearchConfig;
+import com.lingecho.common.core.search.config.StorageType;
+import com.lingecho.common.core.search.core.SearchEngine;
+import com.lingecho.common.core.search.model.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入基准测试：单文档写入和批量写入，覆盖各存储类型和中英文语料
+ * 每轮迭代使用新的空索引；文档池用完后从头复用，此时写入变为按ID更新。
+ * 引擎使用默认配置（自动提交），单文档写入的耗时包含每次写入后的提交和刷新。
+ *
+ * <pre>
+ * java -jar lingecho-benchmarks/target/benchmarks.jar IndexingBenchmark -p storage=MMAP,JDBC
+ * </pre>
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexingBenchmark {
+
+    private static final int POOL_SIZE = 20_000;
+    private static final int BATCH_SIZE = 1000;
+
+    // FILESYSTEM与DISK使用相同的目录实现，不单独测试
+    @Param({"MMAP", "NIOFS", "DISK", "MEMORY", "JDBC"})
+    public StorageType storage;
+
+    @Param({"ZH", "EN"})
+    public Corpus.Language language;
+
+    private List<Document> pool;
+    private SearchConfig config;
+    private SearchEngine engine;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void generateCorpus() {
+        pool = new Corpus(language).documents(POOL_SIZE, 42);
+    }
+
+    @Setup(Level.Iteration)
+    public void openEngine() throws IOException {
+        config = BenchmarkSupport.config(storage, Files.createTempDirectory("bench-index"));
+        engine = new SearchEngine(config);
+        cursor = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeEngine() throws IOException {
+        engine.close();
+        BenchmarkSupport.cleanup(config);
+    }
+
+    @Benchmark
+    public void indexDocument() throws IOException {
+        Document doc = pool.get(cursor++ % POOL_SIZE);
+        engine.indexDocument(doc.getId(), doc.getType(), doc.getTitle(), doc.getContent());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void indexDocuments() throws IOException {
+        int from = cursor % POOL_SIZE;
+        cursor += BATCH_SIZE;
+        engine.indexDocuments(pool.subList(from, Math.min(from + BATCH_SIZE, POOL_SIZE)));
+    }
+}
@@ -0,0 +1,367 @@
+package com.lingecho.benchmarks;
+
+import com.lingecho.common.core.search.HibiscusSearch;
+import com.lingecho.common.core.search.config.SearchConfig;
+import com.lingecho.common.core.search.config.StorageType;
+import com.lingecho.common.core.search.core.SearchRejectedException;
+import com.lingecho.common.core.search.model.Document;
+import com.lingecho.common.core.search.model.SearchRequest;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 端到端负载生成器
+ * 在进程内的HibiscusSearch上按配置的比例混合执行写入、查询和搜索建议，查询热度服从Zipf分布；
+ * 每个统计周期输出各操作的吞吐和HdrHistogram延迟分位数，同时输出段数、合并和刷新延迟，
+ * 便于把延迟抖动与合并、刷新对应起来。不依赖任何外部服务。
+ *
+ * <p>参数以key=value形式传入，例如：</p>
+ * <pre>
+ * java -cp lingecho-benchmarks/target/benchmarks.jar com.lingecho.benchmarks.LoadGenerator \
+ *     threads=8 duration=120 searchWeight=80 indexWeight=15 suggestWeight=5 rate=2000
+ * </pre>
+ *
+ * <p>rate大于0时为开环模式：按目标速率计划每个操作，延迟从计划时间开始计算，
+ * 系统变慢时排队时间也计入延迟（避免协调遗漏）；rate为0时各线程不停顿地执行。</p>
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public class LoadGenerator {
+
+    /**
+     * 操作类型
+     */
+    enum Operation {
+        SEARCH, INDEX, SUGGEST
+    }
+
+    // 延迟以微秒记录，保留3位有效数字
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Options options;
+    private final Corpus corpus;
+    private final ZipfianGenerator queryRanks;
+    private final String[] queries;
+    private final String[] prefixes;
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> rejected = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong nextDocId = new AtomicLong();
+
+    public LoadGenerator(Options options) {
+        this.options = options;
+        this.corpus = new Corpus(options.language);
+        // 查询池：单词、双词和短语查询混合，按排名的Zipf分布抽取
+        Random random = new Random(options.seed);
+        this.queries = new String[options.queryPoolSize];
+        for (int i = 0; i < queries.length; i++) {
+            String first = corpus.word(random);
+            switch (i % 3) {
+                case 0 -> queries[i] = first;
+                case 1 -> queries[i] = first + " " + corpus.word(random);
+                default -> queries[i] = "\"" + first + " " + corpus.word(random) + "\"";
+            }
+        }
+        this.prefixes = corpus.suggestPrefixes(options.queryPoolSize, options.seed + 1).toArray(new String[0]);
+        this.queryRanks = new ZipfianGenerator(queries.length, options.zipfExponent);
+        for (Operation op : Operation.values()) {
+            recorders.put(op, new Recorder(SIGNIFICANT_DIGITS));
+            totals.put(op, new Histogram(SIGNIFICANT_DIGITS));
+            rejected.put(op, new AtomicLong());
+            errors.put(op, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(Options.parse(args)).run();
+    }
+
+    /**
+     * 构建初始索引，执行负载并输出统计
+     */
+    public void run() throws IOException, InterruptedException {
+        SearchConfig config = BenchmarkSupport.config(options.storage, Files.createTempDirectory("bench-load"))
+                .setAdmissionControlEnabled(options.admissionControl)
+                .setTranslogEnabled(options.translog);
+        System.out.println("Options: " + options);
+        try (HibiscusSearch search = new HibiscusSearch(config)) {
+            long loadStart = System.nanoTime();
+            List<Document> batch = new ArrayList<>(1000);
+            Random random = new Random(options.seed);
+            for (int i = 0; i < options.initialDocs; i++) {
+                batch.add(newDocument(random));
+                if (batch.size() == 1000 || i == options.initialDocs - 1) {
+                    search.indexDocuments(batch);
+                    batch.clear();
+                }
+            }
+            System.out.printf("Indexed %d initial documents in %d ms%n", options.initialDocs,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart));
+            runLoad(search);
+        } finally {
+            BenchmarkSupport.cleanup(config);
+        }
+    }
+
+    private void runLoad(HibiscusSearch search) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.duration);
+        CountDownLatch done = new CountDownLatch(options.threads);
+        for (int t = 0; t < options.threads; t++) {
+            long seed = options.seed + 100 + t;
+            Thread worker = new Thread(() -> {
+                try {
+                    work(search, new Random(seed), start, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        printHeader();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(options.reportInterval);
+        long nextReport = start + intervalNanos;
+        boolean optimized = options.optimizeAt < 0;
+        long lastReport = start;
+        while (!done.await(Math.max(1, nextReport - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            long now = System.nanoTime();
+            if (!optimized && now - start >= TimeUnit.SECONDS.toNanos(options.optimizeAt)) {
+                optimized = true;
+                startOptimize(search);
+            }
+            if (now >= nextReport) {
+                report(search, (now - start) / 1_000_000_000.0, now - lastReport);
+                lastReport = now;
+                nextReport += intervalNanos;
+            }
+        }
+        // 最后一个不完整周期只计入总计
+        for (Operation op : Operation.values()) {
+            totals.get(op).add(recorders.get(op).getIntervalHistogram());
+        }
+        printSummary(System.nanoTime() - start);
+    }
+
+    private void work(HibiscusSearch search, Random random, long start, long end) {
+        // 开环模式下每个线程分摊目标速率
+        long period = options.rate > 0 ? (long) (1e9 * options.threads / options.rate) : 0;
+        long intended = start;
+        int totalWeight = options.searchWeight + options.indexWeight + options.suggestWeight;
+        while (true) {
+            long now = System.nanoTime();
+            if (period > 0) {
+                intended += period;
+                if (intended > now) {
+                    LockSupport.parkNanos(intended - now);
+                }
+            } else {
+                intended = now;
+            }
+            if (intended >= end) {
+                return;
+            }
+            int pick = random.nextInt(totalWeight);
+            Operation op = pick < options.searchWeight ? Operation.SEARCH
+                    : pick < options.searchWeight + options.indexWeight ? Operation.INDEX : Operation.SUGGEST;
+            try {
+                execute(search, op, random);
+                recorders.get(op).recordValue(Math.max(0, (System.nanoTime() - intended) / 1000));
+            } catch (SearchRejectedException e) {
+                rejected.get(op).incrementAndGet();
+            } catch (Exception e) {
+                if (errors.get(op).getAndIncrement() == 0) {
+                    System.out.println("# " + op + " failed: " + e);
+                }
+            }
+        }
+    }
+
+    private void execute(HibiscusSearch search, Operation op, Random random) throws IOException {
+        switch (op) {
+            case SEARCH -> search.search(new SearchRequest(queries[queryRanks.next(random)], 1, 10)
+                    .setHighlight(random.nextInt(100) < options.highlightPercent));
+            case SUGGEST -> search.getSuggestions(prefixes[queryRanks.next(random)]);
+            case INDEX -> {
+                if (options.indexBatchSize == 1) {
+                    Document doc = newDocument(random);
+                    search.indexDocument(doc.getId(), doc.getType(), doc.getTitle(), doc.getContent());
+                } else {
+                    List<Document> docs = new ArrayList<>(options.indexBatchSize);
+                    for (int i = 0; i < options.indexBatchSize; i++) {
+                        docs.add(newDocument(random));
+                    }
+                    search.indexDocuments(docs);
+                }
+            }
+        }
+    }
+
+    private Document newDocument(Random random) {
+        long id = nextDocId.getAndIncrement();
+        return corpus.document("doc-" + id, id, random);
+    }
+
+    private void startOptimize(HibiscusSearch search) {
+        Thread optimizer = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                search.optimizeIndex();
+                System.out.printf("# optimize finished in %d ms%n",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (Exception e) {
+                System.out.println("# optimize failed: " + e);
+            }
+        }, "load-optimize");
+        optimizer.setDaemon(true);
+        optimizer.start();
+        System.out.println("# optimize started");
+    }
+
+    private void printHeader() {
+        System.out.printf("%8s %-8s %9s %9s %9s %9s %9s %9s %8s %8s | %5s %5s %5s %8s%n",
+                "time(s)", "op", "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "rejected", "errors",
+                "segs", "merge", "pend", "lag(ms)");
+    }
+
+    private void report(HibiscusSearch search, double elapsedSeconds, long intervalNanos) {
+        Map<String, Long> stats = search.getEngineStats();
+        String engine = String.format("| %5d %5d %5d %8d", stats.getOrDefault("segmentCount", 0L),
+                stats.getOrDefault("mergingSegments", 0L), stats.getOrDefault("pendingMerges", 0L),
+                stats.getOrDefault("refreshLagMillis", 0L));
+        for (Operation op : Operation.values()) {
+            Histogram interval = recorders.get(op).getIntervalHistogram();
+            totals.get(op).add(interval);
+            double throughput = interval.getTotalCount() * 1e9 / Math.max(1, intervalNanos);
+            System.out.println(format(String.format("%8.1f", elapsedSeconds), op, throughput, interval,
+                    rejected.get(op).getAndSet(0), errors.get(op).getAndSet(0)) + " " + engine);
+        }
+    }
+
+    private void printSummary(long elapsedNanos) {
+        System.out.println("# total");
+        for (Operation op : Operation.values()) {
+            Histogram total = totals.get(op);
+            System.out.println(format("total", op, total.getTotalCount() * 1e9 / elapsedNanos, total, -1, -1));
+        }
+    }
+
+    private static String format(String time, Operation op, double throughput, Histogram histogram,
+                                 long rejectedCount, long errorCount) {
+        return String.format("%8s %-8s %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8s %8s", time, op, throughput,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                rejectedCount < 0 ? "-" : String.valueOf(rejectedCount), errorCount < 0 ? "-" : String.valueOf(errorCount));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * 负载参数
+     */
+    static final class Options {
+        StorageType storage = StorageType.MMAP;
+        Corpus.Language language = Corpus.Language.ZH;
+        int initialDocs = 20_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        // 持续时间（秒）
+        int duration = 60;
+        // 目标速率（次/秒），0表示闭环不限速
+        int rate;
+        int searchWeight = 80;
+        int indexWeight = 15;
+        int suggestWeight = 5;
+        // 每次写入操作的文档数，1时调用单文档写入
+        int indexBatchSize = 1;
+        // 带高亮的查询比例（百分比）
+        int highlightPercent = 50;
+        int queryPoolSize = 10_000;
+        double zipfExponent = 1.0;
+        // 统计周期（秒）
+        int reportInterval = 5;
+        // 第几秒触发一次强制合并，负数表示不触发
+        int optimizeAt = -1;
+        boolean translog;
+        boolean admissionControl;
+        long seed = 42;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value but got: " + arg);
+                }
+                options.set(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+            options.validate();
+            return options;
+        }
+
+        private void set(String key, String value) {
+            switch (key) {
+                case "storage" -> storage = StorageType.valueOf(value.toUpperCase());
+                case "language" -> language = Corpus.Language.valueOf(value.toUpperCase());
+                case "initialDocs" -> initialDocs = Integer.parseInt(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "duration" -> duration = Integer.parseInt(value);
+                case "rate" -> rate = Integer.parseInt(value);
+                case "searchWeight" -> searchWeight = Integer.parseInt(value);
+                case "indexWeight" -> indexWeight = Integer.parseInt(value);
+                case "suggestWeight" -> suggestWeight = Integer.parseInt(value);
+                case "indexBatchSize" -> indexBatchSize = Integer.parseInt(value);
+                case "highlightPercent" -> highlightPercent = Integer.parseInt(value);
+                case "queryPoolSize" -> queryPoolSize = Integer.parseInt(value);
+                case "zipfExponent" -> zipfExponent = Double.parseDouble(value);
+                case "reportInterval" -> reportInterval = Integer.parseInt(value);
+                case "optimizeAt" -> optimizeAt = Integer.parseInt(value);
+                case "translog" -> translog = Boolean.parseBoolean(value);
+                case "admissionControl" -> admissionControl = Boolean.parseBoolean(value);
+                case "seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        private void validate() {
+            if (threads <= 0 || duration <= 0 || reportInterval <= 0 || queryPoolSize <= 0 || indexBatchSize <= 0) {
+                throw new IllegalArgumentException("threads, duration, reportInterval, queryPoolSize and indexBatchSize must be positive");
+            }
+            if (rate < 0 || initialDocs < 0) {
+                throw new IllegalArgumentException("rate and initialDocs must not be negative");
+            }
+            if (searchWeight < 0 || indexWeight < 0 || suggestWeight < 0
+                    || searchWeight + indexWeight + suggestWeight == 0) {
+                throw new IllegalArgumentException("Operation weights must not be negative and must not all be zero");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "storage=" + storage + " language=" + language + " initialDocs=" + initialDocs
+                    + " threads=" + threads + " duration=" + duration + "s rate=" + (rate == 0 ? "unlimited" : rate)
+                    + " mix=" + searchWeight + "/" + indexWeight + "/" + suggestWeight
+                    + " indexBatchSize=" + indexBatchSize + " highlightPercent=" + highlightPercent
+                    + " queryPoolSize=" + queryPoolSize + " zipfExponent=" + zipfExponent
+                    + " optimizeAt=" + optimizeAt + " translog=" + translog + " admissionControl=" + admissionControl
+                    + " seed=" + seed;
+        }
+    }
+}
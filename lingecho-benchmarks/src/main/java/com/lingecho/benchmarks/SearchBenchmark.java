@@ -0,0 +1,168 @@
+package com.lingecho.benchmarks;
+
+import com.lingecho.common.core.search.config.SearchConfig;
+import com.lingecho.common.core.search.config.StorageType;
+import com.lingecho.common.core.search.core.SearchEngine;
+import com.lingecho.common.core.search.model.Document;
+import com.lingecho.common.core.search.model.SearchRequest;
+import com.lingecho.common.core.search.model.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询基准测试：词项、短语、过滤、子串过滤、排序、高亮查询和搜索建议，覆盖各存储类型和中英文语料
+ * 索引在每次试验开始时构建一次；查询按Zipf热度轮换，热门查询会命中查询解析缓存和过滤缓存，与线上情况一致。
+ * 子串过滤的两个用例在相同的标签值上对比N元组索引（substringSearchFields）和通配符查询：
+ *
+ * <pre>
+ * java -jar lingecho-benchmarks/target/benchmarks.jar SearchBenchmark.termQuery -p language=ZH
+ * java -jar lingecho-benchmarks/target/benchmarks.jar "SearchBenchmark.contains.*" -p storage=MMAP
+ * </pre>
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+    private static final int BATCH_SIZE = 1000;
+    // 与Corpus.FIELD_TAGS取值相同但不建N元组索引，CONTAINS走通配符查询
+    private static final String FIELD_TAGS_WILDCARD = Corpus.FIELD_TAGS + "_wildcard";
+
+    // FILESYSTEM与DISK使用相同的目录实现，不单独测试
+    @Param({"MMAP", "NIOFS", "DISK", "MEMORY", "JDBC"})
+    public StorageType storage;
+
+    @Param({"ZH", "EN"})
+    public Corpus.Language language;
+
+    @Param({"20000"})
+    public int docCount;
+
+    private SearchConfig config;
+    private SearchEngine engine;
+    private String[] termQueries;
+    private String[] phraseQueries;
+    private String[] categories;
+    private String[] prefixes;
+    private String[] containsQueries;
+    // 多线程运行时各线程共享游标，竞争只影响查询的轮换顺序
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void buildIndex() throws IOException {
+        Corpus corpus = new Corpus(language);
+        config = BenchmarkSupport.config(storage, Files.createTempDirectory("bench-search"))
+                .addSubstringSearchField(Corpus.FIELD_TAGS);
+        engine = new SearchEngine(config);
+        List<Document> docs = corpus.documents(docCount, 42);
+        // 标签单独用一个随机源生成，其余字段与IndexingBenchmark的文档保持一致
+        Random tagRandom = new Random(19);
+        for (Document doc : docs) {
+            String tags = corpus.tags(tagRandom);
+            doc.addMetadata(Corpus.FIELD_TAGS, tags);
+            doc.addMetadata(FIELD_TAGS_WILDCARD, tags);
+        }
+        for (int from = 0; from < docs.size(); from += BATCH_SIZE) {
+            engine.indexDocuments(docs.subList(from, Math.min(from + BATCH_SIZE, docs.size())));
+        }
+
+        termQueries = corpus.termQueries(QUERY_COUNT, 7).toArray(new String[0]);
+        phraseQueries = corpus.phraseQueries(QUERY_COUNT, 11).toArray(new String[0]);
+        prefixes = corpus.suggestPrefixes(QUERY_COUNT, 13).toArray(new String[0]);
+        containsQueries = corpus.containsQueries(QUERY_COUNT, 23).toArray(new String[0]);
+        Random random = new Random(17);
+        categories = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            categories[i] = corpus.category(random);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeEngine() throws IOException {
+        engine.close();
+        BenchmarkSupport.cleanup(config);
+    }
+
+    @Benchmark
+    public SearchResult termQuery() throws IOException {
+        return engine.search(request(termQueries[next()]));
+    }
+
+    @Benchmark
+    public SearchResult phraseQuery() throws IOException {
+        return engine.search(request(phraseQueries[next()]));
+    }
+
+    @Benchmark
+    public SearchResult filteredQuery() throws IOException {
+        int i = next();
+        return engine.search(request(termQueries[i])
+                .addFilter(new SearchRequest.Filter(Corpus.FIELD_CATEGORY, categories[i],
+                        SearchRequest.Filter.FilterType.EQUALS)));
+    }
+
+    @Benchmark
+    public SearchResult containsNGramQuery() throws IOException {
+        return engine.search(containsRequest(Corpus.FIELD_TAGS, containsQueries[next()]));
+    }
+
+    @Benchmark
+    public SearchResult containsWildcardQuery() throws IOException {
+        return engine.search(containsRequest(FIELD_TAGS_WILDCARD, containsQueries[next()]));
+    }
+
+    @Benchmark
+    public SearchResult sortedQuery() throws IOException {
+        return engine.search(request(termQueries[next()])
+                .addSortField(new SearchRequest.SortField(Corpus.FIELD_VIEWS, SearchRequest.SortField.SortOrder.DESC)));
+    }
+
+    @Benchmark
+    public SearchResult highlightedQuery() throws IOException {
+        return engine.search(request(termQueries[next()]).setHighlight(true));
+    }
+
+    @Benchmark
+    public List<String> suggestions() throws IOException {
+        return engine.getSuggestions(prefixes[next()]);
+    }
+
+    private SearchRequest request(String query) {
+        return new SearchRequest(query, 1, 10).setHighlight(false);
+    }
+
+    /**
+     * 只有子串过滤条件的请求，空查询匹配全部文档，耗时集中在过滤上
+     */
+    private SearchRequest containsRequest(String field, String value) {
+        return request("").addFilter(new SearchRequest.Filter(field, value, SearchRequest.Filter.FilterType.CONTAINS));
+    }
+
+    private int next() {
+        return cursor++ & (QUERY_COUNT - 1);
+    }
+}
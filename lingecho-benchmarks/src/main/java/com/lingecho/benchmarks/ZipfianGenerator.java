@@ -0,0 +1,60 @@
+package com.lingecho.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf分布的排名生成器
+ * 排名k（从0开始）被选中的概率与1/(k+1)^s成正比，用于模拟词频和查询热度的长尾分布。
+ * 预先计算累积分布，每次采样为一次二分查找；实例本身不可变，可以在线程间共享，随机数源由调用方提供。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public final class ZipfianGenerator {
+
+    private final double[] cdf;
+
+    /**
+     * 创建生成器
+     *
+     * @param size 排名数量
+     * @param exponent 分布指数，越大越集中在头部，自然语言词频约为1
+     */
+    public ZipfianGenerator(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        }
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("Exponent must be positive: " + exponent);
+        }
+        cdf = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    /**
+     * 采样一个排名
+     *
+     * @param random 随机数源
+     * @return 排名，范围[0, size)
+     */
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+
+    /**
+     * 排名数量
+     */
+    public int size() {
+        return cdf.length;
+    }
+}
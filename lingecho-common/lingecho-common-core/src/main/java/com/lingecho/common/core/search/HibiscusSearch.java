@@ -1,13 +1,23 @@
 package com.lingecho.common.core.search;
 
 import com.lingecho.common.core.search.config.SearchConfig;
+import com.lingecho.common.core.search.core.AdmissionController;
 import com.lingecho.common.core.search.core.SearchEngine;
 import com.lingecho.common.core.search.model.*;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * HibiscusSearch - 基于Lucene的高效搜索引擎
@@ -34,6 +44,10 @@ import java.util.List;
 public class HibiscusSearch implements AutoCloseable {
 
     private SearchEngine searchEngine;
+    // 准入控制，未启用时为null
+    private final AdmissionController admissionController;
+    // 异步接口的执行线程池，第一次调用异步接口时创建
+    private volatile ThreadPoolExecutor asyncExecutor;
     /**
      * -- GETTER --
      *  获取搜索配置
@@ -55,6 +69,7 @@ public class HibiscusSearch implements AutoCloseable {
      */
     public HibiscusSearch(SearchConfig config) {
         this.config = config;
+        this.admissionController = config.isAdmissionControlEnabled() ? new AdmissionController(config) : null;
         // 延迟初始化搜索引擎，避免在构造函数中初始化失败
         this.searchEngine = null;
         log.info("HibiscusSearch created with config: {}", config);
@@ -85,6 +100,79 @@ public class HibiscusSearch implements AutoCloseable {
         return this.searchEngine;
     }
 
+    /**
+     * 立即初始化搜索引擎，用于分片打开时提前暴露打开失败
+     */
+    void open() {
+        getSearchEngine();
+    }
+
+    /**
+     * 申请准入许可，未启用准入控制时返回null
+     *
+     * @throws com.lingecho.common.core.search.core.SearchRejectedException 过载时拒绝
+     */
+    private AdmissionController.Permit admit(AdmissionController.Pool pool) {
+        return admissionController != null ? admissionController.acquire(pool) : null;
+    }
+
+    /**
+     * 归还准入许可，需在finally中调用
+     */
+    private static void release(AdmissionController.Permit permit) {
+        if (permit != null) {
+            permit.close();
+        }
+    }
+
+    /**
+     * 获取异步接口的线程池，如果未创建则进行创建
+     * 线程数和队列长度都有上限，队列满时直接拒绝而不是在调用线程上执行
+     */
+    private ThreadPoolExecutor getAsyncExecutor() {
+        ThreadPoolExecutor executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    int threads = Math.max(1, config.getAsyncThreads());
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(Math.max(1, config.getAsyncQueueCapacity())), runnable -> {
+                                Thread thread = new Thread(runnable, "hibiscus-async-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 在异步线程池上执行，线程池已满时返回以RejectedExecutionException失败的future
+     */
+    private <T> CompletableFuture<T> supplyAsync(IOSupplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, getAsyncExecutor());
+        } catch (RejectedExecutionException e) {
+            log.debug("Async task rejected: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+
     /**
      * 索引单个文档
      *
@@ -94,8 +182,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 索引异常
      */
     public void indexDocument(String id, String title, String content) throws IOException {
-        getSearchEngine().indexDocument(id, title, content);
-        log.debug("Indexed document: id={}, title={}", id, title);
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.INDEXING);
+        try {
+            getSearchEngine().indexDocument(id, title, content);
+            log.debug("Indexed document: id={}, title={}", id, title);
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -108,8 +201,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 索引异常
      */
     public void indexDocument(String id, String type, String title, String content) throws IOException {
-        getSearchEngine().indexDocument(id, type, title, content);
-        log.debug("Indexed document: id={}, type={}, title={}", id, type, title);
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.INDEXING);
+        try {
+            getSearchEngine().indexDocument(id, type, title, content);
+            log.debug("Indexed document: id={}, type={}, title={}", id, type, title);
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -119,8 +217,42 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 索引异常
      */
     public void indexDocuments(List<Document> documents) throws IOException {
-        getSearchEngine().indexDocuments(documents);
-        log.info("Indexed {} documents", documents.size());
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.INDEXING);
+        try {
+            getSearchEngine().indexDocuments(documents);
+            log.info("Indexed {} documents", documents.size());
+        } finally {
+            release(permit);
+        }
+    }
+
+    /**
+     * 异步批量索引文档
+     *
+     * @param documents 文档列表
+     * @return 索引完成时结束的future；线程池已满时以RejectedExecutionException失败，索引异常以UncheckedIOException失败
+     */
+    public CompletableFuture<Void> indexDocumentsAsync(List<Document> documents) {
+        return supplyAsync(() -> {
+            indexDocuments(documents);
+            return null;
+        });
+    }
+
+    /**
+     * 异步索引单个文档（带类型）
+     *
+     * @param id 文档ID
+     * @param type 文档类型
+     * @param title 文档标题
+     * @param content 文档内容
+     * @return 索引完成时结束的future
+     */
+    public CompletableFuture<Void> indexDocumentAsync(String id, String type, String title, String content) {
+        return supplyAsync(() -> {
+            indexDocument(id, type, title, content);
+            return null;
+        });
     }
 
     /**
@@ -131,8 +263,7 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 搜索异常
      */
     public SearchResult search(String query) throws IOException {
-        SearchRequest request = new SearchRequest(query);
-        return getSearchEngine().search(request);
+        return search(new SearchRequest(query));
     }
 
     /**
@@ -143,9 +274,38 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 搜索异常
      */
     public SearchResult search(SearchRequest request) throws IOException {
-        SearchResult result = getSearchEngine().search(request);
-        log.debug("Search completed: query={}, hits={}", request.getQuery(), result.getTotalHits());
-        return result;
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.SEARCH);
+        try {
+            SearchResult result = getSearchEngine().search(request);
+            if (permit != null && result.isTimedOut()) {
+                // 超时说明已经过载，收缩搜索并发上限
+                permit.markDropped();
+            }
+            log.debug("Search completed: query={}, hits={}", request.getQuery(), result.getTotalHits());
+            return result;
+        } finally {
+            release(permit);
+        }
+    }
+
+    /**
+     * 异步搜索文档，调用线程不会阻塞在检索上
+     *
+     * @param request 搜索请求
+     * @return 搜索结果的future；线程池已满时以RejectedExecutionException失败，搜索异常以UncheckedIOException失败
+     */
+    public CompletableFuture<SearchResult> searchAsync(SearchRequest request) {
+        return supplyAsync(() -> search(request));
+    }
+
+    /**
+     * 异步搜索文档
+     *
+     * @param query 搜索查询
+     * @return 搜索结果的future
+     */
+    public CompletableFuture<SearchResult> searchAsync(String query) {
+        return searchAsync(new SearchRequest(query));
     }
 
     /**
@@ -155,8 +315,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 删除异常
      */
     public void deleteDocument(String id) throws IOException {
-        getSearchEngine().deleteDocument(id);
-        log.debug("Deleted document: id={}", id);
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.INDEXING);
+        try {
+            getSearchEngine().deleteDocument(id);
+            log.debug("Deleted document: id={}", id);
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -167,8 +332,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 删除异常
      */
     public void deleteDocument(String id, String type) throws IOException {
-        getSearchEngine().deleteDocument(id, type);
-        log.debug("Deleted document: id={}, type={}", id, type);
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.INDEXING);
+        try {
+            getSearchEngine().deleteDocument(id, type);
+            log.debug("Deleted document: id={}, type={}", id, type);
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -178,8 +348,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 删除异常
      */
     public void deleteDocuments(List<String> ids) throws IOException {
-        getSearchEngine().deleteDocuments(ids);
-        log.info("Deleted {} documents", ids.size());
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.INDEXING);
+        try {
+            getSearchEngine().deleteDocuments(ids);
+            log.info("Deleted {} documents", ids.size());
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -190,8 +365,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 删除异常
      */
     public void deleteDocumentsByField(String field, String value) throws IOException {
-        getSearchEngine().deleteDocumentsByField(field, value);
-        log.info("Deleted documents by field: {}={}", field, value);
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.INDEXING);
+        try {
+            getSearchEngine().deleteDocumentsByField(field, value);
+            log.info("Deleted documents by field: {}={}", field, value);
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -200,8 +380,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 清空异常
      */
     public void clearIndex() throws IOException {
-        getSearchEngine().clearIndex();
-        log.info("Index cleared");
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.MAINTENANCE);
+        try {
+            getSearchEngine().clearIndex();
+            log.info("Index cleared");
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -214,6 +399,16 @@ public class HibiscusSearch implements AutoCloseable {
         return getSearchEngine().getIndexStats();
     }
 
+    /**
+     * 获取引擎运行状态，用于指标采集；引擎尚未初始化时返回空，不会因此打开索引
+     *
+     * @return 文档数、段数、写缓冲占用、合并和刷新延迟等
+     */
+    public Map<String, Long> getEngineStats() {
+        SearchEngine engine = searchEngine;
+        return engine != null ? engine.getEngineStats() : Collections.emptyMap();
+    }
+
     /**
      * 获取索引健康状态
      *
@@ -224,6 +419,33 @@ public class HibiscusSearch implements AutoCloseable {
         return getSearchEngine().getIndexHealthInfo();
     }
 
+    /**
+     * 获取过滤条件缓存统计
+     *
+     * @return 缓存统计（命中数、未命中数、缓存数、内存占用等）
+     */
+    public Map<String, Long> getFilterCacheStats() {
+        return getSearchEngine().getFilterCacheStats();
+    }
+
+    /**
+     * 获取准入控制统计
+     *
+     * @return 各类操作的当前并发上限、执行中数量和拒绝次数，未启用准入控制时为空
+     */
+    public Map<String, Long> getAdmissionStats() {
+        return admissionController != null ? admissionController.getStats() : Collections.emptyMap();
+    }
+
+    /**
+     * 获取被合并到并发相同请求上的搜索次数
+     *
+     * @return 合并次数
+     */
+    public long getCoalescedSearchCount() {
+        return getSearchEngine().getCoalescedSearchCount();
+    }
+
     /**
      * 检查索引是否需要优化
      *
@@ -251,8 +473,13 @@ public class HibiscusSearch implements AutoCloseable {
      * @throws IOException 优化异常
      */
     public void optimizeIndex() throws IOException {
-        getSearchEngine().optimizeIndex();
-        log.info("Index optimized");
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.MAINTENANCE);
+        try {
+            getSearchEngine().optimizeIndex();
+            log.info("Index optimized");
+        } finally {
+            release(permit);
+        }
     }
 
     /**
@@ -260,6 +487,18 @@ public class HibiscusSearch implements AutoCloseable {
      */
     @Override
     public void close() throws IOException {
+        ThreadPoolExecutor executor = asyncExecutor;
+        if (executor != null) {
+            // 等待已提交的异步任务结束后再关闭引擎
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Async tasks did not finish within 30s, closing anyway");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         if (searchEngine != null) {
             getSearchEngine().close();
             log.info("HibiscusSearch closed");
@@ -274,6 +513,11 @@ public class HibiscusSearch implements AutoCloseable {
      * @param popularQueries 热门查询列表
      */
     public void warmupCache(List<String> popularQueries) {
-        getSearchEngine().warmupCache(popularQueries);
+        AdmissionController.Permit permit = admit(AdmissionController.Pool.MAINTENANCE);
+        try {
+            getSearchEngine().warmupCache(popularQueries);
+        } finally {
+            release(permit);
+        }
     }
 }
@@ -0,0 +1,746 @@
+package com.lingecho.common.core.search;
+
+import com.lingecho.common.core.search.config.SearchConfig;
+import com.lingecho.common.core.search.config.StorageType;
+import com.lingecho.common.core.search.core.SearchEngine;
+import com.lingecho.common.core.search.core.SearchResultMerger;
+import com.lingecho.common.core.search.model.Document;
+import com.lingecho.common.core.search.model.IndexStats;
+import com.lingecho.common.core.search.model.SearchRequest;
+import com.lingecho.common.core.search.model.SearchResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 按分片路由的多索引搜索
+ * 每个分片（如一个知识库或一个租户）使用基础索引目录下的独立子目录，分片按需打开，
+ * 超过最大打开数时关闭最久未使用且空闲的分片；跨分片查询并行发往各分片后合并前N条结果。
+ * 删除分片直接关闭并删除目录，不需要在共享索引上按字段删除再等待段合并。
+ * 分片的打开、淘汰和删除都不持有全局锁：同一分片键由一个future占位，只有占位的线程打开或删除目录，
+ * 其他线程等待该future，不同分片互不阻塞。
+ * 所有分片共用一个过滤条件缓存和一个定时提交线程池，模板中的RAM缓冲区按最大打开分片数平分，
+ * 分片数量增加时内存和线程数不随之成倍增长。
+ * 使用示例：
+ * <pre>
+ * ShardedHibiscusSearch search = new ShardedHibiscusSearch(new SearchConfig("./index"), 64);
+ * search.indexDocuments("kb-1", documents);
+ * SearchResult result = search.search("kb-1", new SearchRequest("关键词"));
+ * search.dropShard("kb-1");
+ * </pre>
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class ShardedHibiscusSearch implements AutoCloseable {
+
+    /**
+     * 默认最多同时打开的分片数
+     */
+    public static final int DEFAULT_MAX_OPEN_SHARDS = 64;
+
+    private static final Pattern SHARD_KEY_PATTERN = Pattern.compile("[A-Za-z0-9_\\-]+");
+
+    // 每个分片的RAM缓冲区下限（MB），过小时段太碎、合并开销大
+    private static final int MIN_SHARD_RAM_BUFFER_MB = 8;
+
+    // 分片配置：模板加上共享的缓存和提交线程池
+    private final SearchConfig template;
+    private final ScheduledExecutorService commitScheduler;
+    private final Path basePath;
+    private final int maxOpenShards;
+    private final ExecutorService fanOutExecutor;
+    private final boolean ownsExecutor;
+
+    // 分片键到分片的占位future；打开中的分片尚未完成，删除未打开分片时占位的future以null完成
+    private final Map<String, CompletableFuture<Shard>> shards = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * 创建分片搜索，跨分片查询使用内部线程池
+     *
+     * @param template 分片配置模板，indexPath为分片根目录
+     * @param maxOpenShards 最多同时打开的分片数
+     */
+    public ShardedHibiscusSearch(SearchConfig template, int maxOpenShards) {
+        this(template, maxOpenShards, null);
+    }
+
+    /**
+     * 创建分片搜索
+     *
+     * @param template 分片配置模板，indexPath为分片根目录
+     * @param maxOpenShards 最多同时打开的分片数
+     * @param fanOutExecutor 跨分片查询使用的线程池，为null时创建内部线程池并在关闭时一起关闭
+     */
+    public ShardedHibiscusSearch(SearchConfig template, int maxOpenShards, ExecutorService fanOutExecutor) {
+        StorageType storageType = template.getStorageType();
+        if (storageType == StorageType.MEMORY || storageType == StorageType.JDBC) {
+            throw new IllegalArgumentException("Sharding requires a directory based storage type: " + storageType);
+        }
+        if (maxOpenShards <= 0) {
+            throw new IllegalArgumentException("Max open shards must be positive: " + maxOpenShards);
+        }
+        this.commitScheduler = template.getCommitScheduler() != null ? null : newCommitScheduler();
+        this.template = template.copy()
+                .setSharedFilterCache(template.getSharedFilterCache() != null || !template.isFilterCacheEnabled()
+                        ? template.getSharedFilterCache()
+                        : SearchEngine.newFilterCache(template.getFilterCacheMaxQueries(),
+                                template.getFilterCacheMaxMemoryMB(), template.getFilterCacheMinSegmentDocs()))
+                .setCommitScheduler(commitScheduler != null ? commitScheduler : template.getCommitScheduler())
+                .setRamBufferSizeMB(Math.max(MIN_SHARD_RAM_BUFFER_MB, template.getRamBufferSizeMB() / maxOpenShards));
+        this.basePath = template.getIndexPath();
+        this.maxOpenShards = maxOpenShards;
+        this.ownsExecutor = fanOutExecutor == null;
+        this.fanOutExecutor = fanOutExecutor != null ? fanOutExecutor : newFanOutExecutor();
+        log.info("ShardedHibiscusSearch created: basePath={}, maxOpenShards={}", basePath, maxOpenShards);
+    }
+
+    /**
+     * 批量索引文档到分片
+     *
+     * @param shardKey 分片键
+     * @param documents 文档列表
+     * @throws IOException 索引异常
+     */
+    public void indexDocuments(String shardKey, List<Document> documents) throws IOException {
+        withShard(shardKey, search -> {
+            search.indexDocuments(documents);
+            return null;
+        });
+    }
+
+    /**
+     * 删除分片中的文档
+     *
+     * @param shardKey 分片键
+     * @param id 文档ID
+     * @throws IOException 删除异常
+     */
+    public void deleteDocument(String shardKey, String id) throws IOException {
+        if (!exists(shardKey)) {
+            return;
+        }
+        withShard(shardKey, search -> {
+            search.deleteDocument(id);
+            return null;
+        });
+    }
+
+    /**
+     * 批量删除分片中的文档
+     *
+     * @param shardKey 分片键
+     * @param ids 文档ID列表
+     * @throws IOException 删除异常
+     */
+    public void deleteDocuments(String shardKey, List<String> ids) throws IOException {
+        if (!exists(shardKey)) {
+            return;
+        }
+        withShard(shardKey, search -> {
+            search.deleteDocuments(ids);
+            return null;
+        });
+    }
+
+    /**
+     * 根据条件删除分片中的文档
+     *
+     * @param shardKey 分片键
+     * @param field 字段名
+     * @param value 字段值
+     * @throws IOException 删除异常
+     */
+    public void deleteDocumentsByField(String shardKey, String field, String value) throws IOException {
+        if (!exists(shardKey)) {
+            return;
+        }
+        withShard(shardKey, search -> {
+            search.deleteDocumentsByField(field, value);
+            return null;
+        });
+    }
+
+    /**
+     * 在单个分片中搜索
+     *
+     * @param shardKey 分片键
+     * @param request 搜索请求
+     * @return 搜索结果，分片不存在时返回空结果
+     * @throws IOException 搜索异常
+     */
+    public SearchResult search(String shardKey, SearchRequest request) throws IOException {
+        if (!exists(shardKey)) {
+            return emptyResult(request);
+        }
+        return withShard(shardKey, search -> search.search(request));
+    }
+
+    /**
+     * 跨分片搜索，各分片并行执行后合并
+     *
+     * @param shardKeys 分片键，为null时搜索所有分片；不存在的分片被忽略
+     * @param request 搜索请求
+     * @return 合并后的搜索结果
+     * @throws IOException 搜索异常
+     */
+    public SearchResult search(Collection<String> shardKeys, SearchRequest request) throws IOException {
+        long startTime = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        for (String key : shardKeys != null ? shardKeys : listShards()) {
+            if (exists(key)) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return emptyResult(request);
+        }
+        if (keys.size() == 1) {
+            return search(keys.get(0), request);
+        }
+
+        SearchRequest shardRequest = SearchResultMerger.shardRequest(request);
+        List<Future<SearchResult>> futures = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            futures.add(fanOutExecutor.submit(() -> withShard(key, search -> search.search(shardRequest))));
+        }
+        List<SearchResult> results = new ArrayList<>(keys.size());
+        try {
+            for (Future<SearchResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while searching shards");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(false));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Shard search failed", cause);
+        }
+
+        SearchResult merged = SearchResultMerger.merge(request, results);
+        merged.setSearchTime(System.currentTimeMillis() - startTime);
+        log.debug("Searched {} shards: query={}, hits={}", keys.size(), request.getQuery(), merged.getTotalHits());
+        return merged;
+    }
+
+    /**
+     * 获取分片的索引统计信息
+     *
+     * @param shardKey 分片键
+     * @return 索引统计信息
+     * @throws IOException 获取异常
+     */
+    public IndexStats getIndexStats(String shardKey) throws IOException {
+        return withShard(shardKey, HibiscusSearch::getIndexStats);
+    }
+
+    /**
+     * 分片是否存在（已打开或磁盘上有索引目录）
+     *
+     * @param shardKey 分片键
+     * @return 是否存在
+     */
+    public boolean exists(String shardKey) {
+        return shards.containsKey(shardKey) || Files.isDirectory(shardPath(shardKey));
+    }
+
+    /**
+     * 列出所有分片
+     *
+     * @return 分片键，按字典序
+     * @throws IOException 读取目录异常
+     */
+    public List<String> listShards() throws IOException {
+        TreeSet<String> keys = new TreeSet<>();
+        if (Files.isDirectory(basePath)) {
+            try (Stream<Path> paths = Files.list(basePath)) {
+                paths.filter(Files::isDirectory)
+                        .map(path -> path.getFileName().toString())
+                        .filter(name -> SHARD_KEY_PATTERN.matcher(name).matches())
+                        .forEach(keys::add);
+            }
+        }
+        keys.addAll(shards.keySet());
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * 当前打开的分片数
+     *
+     * @return 打开的分片数
+     */
+    public int getOpenShardCount() {
+        return openShards().size();
+    }
+
+    /**
+     * 汇总所有已打开分片的运行状态，refreshLagMillis取最大值，其余累加
+     *
+     * @return 运行状态，另含openShards
+     */
+    public Map<String, Long> getEngineStats() {
+        List<Shard> open = openShards();
+        open.removeIf(shard -> !shard.tryRetain());
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("openShards", (long) open.size());
+        for (Shard shard : open) {
+            try {
+                shard.search.getEngineStats().forEach((name, value) ->
+                        stats.merge(name, value, "refreshLagMillis".equals(name) ? Math::max : Long::sum));
+            } finally {
+                release(shard);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 删除分片：等待正在进行的操作结束后关闭索引并删除目录
+     *
+     * @param shardKey 分片键
+     * @throws IOException 删除异常
+     */
+    public void dropShard(String shardKey) throws IOException {
+        Path path = shardPath(shardKey);
+        while (true) {
+            CompletableFuture<Shard> future = shards.get(shardKey);
+            if (future == null) {
+                // 分片未打开：占位后删除目录，期间打开同一分片的操作等待占位完成
+                CompletableFuture<Shard> marker = new CompletableFuture<>();
+                if (shards.putIfAbsent(shardKey, marker) != null) {
+                    continue;
+                }
+                try {
+                    deleteDirectory(path);
+                } finally {
+                    shards.remove(shardKey, marker);
+                    marker.complete(null);
+                }
+                break;
+            }
+            Shard shard = await(shardKey, future);
+            if (shard == null) {
+                continue;
+            }
+            shard.dropping = true;
+            try {
+                if (!awaitIdle(shard)) {
+                    // 已被淘汰或删除，等待关闭后重新查看
+                    awaitClosed(shard);
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                synchronized (shard) {
+                    shard.dropping = false;
+                    shard.notifyAll();
+                }
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while dropping shard " + shardKey);
+            }
+            // 目录删除后才移除占位，等待中的操作不会在删除过程中重新打开分片
+            try {
+                shard.search.close();
+                deleteDirectory(path);
+            } finally {
+                unregister(shard);
+            }
+            break;
+        }
+        log.info("Shard dropped: {}", shardKey);
+    }
+
+    /**
+     * 关闭所有分片，等待各分片上正在进行的操作结束
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (ownsExecutor) {
+            fanOutExecutor.shutdownNow();
+        }
+        IOException failure = null;
+        for (CompletableFuture<Shard> future : shards.values()) {
+            Shard shard;
+            try {
+                shard = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing shards");
+            } catch (ExecutionException e) {
+                continue;
+            }
+            if (shard == null) {
+                continue;
+            }
+            shard.dropping = true;
+            try {
+                if (!awaitIdle(shard)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for shard " + shard.key);
+            }
+            try {
+                shard.search.close();
+            } catch (IOException e) {
+                log.warn("Failed to close shard {}", shard.key, e);
+                failure = e;
+            } finally {
+                unregister(shard);
+            }
+        }
+        if (commitScheduler != null) {
+            commitScheduler.shutdown();
+            try {
+                commitScheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("ShardedHibiscusSearch closed");
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 在分片上执行操作，执行期间分片不会被淘汰或删除
+     */
+    private <T> T withShard(String shardKey, ShardOperation<T> operation) throws IOException {
+        Shard shard = acquire(shardKey);
+        try {
+            return operation.apply(shard.search);
+        } finally {
+            release(shard);
+        }
+    }
+
+    private Shard acquire(String shardKey) throws IOException {
+        Path path = shardPath(shardKey);
+        while (true) {
+            if (closed.get()) {
+                throw new IllegalStateException("ShardedHibiscusSearch is closed");
+            }
+            Shard shard;
+            CompletableFuture<Shard> future = shards.get(shardKey);
+            if (future == null) {
+                CompletableFuture<Shard> opening = new CompletableFuture<>();
+                future = shards.putIfAbsent(shardKey, opening);
+                if (future == null) {
+                    shard = open(shardKey, path, opening);
+                } else {
+                    continue;
+                }
+            } else {
+                shard = await(shardKey, future);
+                if (shard == null || !retainOrWait(shard)) {
+                    continue;
+                }
+            }
+            if (closed.get()) {
+                release(shard);
+                throw new IllegalStateException("ShardedHibiscusSearch is closed");
+            }
+            return shard;
+        }
+    }
+
+    /**
+     * 打开分片并完成占位的future，在调用线程上执行，不持有任何锁
+     *
+     * @return 已为调用方持有一个引用的分片，淘汰其他分片时不会关闭它
+     */
+    private Shard open(String shardKey, Path path, CompletableFuture<Shard> opening) {
+        Shard shard;
+        try {
+            HibiscusSearch search = new HibiscusSearch(template.copy().setIndexPath(path));
+            search.open();
+            shard = new Shard(shardKey, search);
+        } catch (RuntimeException e) {
+            shards.remove(shardKey, opening);
+            opening.completeExceptionally(e);
+            throw e;
+        }
+        opening.complete(shard);
+        evictIdleShards();
+        return shard;
+    }
+
+    private void release(Shard shard) {
+        if (shard.refCount.decrementAndGet() == 0) {
+            synchronized (shard) {
+                shard.notifyAll();
+            }
+            if (closed.get()) {
+                // 关闭开始后才打开的分片不在关闭流程的遍历范围内，由最后一个操作负责关闭
+                if (!shard.dropping && shard.tryRetire()) {
+                    closeQuietly(shard);
+                }
+            } else if (shards.size() > maxOpenShards) {
+                evictIdleShards();
+            }
+        }
+    }
+
+    /**
+     * 关闭最久未使用的空闲分片直到打开数不超过上限；正在使用的分片跳过，
+     * 同一目录同时只能有一个IndexWriter，所以分片关闭完成后才移除占位，之后才能重新打开
+     */
+    private void evictIdleShards() {
+        if (shards.size() <= maxOpenShards) {
+            return;
+        }
+        List<Shard> idle = openShards();
+        idle.removeIf(shard -> shard.refCount.get() != 0 || shard.dropping);
+        idle.sort(Comparator.comparingLong(shard -> shard.lastUsed));
+        for (Shard shard : idle) {
+            if (shards.size() <= maxOpenShards) {
+                break;
+            }
+            if (shard.tryRetire()) {
+                closeQuietly(shard);
+                log.debug("Shard evicted: {}", shard.key);
+            }
+        }
+    }
+
+    /**
+     * 已完成打开的分片快照
+     */
+    private List<Shard> openShards() {
+        List<Shard> open = new ArrayList<>();
+        for (CompletableFuture<Shard> future : shards.values()) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                Shard shard = future.getNow(null);
+                if (shard != null) {
+                    open.add(shard);
+                }
+            }
+        }
+        return open;
+    }
+
+    /**
+     * 等待分片键的占位future完成
+     *
+     * @return 打开的分片，占位为删除操作时返回null
+     */
+    private static Shard await(String shardKey, CompletableFuture<Shard> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for shard " + shardKey);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to open shard " + shardKey, cause);
+        }
+    }
+
+    /**
+     * 获取分片引用；分片删除中时等待删除结束
+     *
+     * @return 是否获取成功，分片已关闭时返回false，调用方应重新查找分片
+     */
+    private static boolean retainOrWait(Shard shard) throws InterruptedIOException {
+        synchronized (shard) {
+            try {
+                while (!shard.tryRetain()) {
+                    if (shard.closed) {
+                        return false;
+                    }
+                    shard.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for shard " + shard.key);
+            }
+        }
+        shard.lastUsed = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * 等待分片上的操作全部结束并将其标记为停用，之后不能再获取引用
+     *
+     * @return 是否由当前线程停用，分片已被其他线程停用时返回false
+     */
+    private static boolean awaitIdle(Shard shard) throws InterruptedException {
+        synchronized (shard) {
+            while (true) {
+                int refs = shard.refCount.get();
+                if (refs < 0) {
+                    return false;
+                }
+                if (refs == 0 && shard.tryRetire()) {
+                    return true;
+                }
+                if (refs > 0) {
+                    shard.wait();
+                }
+            }
+        }
+    }
+
+    private static void awaitClosed(Shard shard) throws InterruptedIOException {
+        synchronized (shard) {
+            try {
+                while (!shard.closed) {
+                    shard.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for shard " + shard.key);
+            }
+        }
+    }
+
+    private void closeQuietly(Shard shard) {
+        try {
+            shard.search.close();
+        } catch (IOException e) {
+            log.warn("Failed to close shard {}", shard.key, e);
+        } finally {
+            unregister(shard);
+        }
+    }
+
+    /**
+     * 移除已停用分片的占位并唤醒等待该分片的线程
+     */
+    private void unregister(Shard shard) {
+        shards.computeIfPresent(shard.key, (key, future) -> future.getNow(null) == shard ? null : future);
+        synchronized (shard) {
+            shard.closed = true;
+            shard.notifyAll();
+        }
+    }
+
+    private static void deleteDirectory(Path path) throws IOException {
+        if (Files.exists(path)) {
+            try (Stream<Path> paths = Files.walk(path)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    private Path shardPath(String shardKey) {
+        if (shardKey == null || !SHARD_KEY_PATTERN.matcher(shardKey).matches()) {
+            throw new IllegalArgumentException("Invalid shard key: " + shardKey);
+        }
+        return basePath.resolve(shardKey);
+    }
+
+    private static SearchResult emptyResult(SearchRequest request) {
+        SearchResult result = new SearchResult(request.getQuery(), 0);
+        result.setPage(request.getPage());
+        result.setPageSize(request.getPageSize());
+        return result;
+    }
+
+    private static ScheduledExecutorService newCommitScheduler() {
+        AtomicInteger counter = new AtomicInteger();
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        return Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "shard-commit-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ExecutorService newFanOutExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 已打开的分片，refCount为正在进行的操作数，为-1时分片已停用正在关闭
+     */
+    private static final class Shard {
+        private final String key;
+        private final HibiscusSearch search;
+        private final AtomicInteger refCount = new AtomicInteger(1);
+        private volatile boolean dropping;
+        private volatile boolean closed;
+        private volatile long lastUsed = System.nanoTime();
+
+        /**
+         * 创建时持有打开者的一个引用
+         */
+        private Shard(String key, HibiscusSearch search) {
+            this.key = key;
+            this.search = search;
+        }
+
+        /**
+         * 增加引用，分片删除中或已停用时失败
+         */
+        private boolean tryRetain() {
+            while (true) {
+                int refs = refCount.get();
+                if (refs < 0 || dropping) {
+                    return false;
+                }
+                if (refCount.compareAndSet(refs, refs + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 没有引用时停用分片
+         */
+        private boolean tryRetire() {
+            return refCount.compareAndSet(0, -1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardOperation<T> {
+        T apply(HibiscusSearch search) throws IOException;
+    }
+}
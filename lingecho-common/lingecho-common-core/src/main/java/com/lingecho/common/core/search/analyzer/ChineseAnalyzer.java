@@ -6,16 +6,17 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.core.StopFilter;
-import org.apache.lucene.analysis.standard.StandardTokenizer;
 
 /**
  * 中文分词器
- * 基于标准分词器，支持中文文本分析
+ * 基于词典的中文分词（双数组Trie树正向最大匹配），支持用户词典热加载
  * 
  * @author heathcetide
  */
 public class ChineseAnalyzer extends Analyzer {
     
+    private final ChineseDictionary dictionary;
+
     private final CharArraySet stopWords;
     
     /**
@@ -31,13 +32,33 @@ public class ChineseAnalyzer extends Analyzer {
      * @param stopWords 停用词集合
      */
     public ChineseAnalyzer(CharArraySet stopWords) {
+        this(ChineseDictionary.getDefault(), stopWords);
+    }
+
+    /**
+     * 创建中文分词器
+     *
+     * @param dictionary 分词词典
+     */
+    public ChineseAnalyzer(ChineseDictionary dictionary) {
+        this(dictionary, CharArraySet.EMPTY_SET);
+    }
+
+    /**
+     * 创建中文分词器
+     *
+     * @param dictionary 分词词典
+     * @param stopWords 停用词集合
+     */
+    public ChineseAnalyzer(ChineseDictionary dictionary, CharArraySet stopWords) {
+        this.dictionary = dictionary;
         this.stopWords = stopWords;
     }
     
     @Override
     protected TokenStreamComponents createComponents(String fieldName) {
-        // 使用标准分词器
-        Tokenizer tokenizer = new StandardTokenizer();
+        // 使用词典分词器
+        Tokenizer tokenizer = new ChineseTokenizer(dictionary);
         
         // 添加过滤器
         TokenStream tokenStream = new LowerCaseFilter(tokenizer);
@@ -0,0 +1,214 @@
+package com.lingecho.common.core.search.analyzer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 中文分词词典
+ * 由内置主词典和可选的用户词典组成，用户词典文件修改后可自动热加载
+ *
+ * @author heathcetide
+ */
+public class ChineseDictionary implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChineseDictionary.class);
+
+    // 内置主词典（随IKAnalyzer发布的词库）
+    private static final String MAIN_DICTIONARY = "org/wltea/analyzer/dic/main2012.dic";
+
+    private static volatile List<String> mainWords;
+
+    private static volatile ChineseDictionary defaultInstance;
+
+    // 用户词典路径，每行一个词，#开头为注释
+    private final Path userDictionary;
+
+    private volatile DoubleArrayTrie trie;
+
+    private volatile long userDictionaryModified = -1;
+
+    private ScheduledExecutorService reloadExecutor;
+
+    /**
+     * 创建只包含主词典的词典
+     */
+    public ChineseDictionary() {
+        this(null);
+    }
+
+    /**
+     * 创建词典
+     *
+     * @param userDictionary 用户词典路径，可以为null
+     */
+    public ChineseDictionary(Path userDictionary) {
+        this.userDictionary = userDictionary;
+        reload();
+    }
+
+    /**
+     * 获取默认词典（只包含主词典，全局共享）
+     *
+     * @return 默认词典
+     */
+    public static ChineseDictionary getDefault() {
+        if (defaultInstance == null) {
+            synchronized (ChineseDictionary.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new ChineseDictionary();
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * 获取当前词典的Trie树快照
+     *
+     * @return Trie树
+     */
+    public DoubleArrayTrie getTrie() {
+        return trie;
+    }
+
+    /**
+     * 重新加载词典
+     */
+    public synchronized void reload() {
+        List<String> words = new ArrayList<>(loadMainWords());
+        if (userDictionary != null) {
+            try {
+                if (Files.exists(userDictionary)) {
+                    userDictionaryModified = Files.getLastModifiedTime(userDictionary).toMillis();
+                    try (InputStream in = Files.newInputStream(userDictionary)) {
+                        words.addAll(readWords(in));
+                    }
+                } else {
+                    userDictionaryModified = -1;
+                    logger.warn("User dictionary not found: {}", userDictionary);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to load user dictionary: {}", userDictionary, e);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        trie = new DoubleArrayTrie(words);
+        logger.info("Chinese dictionary loaded: {} words in {}ms", trie.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 用户词典被修改时重新加载
+     *
+     * @return 是否重新加载
+     */
+    public synchronized boolean reloadIfModified() {
+        if (userDictionary == null) {
+            return false;
+        }
+        try {
+            long modified = Files.exists(userDictionary) ? Files.getLastModifiedTime(userDictionary).toMillis() : -1;
+            if (modified == userDictionaryModified) {
+                return false;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to check user dictionary: {}", userDictionary, e);
+            return false;
+        }
+        logger.info("User dictionary changed, reloading: {}", userDictionary);
+        reload();
+        return true;
+    }
+
+    /**
+     * 启动用户词典热加载任务
+     *
+     * @param intervalMs 检查间隔（毫秒）
+     */
+    public synchronized void startAutoReload(long intervalMs) {
+        if (userDictionary == null || reloadExecutor != null || intervalMs <= 0) {
+            return;
+        }
+        reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chinese-dictionary-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloadExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                reloadIfModified();
+            } catch (Exception e) {
+                logger.warn("User dictionary reload failed", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止热加载任务
+     */
+    @Override
+    public synchronized void close() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+            reloadExecutor = null;
+        }
+    }
+
+    /**
+     * 加载主词典（只读取一次）
+     */
+    private static List<String> loadMainWords() {
+        if (mainWords == null) {
+            synchronized (ChineseDictionary.class) {
+                if (mainWords == null) {
+                    List<String> words = Collections.emptyList();
+                    try (InputStream in = ChineseDictionary.class.getClassLoader().getResourceAsStream(MAIN_DICTIONARY)) {
+                        if (in != null) {
+                            words = Collections.unmodifiableList(readWords(in));
+                        } else {
+                            logger.warn("Main dictionary not found on classpath: {}", MAIN_DICTIONARY);
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Failed to load main dictionary: {}", MAIN_DICTIONARY, e);
+                    }
+                    mainWords = words;
+                }
+            }
+        }
+        return mainWords;
+    }
+
+    /**
+     * 读取词条，词条统一转为小写
+     */
+    private static List<String> readWords(InputStream in) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim();
+                if (!word.isEmpty() && word.charAt(0) == '\uFEFF') {
+                    word = word.substring(1).trim();
+                }
+                if (!word.isEmpty() && !word.startsWith("#")) {
+                    words.add(word.toLowerCase());
+                }
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,126 @@
+package com.lingecho.common.core.search.analyzer;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.ArrayUtil;
+
+import java.io.IOException;
+
+/**
+ * 中文分词器
+ * 汉字部分基于词典做正向最大匹配，未登录的汉字单字切分；字母和数字按连续片段切分；其余字符作为分隔符
+ *
+ * @author heathcetide
+ */
+public final class ChineseTokenizer extends Tokenizer {
+
+    public static final String TYPE_WORD = "<WORD>";
+    public static final String TYPE_IDEOGRAPHIC = "<IDEOGRAPHIC>";
+    public static final String TYPE_ALPHANUM = "<ALPHANUM>";
+
+    // 单个词元的最大长度
+    private static final int MAX_TOKEN_LENGTH = 255;
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+    private final ChineseDictionary dictionary;
+
+    // 当前文本的Trie树快照，词典热加载不影响正在处理的文本
+    private DoubleArrayTrie trie;
+
+    // 复用的文本缓冲区（已转为小写）
+    private char[] buffer = new char[1024];
+    private int length;
+    private int position;
+
+    /**
+     * 创建分词器
+     *
+     * @param dictionary 词典
+     */
+    public ChineseTokenizer(ChineseDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        clearAttributes();
+
+        while (position < length) {
+            char c = buffer[position];
+            if (isHan(c)) {
+                int matched = trie.longestMatch(buffer, position, Math.min(length, position + MAX_TOKEN_LENGTH));
+                if (matched > 1) {
+                    emit(position, matched, TYPE_WORD);
+                } else {
+                    emit(position, 1, TYPE_IDEOGRAPHIC);
+                }
+                return true;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                int end = position + 1;
+                while (end < length && end - position < MAX_TOKEN_LENGTH
+                        && Character.isLetterOrDigit(buffer[end]) && !isHan(buffer[end])) {
+                    end++;
+                }
+                emit(position, end - position, TYPE_ALPHANUM);
+                return true;
+            }
+            position++;
+        }
+        return false;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        trie = dictionary.getTrie();
+        length = 0;
+        position = 0;
+
+        // 一次性读入文本，分词过程中缓冲区复用，不再产生额外分配
+        int read;
+        while ((read = input.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                buffer = ArrayUtil.grow(buffer, length + 1);
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[i] = Character.toLowerCase(buffer[i]);
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+        int finalOffset = correctOffset(length);
+        offsetAtt.setOffset(finalOffset, finalOffset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        // 避免长文本的缓冲区长期占用内存
+        if (buffer.length > 64 * 1024) {
+            buffer = new char[1024];
+        }
+        length = 0;
+        position = 0;
+    }
+
+    private void emit(int start, int len, String type) {
+        termAtt.copyBuffer(buffer, start, len);
+        offsetAtt.setOffset(correctOffset(start), correctOffset(start + len));
+        typeAtt.setType(type);
+        position = start + len;
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -0,0 +1,242 @@
+package com.lingecho.common.core.search.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 双数组Trie树
+ * 用base/check两个整型数组存储词典，匹配时只做数组下标运算，不产生任何对象分配
+ *
+ * @author heathcetide
+ */
+public final class DoubleArrayTrie {
+
+    // base[p] > 0 表示子节点起始位置，base[p] < 0 表示词条结束
+    private int[] base;
+
+    // check[p] 记录父节点的起始位置，0表示空闲
+    private int[] check;
+
+    // 构建时标记已被占用的起始位置
+    private boolean[] used;
+
+    // 构建时的词条（按UTF-16编码排序）
+    private String[] keys;
+
+    private int size;
+
+    private int nextCheckPos;
+
+    // 根节点的子节点起始位置
+    private int root;
+
+    // 词条数量
+    private final int wordCount;
+
+    /**
+     * 根据词条集合构建双数组Trie树
+     *
+     * @param words 词条集合，空词条会被忽略
+     */
+    public DoubleArrayTrie(Collection<String> words) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for (String word : words) {
+            if (word != null && !word.isEmpty()) {
+                sorted.add(word);
+            }
+        }
+        this.keys = sorted.toArray(new String[0]);
+        this.wordCount = keys.length;
+
+        resize(Math.max(1024, keys.length * 4));
+        nextCheckPos = 0;
+        if (keys.length > 0) {
+            List<Node> siblings = fetch(new Node(0, 0, 0, keys.length));
+            root = insert(siblings);
+        }
+
+        // 构建完成后释放临时数据并收缩数组
+        base = Arrays.copyOf(base, size + Character.MAX_VALUE + 2);
+        check = Arrays.copyOf(check, size + Character.MAX_VALUE + 2);
+        used = null;
+        keys = null;
+    }
+
+    /**
+     * 获取词条数量
+     *
+     * @return 词条数量
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * 判断是否包含完整词条
+     *
+     * @param word 词条
+     * @return 是否包含
+     */
+    public boolean contains(CharSequence word) {
+        if (wordCount == 0 || word.length() == 0) {
+            return false;
+        }
+        int b = root;
+        for (int i = 0; i < word.length(); i++) {
+            int p = b + word.charAt(i) + 1;
+            if (check[p] != b) {
+                return false;
+            }
+            b = base[p];
+        }
+        return check[b] == b && base[b] < 0;
+    }
+
+    /**
+     * 查找从指定位置开始的最长词条
+     *
+     * @param buffer 字符缓冲区
+     * @param offset 起始位置
+     * @param end 结束位置（不包含）
+     * @return 最长匹配词条的长度，没有匹配时返回0
+     */
+    public int longestMatch(char[] buffer, int offset, int end) {
+        if (wordCount == 0) {
+            return 0;
+        }
+        int longest = 0;
+        int b = root;
+        for (int i = offset; i < end; i++) {
+            int p = b + buffer[i] + 1;
+            if (check[p] != b) {
+                return longest;
+            }
+            b = base[p];
+            // 结束标记（编码0）存在说明当前前缀是一个完整词条
+            if (check[b] == b && base[b] < 0) {
+                longest = i - offset + 1;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * 收集一个节点的所有子节点
+     */
+    private List<Node> fetch(Node parent) {
+        List<Node> siblings = new ArrayList<>();
+        int prev = -1;
+        for (int i = parent.left; i < parent.right; i++) {
+            String key = keys[i];
+            if (key.length() < parent.depth) {
+                continue;
+            }
+            int code = key.length() == parent.depth ? 0 : key.charAt(parent.depth) + 1;
+            if (code != prev) {
+                if (!siblings.isEmpty()) {
+                    siblings.get(siblings.size() - 1).right = i;
+                }
+                siblings.add(new Node(code, parent.depth + 1, i, 0));
+                prev = code;
+            }
+        }
+        if (!siblings.isEmpty()) {
+            siblings.get(siblings.size() - 1).right = parent.right;
+        }
+        return siblings;
+    }
+
+    /**
+     * 为一组兄弟节点寻找可用的起始位置并递归插入子节点
+     *
+     * @return 兄弟节点的起始位置
+     */
+    private int insert(List<Node> siblings) {
+        Node first = siblings.get(0);
+        Node last = siblings.get(siblings.size() - 1);
+
+        int begin;
+        int pos = Math.max(first.code + 1, nextCheckPos) - 1;
+        int nonZero = 0;
+        boolean firstFree = true;
+
+        outer:
+        while (true) {
+            pos++;
+            if (pos + last.code - first.code >= check.length) {
+                resize(check.length * 2);
+            }
+            if (check[pos] != 0) {
+                nonZero++;
+                continue;
+            }
+            if (firstFree) {
+                nextCheckPos = pos;
+                firstFree = false;
+            }
+
+            begin = pos - first.code;
+            if (used[begin]) {
+                continue;
+            }
+            for (int i = 1; i < siblings.size(); i++) {
+                if (check[begin + siblings.get(i).code] != 0) {
+                    continue outer;
+                }
+            }
+            break;
+        }
+
+        // 空闲位置过于稀疏时跳过，加快后续查找
+        if ((double) nonZero / (pos - nextCheckPos + 1) >= 0.95) {
+            nextCheckPos = pos;
+        }
+
+        used[begin] = true;
+        size = Math.max(size, begin + last.code + 1);
+
+        for (Node sibling : siblings) {
+            check[begin + sibling.code] = begin;
+        }
+        for (Node sibling : siblings) {
+            List<Node> children = fetch(sibling);
+            if (children.isEmpty()) {
+                base[begin + sibling.code] = -sibling.left - 1;
+            } else {
+                base[begin + sibling.code] = insert(children);
+            }
+        }
+        return begin;
+    }
+
+    /**
+     * 扩容构建数组
+     */
+    private void resize(int newSize) {
+        // 预留一个字符编码范围，保证匹配时的下标不会越界
+        int length = newSize + Character.MAX_VALUE + 2;
+        base = base == null ? new int[length] : Arrays.copyOf(base, length);
+        check = check == null ? new int[length] : Arrays.copyOf(check, length);
+        used = used == null ? new boolean[length] : Arrays.copyOf(used, length);
+    }
+
+    /**
+     * 构建时使用的临时节点
+     */
+    private static final class Node {
+        final int code;
+        final int depth;
+        final int left;
+        int right;
+
+        Node(int code, int depth, int left, int right) {
+            this.code = code;
+            this.depth = depth;
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
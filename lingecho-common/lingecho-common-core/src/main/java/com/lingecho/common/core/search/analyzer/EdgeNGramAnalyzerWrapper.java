@@ -0,0 +1,45 @@
+package com.lingecho.common.core.search.analyzer;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.AnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+
+/**
+ * 边缘N元组分析器包装
+ * 在被包装分析器的分词结果上追加词元前缀，索引后前缀匹配只需一次词项查找，无需通配符扫描词典
+ *
+ * @author heathcetide
+ */
+public class EdgeNGramAnalyzerWrapper extends AnalyzerWrapper {
+
+    private final Analyzer delegate;
+
+    private final int minGram;
+
+    private final int maxGram;
+
+    /**
+     * 创建边缘N元组分析器
+     *
+     * @param delegate 被包装的分析器
+     * @param minGram 最小前缀长度
+     * @param maxGram 最大前缀长度，超过该长度的词元保留原词
+     */
+    public EdgeNGramAnalyzerWrapper(Analyzer delegate, int minGram, int maxGram) {
+        super(delegate.getReuseStrategy());
+        this.delegate = delegate;
+        this.minGram = minGram;
+        this.maxGram = maxGram;
+    }
+
+    @Override
+    protected Analyzer getWrappedAnalyzer(String fieldName) {
+        return delegate;
+    }
+
+    @Override
+    protected TokenStreamComponents wrapComponents(String fieldName, TokenStreamComponents components) {
+        return new TokenStreamComponents(components.getSource(),
+                new EdgeNGramTokenFilter(components.getTokenStream(), minGram, maxGram, true));
+    }
+}
@@ -0,0 +1,31 @@
+package com.lingecho.common.core.search.analyzer;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+
+/**
+ * N元组分析器
+ * 将整个字段值切分为长度1到N的所有子串（区分大小写），子串匹配因此可以转化为词项查找
+ *
+ * @author heathcetide
+ */
+public class NGramAnalyzer extends Analyzer {
+
+    private final int maxGram;
+
+    /**
+     * 创建N元组分析器
+     *
+     * @param maxGram 最大子串长度
+     */
+    public NGramAnalyzer(int maxGram) {
+        this.maxGram = maxGram;
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new NGramTokenizer(1, maxGram);
+        return new TokenStreamComponents(tokenizer);
+    }
+}
@@ -0,0 +1,101 @@
+package com.lingecho.common.core.search.config;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 元数据字段类型枚举
+ * 决定元数据的索引方式：关键字使用词项和SortedDocValues，数值和日期使用点（BKD树）和NumericDocValues
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public enum MetadataType {
+    /**
+     * 关键字 - 精确匹配，支持按字符串排序和分组，未声明类型的元数据默认使用该类型
+     */
+    KEYWORD,
+
+    /**
+     * 长整数 - 使用LongPoint索引，支持范围过滤和数值排序
+     */
+    LONG,
+
+    /**
+     * 浮点数 - 使用DoublePoint索引，支持范围过滤和数值排序
+     */
+    DOUBLE,
+
+    /**
+     * 日期 - 转换为毫秒时间戳后按长整数索引，
+     * 支持毫秒时间戳和ISO-8601格式，未带时区的日期按系统默认时区解析
+     */
+    DATE;
+
+    /**
+     * 是否为数值类型（LONG、DOUBLE、DATE）
+     *
+     * @return 是否为数值类型
+     */
+    public boolean isNumeric() {
+        return this != KEYWORD;
+    }
+
+    /**
+     * 将元数据值解析为长整数，只适用于LONG和DATE
+     *
+     * @param value 元数据值
+     * @return 长整数值（日期为毫秒时间戳）
+     * @throws IllegalArgumentException 值无法解析
+     */
+    public long parseLong(String value) {
+        String text = value.trim();
+        if (this == LONG) {
+            return Long.parseLong(text);
+        }
+        if (this != DATE) {
+            throw new IllegalStateException("Not a long-valued metadata type: " + this);
+        }
+        if (!text.isEmpty() && text.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        try {
+            return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // 尝试其它格式
+        }
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // 尝试其它格式
+        }
+        try {
+            return LocalDateTime.parse(text).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // 尝试其它格式
+        }
+        try {
+            return LocalDate.parse(text).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date value: " + value, e);
+        }
+    }
+
+    /**
+     * 将元数据值解析为浮点数，只适用于DOUBLE
+     *
+     * @param value 元数据值
+     * @return 浮点数值
+     * @throws IllegalArgumentException 值无法解析
+     */
+    public double parseDouble(String value) {
+        if (this != DOUBLE) {
+            throw new IllegalStateException("Not a double-valued metadata type: " + this);
+        }
+        return Double.parseDouble(value.trim());
+    }
+}
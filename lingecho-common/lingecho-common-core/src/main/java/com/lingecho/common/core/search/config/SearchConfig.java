@@ -1,9 +1,18 @@
 package com.lingecho.common.core.search.config;
 
+import com.lingecho.common.core.search.core.SearchMetrics;
+import com.lingecho.common.core.search.vector.HnswGraph;
+import com.lingecho.common.core.search.vector.VectorSimilarity;
 import lombok.Data;
+import org.apache.lucene.search.LRUQueryCache;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * 搜索配置类
@@ -48,12 +57,96 @@ public class SearchConfig {
     // 默认的最大建议结果数，表示建议功能返回的最大结果数
     public static final int DEFAULT_SUGGEST_MAX_RESULTS = 10;
 
+    // 默认的用户词典检查间隔（毫秒），用于中文分词词典热加载
+    public static final long DEFAULT_DICTIONARY_RELOAD_INTERVAL = 60000;
+
+    // 默认是否为标题额外建立边缘N元组索引
+    public static final boolean DEFAULT_TITLE_EDGE_NGRAM_ENABLED = true;
+
+    // 默认的边缘N元组最小长度
+    public static final int DEFAULT_EDGE_NGRAM_MIN_SIZE = 1;
+
+    // 默认的边缘N元组最大长度
+    public static final int DEFAULT_EDGE_NGRAM_MAX_SIZE = 20;
+
+    // 默认的子串检索N元组长度
+    public static final int DEFAULT_SUBSTRING_NGRAM_SIZE = 3;
+
+    // 默认是否按时间戳对索引排序
+    public static final boolean DEFAULT_INDEX_SORT_BY_TIMESTAMP = true;
+
+    // 默认是否启用过滤条件缓存
+    public static final boolean DEFAULT_FILTER_CACHE_ENABLED = true;
+
+    // 默认过滤条件缓存最多缓存的查询数
+    public static final int DEFAULT_FILTER_CACHE_MAX_QUERIES = 1000;
+
+    // 默认过滤条件缓存的最大内存（MB）
+    public static final int DEFAULT_FILTER_CACHE_MAX_MEMORY_MB = 32;
+
+    // 默认元数据过滤条件缓存前的最少使用次数
+    public static final int DEFAULT_FILTER_CACHE_MIN_FREQUENCY = 2;
+
+    // 默认只缓存文档数不少于该值的段（与Lucene默认一致）
+    public static final int DEFAULT_FILTER_CACHE_MIN_SEGMENT_DOCS = 10000;
+
+    // 默认索引写入的RAM缓冲区大小（MB）
+    public static final int DEFAULT_RAM_BUFFER_SIZE_MB = 512;
+
+    // 默认向量相似度
+    public static final VectorSimilarity DEFAULT_VECTOR_SIMILARITY = VectorSimilarity.COSINE;
+
+    // 默认HNSW每层最大连接数
+    public static final int DEFAULT_HNSW_MAX_CONNECTIONS = HnswGraph.DEFAULT_MAX_CONNECTIONS;
+
+    // 默认HNSW构建时的候选队列大小
+    public static final int DEFAULT_HNSW_BEAM_WIDTH = HnswGraph.DEFAULT_BEAM_WIDTH;
+
+    // 默认启用事务日志时的Lucene提交间隔（毫秒）
+    public static final long DEFAULT_TRANSLOG_FLUSH_INTERVAL = 300000;
+
+    // 默认未提交的事务日志达到多大时提前提交（MB）
+    public static final int DEFAULT_TRANSLOG_FLUSH_THRESHOLD_MB = 512;
+
+    // 默认异步接口的等待队列长度
+    public static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 256;
+
+    // 默认预热的热门查询数
+    public static final int DEFAULT_WARMUP_QUERY_COUNT = 32;
+
     // 索引文件路径，用于指定索引数据存储的具体位置
     private Path indexPath;
 
     // 分析器类型，控制使用哪种文本分析器来解析文本
     private String analyzerType;
 
+    // 用户词典路径，分析器类型为chinese时生效，为空表示只使用内置词典
+    private String userDictionaryPath;
+
+    // 用户词典检查间隔（毫秒），小于等于0表示不自动热加载
+    private long dictionaryReloadInterval;
+
+    // 字段级分析器类型，键为字段名，值为分析器类型，未配置的字段使用analyzerType
+    private Map<String, String> fieldAnalyzerTypes;
+
+    // 是否为标题额外建立边缘N元组索引，用于前缀匹配和即时搜索（请求设置titlePrefix时使用）
+    private boolean titleEdgeNGramEnabled;
+
+    // 边缘N元组最小长度
+    private int edgeNGramMinSize;
+
+    // 边缘N元组最大长度，超过该长度的词元只保留原词
+    private int edgeNGramMaxSize;
+
+    // 支持子串检索的元数据字段，这些字段额外建立N元组子字段，CONTAINS过滤无需通配符扫描
+    private Set<String> substringSearchFields;
+
+    // 子串检索的N元组长度，索引长度1到该值的所有子串
+    private int substringNGramSize;
+
+    // 元数据字段类型，键为元数据字段名，未声明的字段按关键字处理
+    private Map<String, MetadataType> metadataTypes;
+
     // 最大返回结果数，限制查询时返回的结果个数
     private int maxResults;
 
@@ -81,12 +174,87 @@ public class SearchConfig {
     // 建议返回的最大结果数，控制建议功能返回的建议数量
     private int suggestMaxResults;
 
+    // 是否按时间戳从新到旧对索引排序，"最新优先"的列表查询可以提前结束；只对新建的索引生效
+    private boolean indexSortByTimestamp;
+
+    // 是否启用过滤条件缓存，重复的过滤子句按段缓存为位集
+    private boolean filterCacheEnabled;
+
+    // 过滤条件缓存最多缓存的查询数
+    private int filterCacheMaxQueries;
+
+    // 过滤条件缓存的最大内存（MB）
+    private int filterCacheMaxMemoryMB;
+
+    // 元数据过滤条件在最近的搜索中至少使用该次数后才缓存
+    private int filterCacheMinFrequency;
+
+    // 只缓存文档数不少于该值、且占索引文档数3%以上的段；小索引需要调低，否则不会缓存
+    private int filterCacheMinSegmentDocs;
+
+    // 共享的过滤条件缓存，多个索引（如分片）共用一份内存上限；为null时每个索引创建自己的缓存
+    private LRUQueryCache sharedFilterCache;
+
+    // 索引写入的RAM缓冲区大小（MB），缓冲区满时写出新段
+    private int ramBufferSizeMB;
+
+    // 向量相似度
+    private VectorSimilarity vectorSimilarity;
+
+    // 向量维度，0表示由第一个写入的向量决定
+    private int vectorDimension;
+
+    // HNSW每层最大连接数，越大召回率越高，内存和构建开销也越大
+    private int hnswMaxConnections;
+
+    // HNSW构建时的候选队列大小
+    private int hnswBeamWidth;
+
     // 是否启用自动提交功能
     private boolean autoCommit;
 
+    // 是否启用事务日志：写入在返回前同步到日志，Lucene只按间隔批量提交，启动时重放未提交的写入
+    private boolean translogEnabled;
+
+    // 启用事务日志时的Lucene提交间隔（毫秒）
+    private long translogFlushInterval;
+
+    // 未提交的事务日志达到多大时提前提交（MB）
+    private int translogFlushThresholdMB;
+
+    // 默认搜索超时（毫秒），请求未指定超时时使用，0表示不限制
+    private long searchTimeout;
+
+    // 是否合并并发的相同搜索：同一读取器上参数完全相同的请求只执行一次，其余请求等待并共享结果
+    private boolean searchCoalescingEnabled;
+
+    // 新段对搜索可见前执行的热门查询数，热门查询列表保存在索引目录中，重启后继续使用；0表示不记录也不预热
+    private int warmupQueryCount;
+
+    // 是否启用准入控制：搜索、写入、维护操作分别限制并发，过载时立即拒绝
+    private boolean admissionControlEnabled;
+
+    // 搜索并发上限的最大值，实际上限按延迟自适应调整
+    private int maxSearchConcurrency;
+
+    // 写入并发上限的最大值
+    private int maxIndexingConcurrency;
+
+    // 指标回调，默认不记录
+    private SearchMetrics metrics;
+
+    // 异步接口的工作线程数
+    private int asyncThreads;
+
+    // 异步接口的等待队列长度，队列满时立即拒绝
+    private int asyncQueueCapacity;
+
     // 提交间隔时间，单位是毫秒。表示在此时间间隔内提交一次索引
     private int commitInterval;
 
+    // 执行定时提交的共享线程池，由创建者负责关闭；为null时每个索引创建自己的提交线程
+    private ScheduledExecutorService commitScheduler;
+
     // 存储类型，控制索引数据的存储方式
     private StorageType storageType;
 
@@ -115,6 +283,24 @@ public class SearchConfig {
         // 设置默认分析器类型
         this.analyzerType = DEFAULT_ANALYZER_TYPE;
 
+        // 设置默认用户词典检查间隔
+        this.dictionaryReloadInterval = DEFAULT_DICTIONARY_RELOAD_INTERVAL;
+
+        // 默认所有字段使用同一分析器
+        this.fieldAnalyzerTypes = new HashMap<>();
+
+        // 设置默认边缘N元组配置
+        this.titleEdgeNGramEnabled = DEFAULT_TITLE_EDGE_NGRAM_ENABLED;
+        this.edgeNGramMinSize = DEFAULT_EDGE_NGRAM_MIN_SIZE;
+        this.edgeNGramMaxSize = DEFAULT_EDGE_NGRAM_MAX_SIZE;
+
+        // 默认不为元数据建立子串索引
+        this.substringSearchFields = new HashSet<>();
+        this.substringNGramSize = DEFAULT_SUBSTRING_NGRAM_SIZE;
+
+        // 默认所有元数据按关键字处理
+        this.metadataTypes = new HashMap<>();
+
         // 设置默认最大结果数
         this.maxResults = DEFAULT_MAX_RESULTS;
 
@@ -142,6 +328,48 @@ public class SearchConfig {
         // 设置默认最大建议结果数
         this.suggestMaxResults = DEFAULT_SUGGEST_MAX_RESULTS;
 
+        // 默认按时间戳对索引排序
+        this.indexSortByTimestamp = DEFAULT_INDEX_SORT_BY_TIMESTAMP;
+
+        // 设置默认过滤条件缓存配置
+        this.filterCacheEnabled = DEFAULT_FILTER_CACHE_ENABLED;
+        this.filterCacheMaxQueries = DEFAULT_FILTER_CACHE_MAX_QUERIES;
+        this.filterCacheMaxMemoryMB = DEFAULT_FILTER_CACHE_MAX_MEMORY_MB;
+        this.filterCacheMinFrequency = DEFAULT_FILTER_CACHE_MIN_FREQUENCY;
+        this.filterCacheMinSegmentDocs = DEFAULT_FILTER_CACHE_MIN_SEGMENT_DOCS;
+
+        this.ramBufferSizeMB = DEFAULT_RAM_BUFFER_SIZE_MB;
+
+        // 设置默认向量检索配置
+        this.vectorSimilarity = DEFAULT_VECTOR_SIMILARITY;
+        this.vectorDimension = 0;
+        this.hnswMaxConnections = DEFAULT_HNSW_MAX_CONNECTIONS;
+        this.hnswBeamWidth = DEFAULT_HNSW_BEAM_WIDTH;
+
+        // 默认不启用事务日志，保持每次写入提交或按commitInterval提交
+        this.translogEnabled = false;
+        this.translogFlushInterval = DEFAULT_TRANSLOG_FLUSH_INTERVAL;
+        this.translogFlushThresholdMB = DEFAULT_TRANSLOG_FLUSH_THRESHOLD_MB;
+
+        // 默认不限制搜索时间
+        this.searchTimeout = 0;
+
+        // 默认合并并发的相同搜索
+        this.searchCoalescingEnabled = true;
+
+        this.warmupQueryCount = DEFAULT_WARMUP_QUERY_COUNT;
+
+        // 默认不启用准入控制
+        this.admissionControlEnabled = false;
+        this.maxSearchConcurrency = Runtime.getRuntime().availableProcessors() * 4;
+        this.maxIndexingConcurrency = Runtime.getRuntime().availableProcessors();
+
+        this.metrics = SearchMetrics.NOOP;
+
+        // 异步接口默认每个CPU一个线程
+        this.asyncThreads = Runtime.getRuntime().availableProcessors();
+        this.asyncQueueCapacity = DEFAULT_ASYNC_QUEUE_CAPACITY;
+
         // 默认启用自动提交
         this.autoCommit = true;
 
@@ -196,6 +424,96 @@ public class SearchConfig {
         return this;
     }
 
+    public SearchConfig setUserDictionaryPath(String userDictionaryPath) {
+        this.userDictionaryPath = userDictionaryPath;
+        return this;
+    }
+
+    public SearchConfig setDictionaryReloadInterval(long dictionaryReloadInterval) {
+        this.dictionaryReloadInterval = dictionaryReloadInterval;
+        return this;
+    }
+
+    public SearchConfig setFieldAnalyzerTypes(Map<String, String> fieldAnalyzerTypes) {
+        this.fieldAnalyzerTypes = fieldAnalyzerTypes != null ? new HashMap<>(fieldAnalyzerTypes) : new HashMap<>();
+        return this;
+    }
+
+    /**
+     * 为指定字段设置分析器类型
+     *
+     * @param field 字段名
+     * @param analyzerType 分析器类型
+     * @return 当前配置实例
+     */
+    public SearchConfig setFieldAnalyzerType(String field, String analyzerType) {
+        this.fieldAnalyzerTypes.put(field, analyzerType);
+        return this;
+    }
+
+    public SearchConfig setTitleEdgeNGramEnabled(boolean titleEdgeNGramEnabled) {
+        this.titleEdgeNGramEnabled = titleEdgeNGramEnabled;
+        return this;
+    }
+
+    public SearchConfig setEdgeNGramMinSize(int edgeNGramMinSize) {
+        this.edgeNGramMinSize = edgeNGramMinSize;
+        return this;
+    }
+
+    public SearchConfig setEdgeNGramMaxSize(int edgeNGramMaxSize) {
+        this.edgeNGramMaxSize = edgeNGramMaxSize;
+        return this;
+    }
+
+    public SearchConfig setSubstringSearchFields(Set<String> substringSearchFields) {
+        this.substringSearchFields = substringSearchFields != null ? new HashSet<>(substringSearchFields) : new HashSet<>();
+        return this;
+    }
+
+    /**
+     * 将元数据字段标记为支持子串检索，需在建立索引前配置
+     *
+     * @param field 元数据字段名
+     * @return 当前配置实例
+     */
+    public SearchConfig addSubstringSearchField(String field) {
+        this.substringSearchFields.add(field);
+        return this;
+    }
+
+    public SearchConfig setSubstringNGramSize(int substringNGramSize) {
+        this.substringNGramSize = substringNGramSize;
+        return this;
+    }
+
+    public SearchConfig setMetadataTypes(Map<String, MetadataType> metadataTypes) {
+        this.metadataTypes = metadataTypes != null ? new HashMap<>(metadataTypes) : new HashMap<>();
+        return this;
+    }
+
+    /**
+     * 声明元数据字段类型，需在建立索引前配置，同一字段的类型不能在已有索引上修改
+     *
+     * @param field 元数据字段名
+     * @param type 字段类型
+     * @return 当前配置实例
+     */
+    public SearchConfig setMetadataType(String field, MetadataType type) {
+        this.metadataTypes.put(field, type);
+        return this;
+    }
+
+    /**
+     * 获取元数据字段类型
+     *
+     * @param field 元数据字段名
+     * @return 字段类型，未声明时为关键字
+     */
+    public MetadataType getMetadataType(String field) {
+        return metadataTypes.getOrDefault(field, MetadataType.KEYWORD);
+    }
+
     public SearchConfig setMaxResults(int maxResults) {
         this.maxResults = maxResults;
         return this;
@@ -241,6 +559,126 @@ public class SearchConfig {
         return this;
     }
 
+    public SearchConfig setIndexSortByTimestamp(boolean indexSortByTimestamp) {
+        this.indexSortByTimestamp = indexSortByTimestamp;
+        return this;
+    }
+
+    public SearchConfig setFilterCacheEnabled(boolean filterCacheEnabled) {
+        this.filterCacheEnabled = filterCacheEnabled;
+        return this;
+    }
+
+    public SearchConfig setFilterCacheMaxQueries(int filterCacheMaxQueries) {
+        this.filterCacheMaxQueries = filterCacheMaxQueries;
+        return this;
+    }
+
+    public SearchConfig setFilterCacheMaxMemoryMB(int filterCacheMaxMemoryMB) {
+        this.filterCacheMaxMemoryMB = filterCacheMaxMemoryMB;
+        return this;
+    }
+
+    public SearchConfig setFilterCacheMinFrequency(int filterCacheMinFrequency) {
+        this.filterCacheMinFrequency = filterCacheMinFrequency;
+        return this;
+    }
+
+    public SearchConfig setFilterCacheMinSegmentDocs(int filterCacheMinSegmentDocs) {
+        this.filterCacheMinSegmentDocs = filterCacheMinSegmentDocs;
+        return this;
+    }
+
+    public SearchConfig setSharedFilterCache(LRUQueryCache sharedFilterCache) {
+        this.sharedFilterCache = sharedFilterCache;
+        return this;
+    }
+
+    public SearchConfig setRamBufferSizeMB(int ramBufferSizeMB) {
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        return this;
+    }
+
+    public SearchConfig setVectorSimilarity(VectorSimilarity vectorSimilarity) {
+        this.vectorSimilarity = vectorSimilarity;
+        return this;
+    }
+
+    public SearchConfig setVectorDimension(int vectorDimension) {
+        this.vectorDimension = vectorDimension;
+        return this;
+    }
+
+    public SearchConfig setHnswMaxConnections(int hnswMaxConnections) {
+        this.hnswMaxConnections = hnswMaxConnections;
+        return this;
+    }
+
+    public SearchConfig setHnswBeamWidth(int hnswBeamWidth) {
+        this.hnswBeamWidth = hnswBeamWidth;
+        return this;
+    }
+
+    public SearchConfig setTranslogEnabled(boolean translogEnabled) {
+        this.translogEnabled = translogEnabled;
+        return this;
+    }
+
+    public SearchConfig setTranslogFlushInterval(long translogFlushInterval) {
+        this.translogFlushInterval = translogFlushInterval;
+        return this;
+    }
+
+    public SearchConfig setTranslogFlushThresholdMB(int translogFlushThresholdMB) {
+        this.translogFlushThresholdMB = translogFlushThresholdMB;
+        return this;
+    }
+
+    public SearchConfig setSearchTimeout(long searchTimeout) {
+        this.searchTimeout = searchTimeout;
+        return this;
+    }
+
+    public SearchConfig setSearchCoalescingEnabled(boolean searchCoalescingEnabled) {
+        this.searchCoalescingEnabled = searchCoalescingEnabled;
+        return this;
+    }
+
+    public SearchConfig setWarmupQueryCount(int warmupQueryCount) {
+        this.warmupQueryCount = warmupQueryCount;
+        return this;
+    }
+
+    public SearchConfig setAdmissionControlEnabled(boolean admissionControlEnabled) {
+        this.admissionControlEnabled = admissionControlEnabled;
+        return this;
+    }
+
+    public SearchConfig setMaxSearchConcurrency(int maxSearchConcurrency) {
+        this.maxSearchConcurrency = maxSearchConcurrency;
+        return this;
+    }
+
+    public SearchConfig setMaxIndexingConcurrency(int maxIndexingConcurrency) {
+        this.maxIndexingConcurrency = maxIndexingConcurrency;
+        return this;
+    }
+
+    public SearchConfig setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics != null ? metrics : SearchMetrics.NOOP;
+        return this;
+    }
+
+    public SearchConfig setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+        return this;
+    }
+
+    public SearchConfig setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+        return this;
+    }
+
     public SearchConfig setAutoCommit(boolean autoCommit) {
         this.autoCommit = autoCommit;
         return this;
@@ -251,4 +689,71 @@ public class SearchConfig {
         return this;
     }
 
+    public SearchConfig setCommitScheduler(ScheduledExecutorService commitScheduler) {
+        this.commitScheduler = commitScheduler;
+        return this;
+    }
+
+    /**
+     * 复制配置，集合类型的字段深拷贝
+     *
+     * @return 新的配置实例
+     */
+    public SearchConfig copy() {
+        SearchConfig copy = new SearchConfig(indexPath);
+        copy.analyzerType = analyzerType;
+        copy.userDictionaryPath = userDictionaryPath;
+        copy.dictionaryReloadInterval = dictionaryReloadInterval;
+        copy.fieldAnalyzerTypes = new HashMap<>(fieldAnalyzerTypes);
+        copy.titleEdgeNGramEnabled = titleEdgeNGramEnabled;
+        copy.edgeNGramMinSize = edgeNGramMinSize;
+        copy.edgeNGramMaxSize = edgeNGramMaxSize;
+        copy.substringSearchFields = new HashSet<>(substringSearchFields);
+        copy.substringNGramSize = substringNGramSize;
+        copy.metadataTypes = new HashMap<>(metadataTypes);
+        copy.maxResults = maxResults;
+        copy.minScore = minScore;
+        copy.highlightEnabled = highlightEnabled;
+        copy.highlightPreTag = highlightPreTag;
+        copy.highlightPostTag = highlightPostTag;
+        copy.highlightFragmentSize = highlightFragmentSize;
+        copy.highlightMaxFragments = highlightMaxFragments;
+        copy.suggestEnabled = suggestEnabled;
+        copy.suggestMaxResults = suggestMaxResults;
+        copy.indexSortByTimestamp = indexSortByTimestamp;
+        copy.filterCacheEnabled = filterCacheEnabled;
+        copy.filterCacheMaxQueries = filterCacheMaxQueries;
+        copy.filterCacheMaxMemoryMB = filterCacheMaxMemoryMB;
+        copy.filterCacheMinFrequency = filterCacheMinFrequency;
+        copy.filterCacheMinSegmentDocs = filterCacheMinSegmentDocs;
+        copy.sharedFilterCache = sharedFilterCache;
+        copy.ramBufferSizeMB = ramBufferSizeMB;
+        copy.vectorSimilarity = vectorSimilarity;
+        copy.vectorDimension = vectorDimension;
+        copy.hnswMaxConnections = hnswMaxConnections;
+        copy.hnswBeamWidth = hnswBeamWidth;
+        copy.translogEnabled = translogEnabled;
+        copy.translogFlushInterval = translogFlushInterval;
+        copy.translogFlushThresholdMB = translogFlushThresholdMB;
+        copy.searchTimeout = searchTimeout;
+        copy.searchCoalescingEnabled = searchCoalescingEnabled;
+        copy.warmupQueryCount = warmupQueryCount;
+        copy.admissionControlEnabled = admissionControlEnabled;
+        copy.maxSearchConcurrency = maxSearchConcurrency;
+        copy.maxIndexingConcurrency = maxIndexingConcurrency;
+        copy.metrics = metrics;
+        copy.asyncThreads = asyncThreads;
+        copy.asyncQueueCapacity = asyncQueueCapacity;
+        copy.autoCommit = autoCommit;
+        copy.commitInterval = commitInterval;
+        copy.commitScheduler = commitScheduler;
+        copy.storageType = storageType;
+        copy.jdbcUrl = jdbcUrl;
+        copy.jdbcUser = jdbcUser;
+        copy.jdbcPassword = jdbcPassword;
+        copy.jdbcTable = jdbcTable;
+        copy.jdbcSuggestTable = jdbcSuggestTable;
+        return copy;
+    }
+
 }
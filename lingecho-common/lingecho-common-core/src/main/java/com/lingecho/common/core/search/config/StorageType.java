@@ -9,7 +9,7 @@ package com.lingecho.common.core.search.config;
  */
 public enum StorageType {
     /**
-     * 内存存储 - 使用RAMDirectory，数据存储在内存中，速度快但重启后丢失
+     * 内存存储 - 使用ByteBuffersDirectory，数据存储在内存中，速度快但重启后丢失
      */
     MEMORY,
     
@@ -0,0 +1,115 @@
+package com.lingecho.common.core.search.core;
+
+/**
+ * 按延迟自适应的并发上限
+ * 与Netflix concurrency-limits的Gradient2算法相同：比较短期平均延迟与长期平均延迟，
+ * 短期延迟没有明显升高时上限按sqrt(limit)增长，延迟升高时按比例收缩；请求超时等被丢弃的样本直接乘性减小上限。
+ * 上限在[minLimit, maxLimit]之间，并发远未用满时不增长，避免空闲时上限无限制地升高。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    // 短期延迟允许超过长期延迟的比例
+    private static final double TOLERANCE = 1.5;
+    // 上限调整的平滑系数
+    private static final double SMOOTHING = 0.2;
+    // 样本被丢弃时的收缩比例
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+    private long rejected;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     *
+     * @return 是否成功，达到上限时返回false
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 归还名额并记录延迟
+     *
+     * @param rttNanos 本次请求耗时（纳秒）
+     * @param dropped 请求是否被丢弃（超时等），丢弃的样本不计入延迟统计，直接收缩上限
+     */
+    synchronized void release(long rttNanos, boolean dropped) {
+        int concurrency = inFlight--;
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+
+        samples++;
+        double rtt = Math.max(1, rttNanos);
+        shortRtt = samples == 1 ? rtt : shortRtt + (rtt - shortRtt) / Math.min(samples, SHORT_WINDOW);
+        longRtt = samples == 1 ? rtt : longRtt + (rtt - longRtt) / Math.min(samples, LONG_WINDOW);
+        // 负载下降后长期延迟远高于短期延迟，加快长期延迟的回落，否则上限会长时间停在高位
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // 并发远未用满时延迟不能说明容量，不增长上限
+        if (concurrency < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+
+    /**
+     * 建议的重试等待时间：按短期平均延迟估计一个名额多久后释放
+     *
+     * @return 毫秒
+     */
+    synchronized long retryAfterMillis() {
+        return Math.max(1, Math.round(shortRtt / 1_000_000));
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * 当前使用率
+     *
+     * @return 正在执行的请求数与上限之比
+     */
+    synchronized double utilization() {
+        return inFlight / limit;
+    }
+}
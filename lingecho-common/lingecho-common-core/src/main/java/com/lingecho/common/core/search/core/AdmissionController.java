@@ -0,0 +1,108 @@
+package com.lingecho.common.core.search.core;
+
+import com.lingecho.common.core.search.config.SearchConfig;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 搜索子系统的准入控制
+ * 交互式搜索、批量写入和维护操作（优化、清空、预热）各有独立的自适应并发上限；
+ * 搜索优先：搜索并发接近上限时写入和维护操作直接拒绝，把资源留给搜索。
+ * 超过上限的请求立即以SearchRejectedException拒绝，不排队等待。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public class AdmissionController {
+
+    // 搜索使用率超过该值时拒绝低优先级操作
+    private static final double LOW_PRIORITY_SHED_UTILIZATION = 0.8;
+
+    /**
+     * 操作类型，按优先级从高到低
+     */
+    public enum Pool {
+        SEARCH, INDEXING, MAINTENANCE
+    }
+
+    private final Map<Pool, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(Pool.class);
+
+    public AdmissionController(SearchConfig config) {
+        int maxSearch = Math.max(1, config.getMaxSearchConcurrency());
+        int maxIndexing = Math.max(1, config.getMaxIndexingConcurrency());
+        limiters.put(Pool.SEARCH, new AdaptiveConcurrencyLimiter(Math.max(1, maxSearch / 2), 1, maxSearch));
+        limiters.put(Pool.INDEXING, new AdaptiveConcurrencyLimiter(Math.max(1, maxIndexing / 2), 1, maxIndexing));
+        // 维护操作本身是重量级的，同时只允许一个
+        limiters.put(Pool.MAINTENANCE, new AdaptiveConcurrencyLimiter(1, 1, 1));
+    }
+
+    /**
+     * 申请执行许可
+     *
+     * @param pool 操作类型
+     * @return 许可，操作结束后关闭
+     * @throws SearchRejectedException 该类操作已达到并发上限，或搜索繁忙时的低优先级操作
+     */
+    public Permit acquire(Pool pool) {
+        AdaptiveConcurrencyLimiter search = limiters.get(Pool.SEARCH);
+        if (pool != Pool.SEARCH && search.utilization() >= LOW_PRIORITY_SHED_UTILIZATION) {
+            throw new SearchRejectedException(pool, search.retryAfterMillis(),
+                    "Search is busy, " + pool + " operation rejected");
+        }
+        AdaptiveConcurrencyLimiter limiter = limiters.get(pool);
+        if (!limiter.tryAcquire()) {
+            throw new SearchRejectedException(pool, limiter.retryAfterMillis(),
+                    pool + " concurrency limit " + limiter.getLimit() + " reached");
+        }
+        return new Permit(limiter);
+    }
+
+    /**
+     * 获取各类操作的当前上限、执行中数量和拒绝次数
+     *
+     * @return 统计，键如search.limit、indexing.inFlight、maintenance.rejected
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        limiters.forEach((pool, limiter) -> {
+            String prefix = pool.name().toLowerCase(Locale.ROOT);
+            stats.put(prefix + ".limit", (long) limiter.getLimit());
+            stats.put(prefix + ".inFlight", (long) limiter.getInFlight());
+            stats.put(prefix + ".rejected", limiter.getRejected());
+        });
+        return stats;
+    }
+
+    /**
+     * 执行许可，关闭时归还名额并把耗时反馈给并发上限
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startTime = System.nanoTime();
+        private boolean dropped;
+        private boolean released;
+
+        private Permit(AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        /**
+         * 标记本次请求被丢弃（如超时），归还时收缩并发上限
+         */
+        public void markDropped() {
+            this.dropped = true;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                limiter.release(System.nanoTime() - startTime, dropped);
+            }
+        }
+    }
+}
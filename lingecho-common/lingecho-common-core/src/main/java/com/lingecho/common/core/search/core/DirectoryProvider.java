@@ -29,8 +29,8 @@ public final class DirectoryProvider {
      */
     public static Directory createIndexDirectory(SearchConfig cfg) throws IOException {
         return switch (cfg.getStorageType()) {
-            case MEMORY -> new RAMDirectory();
-            case DISK -> FSDirectory.open(ensurePath(cfg.getIndexPath().toString()));
+            case MEMORY -> new ByteBuffersDirectory();
+            case DISK, FILESYSTEM -> FSDirectory.open(ensurePath(cfg.getIndexPath().toString()));
             case NIOFS -> new NIOFSDirectory(ensurePath(cfg.getIndexPath().toString()));
             case MMAP -> new MMapDirectory(ensurePath(cfg.getIndexPath().toString()));
             case JDBC -> new JdbcDirectory(cfg.getJdbcUrl(), cfg.getJdbcUser(),
@@ -48,14 +48,13 @@ public final class DirectoryProvider {
      */
     public static Directory createSuggestDirectory(SearchConfig cfg) throws IOException {
         return switch (cfg.getStorageType()) {
-            case MEMORY -> new RAMDirectory();
-            case DISK, NIOFS, MMAP -> {
-                Path p = ensurePath(cfg.getIndexPath().resolve("suggest").toString());
-                yield new MMapDirectory(p);
-            }
+            case MEMORY -> new ByteBuffersDirectory();
+            case DISK, FILESYSTEM -> FSDirectory.open(ensurePath(cfg.getIndexPath().resolve("suggest").toString()));
+            case NIOFS -> new NIOFSDirectory(ensurePath(cfg.getIndexPath().resolve("suggest").toString()));
+            case MMAP -> new MMapDirectory(ensurePath(cfg.getIndexPath().resolve("suggest").toString()));
             case JDBC -> new JdbcDirectory(cfg.getJdbcUrl(), cfg.getJdbcUser(),
                     cfg.getJdbcPassword(), cfg.getJdbcSuggestTable());
-            default -> new RAMDirectory();
+            default -> new ByteBuffersDirectory();
         };
     }
 
@@ -0,0 +1,267 @@
+package com.lingecho.common.core.search.core;
+
+import com.lingecho.common.core.search.model.SearchResult;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * 分组统计收集器
+ * 与命中文档收集器组合使用，在同一次遍历中直接读取doc values完成计数，无需为每个分组单独查询
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+final class FacetCollector implements Collector {
+
+    // 结果名 -> 计数器，保持请求中的顺序
+    private final Map<String, FacetCounter> counters = new LinkedHashMap<>();
+
+    // 当前段的计数器，切换段或获取结果时合并到全局计数
+    private final List<LeafFacetCounter> currentLeaves = new ArrayList<>();
+
+    /**
+     * 添加关键字字段（SortedDocValues）的词项统计
+     *
+     * @param name 结果名
+     * @param field 索引字段名
+     * @param size 返回的最大分组数
+     */
+    void addSortedTerms(String name, String field, int size) {
+        counters.put(name, new SortedTermsCounter(field, size));
+    }
+
+    /**
+     * 添加数值字段（NumericDocValues）的词项统计
+     *
+     * @param name 结果名
+     * @param field 索引字段名
+     * @param size 返回的最大分组数
+     * @param formatter 数值格式化
+     */
+    void addNumericTerms(String name, String field, int size, LongFunction<String> formatter) {
+        counters.put(name, new NumericTermsCounter(field, size, formatter));
+    }
+
+    /**
+     * 添加数值字段（NumericDocValues）的直方图
+     *
+     * @param name 结果名
+     * @param field 索引字段名
+     * @param interval 区间大小
+     */
+    void addHistogram(String name, String field, long interval) {
+        counters.put(name, new HistogramCounter(field, interval));
+    }
+
+    boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        flush();
+        for (FacetCounter counter : counters.values()) {
+            currentLeaves.add(counter.leaf(context));
+        }
+        LeafFacetCounter[] leaves = currentLeaves.toArray(new LeafFacetCounter[0]);
+        return new LeafCollector() {
+            @Override
+            public void setScorer(Scorable scorer) {
+                // 计数不需要评分
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                for (LeafFacetCounter leaf : leaves) {
+                    leaf.collect(doc);
+                }
+            }
+        };
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    /**
+     * 获取分组统计结果
+     *
+     * @return 结果名 -> 分组列表
+     */
+    Map<String, List<SearchResult.FacetBucket>> getResults() throws IOException {
+        flush();
+        Map<String, List<SearchResult.FacetBucket>> results = new LinkedHashMap<>();
+        counters.forEach((name, counter) -> results.put(name, counter.buckets()));
+        return results;
+    }
+
+    private void flush() throws IOException {
+        for (LeafFacetCounter leaf : currentLeaves) {
+            leaf.finish();
+        }
+        currentLeaves.clear();
+    }
+
+    /**
+     * 按数量降序、值升序取前N个分组
+     */
+    private static List<SearchResult.FacetBucket> topBuckets(Map<String, Long> counts, int size) {
+        List<SearchResult.FacetBucket> buckets = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> buckets.add(new SearchResult.FacetBucket(key, count)));
+        buckets.sort(Comparator.comparingLong(SearchResult.FacetBucket::getCount).reversed()
+                .thenComparing(SearchResult.FacetBucket::getKey));
+        return size > 0 && buckets.size() > size ? new ArrayList<>(buckets.subList(0, size)) : buckets;
+    }
+
+    private interface FacetCounter {
+        LeafFacetCounter leaf(LeafReaderContext context) throws IOException;
+
+        List<SearchResult.FacetBucket> buckets();
+    }
+
+    private interface LeafFacetCounter {
+        void collect(int doc) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * 关键字词项统计：段内按序号计数，段结束时只对出现过的序号查找词项
+     */
+    private static final class SortedTermsCounter implements FacetCounter {
+        private final String field;
+        private final int size;
+        private final Map<String, Long> counts = new HashMap<>();
+
+        SortedTermsCounter(String field, int size) {
+            this.field = field;
+            this.size = size;
+        }
+
+        @Override
+        public LeafFacetCounter leaf(LeafReaderContext context) throws IOException {
+            SortedDocValues values = DocValues.getSorted(context.reader(), field);
+            int[] ordCounts = new int[values.getValueCount()];
+            return new LeafFacetCounter() {
+                @Override
+                public void collect(int doc) throws IOException {
+                    if (values.advanceExact(doc)) {
+                        ordCounts[values.ordValue()]++;
+                    }
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    for (int ord = 0; ord < ordCounts.length; ord++) {
+                        if (ordCounts[ord] > 0) {
+                            counts.merge(values.lookupOrd(ord).utf8ToString(), (long) ordCounts[ord], Long::sum);
+                        }
+                    }
+                }
+            };
+        }
+
+        @Override
+        public List<SearchResult.FacetBucket> buckets() {
+            return topBuckets(counts, size);
+        }
+    }
+
+    /**
+     * 数值词项统计
+     */
+    private static final class NumericTermsCounter implements FacetCounter {
+        private final String field;
+        private final int size;
+        private final LongFunction<String> formatter;
+        private final Map<Long, Long> counts = new HashMap<>();
+
+        NumericTermsCounter(String field, int size, LongFunction<String> formatter) {
+            this.field = field;
+            this.size = size;
+            this.formatter = formatter;
+        }
+
+        @Override
+        public LeafFacetCounter leaf(LeafReaderContext context) throws IOException {
+            NumericDocValues values = DocValues.getNumeric(context.reader(), field);
+            return new LeafFacetCounter() {
+                @Override
+                public void collect(int doc) throws IOException {
+                    if (values.advanceExact(doc)) {
+                        counts.merge(values.longValue(), 1L, Long::sum);
+                    }
+                }
+
+                @Override
+                public void finish() {
+                    // 直接累加到全局计数
+                }
+            };
+        }
+
+        @Override
+        public List<SearchResult.FacetBucket> buckets() {
+            Map<String, Long> formatted = new HashMap<>();
+            counts.forEach((value, count) -> formatted.put(formatter.apply(value), count));
+            return topBuckets(formatted, size);
+        }
+    }
+
+    /**
+     * 数值直方图：按区间起点分组，结果按区间升序排列，只返回非空区间
+     */
+    private static final class HistogramCounter implements FacetCounter {
+        private final String field;
+        private final long interval;
+        private final TreeMap<Long, Long> counts = new TreeMap<>();
+
+        HistogramCounter(String field, long interval) {
+            this.field = field;
+            this.interval = interval;
+        }
+
+        @Override
+        public LeafFacetCounter leaf(LeafReaderContext context) throws IOException {
+            NumericDocValues values = DocValues.getNumeric(context.reader(), field);
+            return new LeafFacetCounter() {
+                @Override
+                public void collect(int doc) throws IOException {
+                    if (values.advanceExact(doc)) {
+                        long bucket = Math.floorDiv(values.longValue(), interval) * interval;
+                        counts.merge(bucket, 1L, Long::sum);
+                    }
+                }
+
+                @Override
+                public void finish() {
+                    // 直接累加到全局计数
+                }
+            };
+        }
+
+        @Override
+        public List<SearchResult.FacetBucket> buckets() {
+            List<SearchResult.FacetBucket> buckets = new ArrayList<>(counts.size());
+            counts.forEach((bucket, count) -> buckets.add(new SearchResult.FacetBucket(String.valueOf(bucket), count)));
+            return buckets;
+        }
+    }
+}
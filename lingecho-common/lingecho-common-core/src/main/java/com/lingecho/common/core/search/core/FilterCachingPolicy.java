@@ -0,0 +1,105 @@
+package com.lingecho.common.core.search.core;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 过滤条件缓存策略
+ * Lucene默认策略从不缓存TermQuery，而元数据过滤（如用户ID、知识库ID）几乎每次搜索都会重复出现；
+ * 只作用于元数据字段的过滤子句在最近的使用记录中出现足够多次后缓存为段级位集，其余查询沿用默认策略
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+final class FilterCachingPolicy implements QueryCachingPolicy {
+
+    // 记录最近使用的过滤子句数量
+    private static final int HISTORY_SIZE = 256;
+
+    private final QueryCachingPolicy delegate = new UsageTrackingQueryCachingPolicy();
+
+    // 判断字段是否为元数据字段
+    private final Predicate<String> metadataField;
+
+    // 缓存前的最少使用次数
+    private final int minFrequency;
+
+    // 最近使用的过滤子句哈希值（环形缓冲区）及其出现次数
+    private final int[] history = new int[HISTORY_SIZE];
+    private final Map<Integer, Integer> frequencies = new HashMap<>();
+    private int position;
+    private int size;
+
+    /**
+     * 创建过滤条件缓存策略
+     *
+     * @param metadataField 判断字段是否为元数据字段
+     * @param minFrequency 缓存前的最少使用次数
+     */
+    FilterCachingPolicy(Predicate<String> metadataField, int minFrequency) {
+        this.metadataField = metadataField;
+        this.minFrequency = Math.max(1, minFrequency);
+    }
+
+    @Override
+    public void onUse(Query query) {
+        delegate.onUse(query);
+        if (isMetadataFilter(query)) {
+            record(query.hashCode());
+        }
+    }
+
+    @Override
+    public boolean shouldCache(Query query) throws java.io.IOException {
+        if (isMetadataFilter(query)) {
+            return frequency(query.hashCode()) >= minFrequency;
+        }
+        return delegate.shouldCache(query);
+    }
+
+    /**
+     * 判断查询是否只作用于元数据字段
+     */
+    private boolean isMetadataFilter(Query query) {
+        Set<String> fields = new HashSet<>();
+        query.visit(new QueryVisitor() {
+            @Override
+            public boolean acceptField(String field) {
+                fields.add(field);
+                return false;
+            }
+
+            @Override
+            public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+                // 排除子句的字段同样需要检查
+                return this;
+            }
+        });
+        return !fields.isEmpty() && fields.stream().allMatch(metadataField);
+    }
+
+    private synchronized void record(int hash) {
+        if (size == HISTORY_SIZE) {
+            int evicted = history[position];
+            frequencies.computeIfPresent(evicted, (key, count) -> count > 1 ? count - 1 : null);
+        } else {
+            size++;
+        }
+        history[position] = hash;
+        position = (position + 1) % HISTORY_SIZE;
+        frequencies.merge(hash, 1, Integer::sum);
+    }
+
+    private synchronized int frequency(int hash) {
+        return frequencies.getOrDefault(hash, 0);
+    }
+}
@@ -0,0 +1,159 @@
+package com.lingecho.common.core.search.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 热门查询统计
+ * 记录查询文本的执行次数，用于在新段对搜索可见前预热；列表保存在索引目录中，重启后继续使用。
+ * 跟踪的查询数超过上限时淘汰次数最少的一半；重启加载时次数减半，旧的热门查询逐渐让位于新的。
+ * 文件每行为"次数\t查询"。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+final class HotQueries {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotQueries.class);
+
+    /**
+     * 热门查询文件名，位于索引目录下
+     */
+    static final String FILE_NAME = "hot-queries.txt";
+
+    // 跟踪的查询数为预热数的倍数，留出新查询成为热门的余地
+    private static final int TRACKED_PER_WARMUP_QUERY = 16;
+    // 过长的查询通常是一次性的，不记录
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private final Path file;
+    private final int maxTracked;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    /**
+     * @param file 保存列表的文件
+     * @param warmupQueryCount 预热的查询数
+     */
+    HotQueries(Path file, int warmupQueryCount) {
+        this.file = file;
+        this.maxTracked = Math.max(1, warmupQueryCount) * TRACKED_PER_WARMUP_QUERY;
+    }
+
+    /**
+     * 记录一次查询
+     *
+     * @param query 查询文本
+     */
+    void record(String query) {
+        if (query == null) {
+            return;
+        }
+        String text = query.trim();
+        if (text.isEmpty() || text.length() > MAX_QUERY_LENGTH) {
+            return;
+        }
+        counts.computeIfAbsent(text, k -> new LongAdder()).increment();
+        if (counts.size() > maxTracked && pruning.compareAndSet(false, true)) {
+            try {
+                prune();
+            } finally {
+                pruning.set(false);
+            }
+        }
+    }
+
+    /**
+     * 获取执行次数最多的查询
+     *
+     * @param limit 最多返回的数量
+     * @return 按次数从多到少排列的查询
+     */
+    List<String> top(int limit) {
+        // 先取快照再排序，排序过程中计数变化会破坏比较器的一致性
+        return counts.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 加载上次保存的列表，次数减半
+     */
+    void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                try {
+                    long count = Long.parseLong(line.substring(0, tab)) / 2;
+                    String query = line.substring(tab + 1);
+                    if (count > 0 && !query.isBlank()) {
+                        counts.computeIfAbsent(query, k -> new LongAdder()).add(count);
+                    }
+                } catch (NumberFormatException e) {
+                    // 跳过损坏的行
+                }
+            }
+            logger.info("Loaded {} hot queries from {}", counts.size(), file);
+        } catch (IOException e) {
+            logger.warn("Failed to load hot queries from {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 保存列表，先写临时文件再替换，写到一半崩溃不会损坏原文件
+     */
+    void save() {
+        if (counts.isEmpty()) {
+            return;
+        }
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (String query : top(maxTracked)) {
+                    LongAdder count = counts.get(query);
+                    if (count == null || query.indexOf('\n') >= 0 || query.indexOf('\r') >= 0) {
+                        continue;
+                    }
+                    writer.write(count.sum() + "\t" + query);
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save hot queries to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void prune() {
+        List<String> keep = top(maxTracked / 2);
+        counts.keySet().retainAll(new HashSet<>(keep));
+    }
+}
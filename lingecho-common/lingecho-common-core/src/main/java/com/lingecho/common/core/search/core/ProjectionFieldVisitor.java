@@ -0,0 +1,97 @@
+package com.lingecho.common.core.search.core;
+
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.FieldInfo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * 字段选择的存储字段访问器
+ * 只解码请求需要的存储字段，并可将大文本字段截断为摘要，避免为每个命中复制完整内容
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+final class ProjectionFieldVisitor extends DocumentStoredFieldVisitor {
+
+    // 需要加载的字段，为null时加载全部字段
+    private final Set<String> fields;
+
+    // 需要截断为摘要的字段
+    private final String snippetField;
+
+    // 摘要最大字符数，小于等于0表示不截断
+    private final int snippetSize;
+
+    // 读取的存储字段字节数
+    private long bytesRead;
+
+    /**
+     * 创建访问器
+     *
+     * @param fields 需要加载的字段，为null时加载全部字段
+     * @param snippetField 需要截断为摘要的字段
+     * @param snippetSize 摘要最大字符数，小于等于0表示不截断
+     */
+    ProjectionFieldVisitor(Set<String> fields, String snippetField, int snippetSize) {
+        this.fields = fields;
+        this.snippetField = snippetField;
+        this.snippetSize = snippetSize;
+    }
+
+    @Override
+    public Status needsField(FieldInfo fieldInfo) {
+        return fields == null || fields.contains(fieldInfo.name) ? Status.YES : Status.NO;
+    }
+
+    @Override
+    public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
+        bytesRead += value.length;
+        // 字节数不超过摘要长度时字符数必然也不超过，直接走默认逻辑
+        if (snippetSize <= 0 || !fieldInfo.name.equals(snippetField) || value.length <= snippetSize) {
+            super.stringField(fieldInfo, value);
+            return;
+        }
+        getDocument().add(new StoredField(fieldInfo.name, decodePrefix(value, snippetSize)));
+    }
+
+    @Override
+    public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
+        bytesRead += value.length;
+        super.binaryField(fieldInfo, value);
+    }
+
+    /**
+     * 读取的存储字段字节数（字符串和二进制字段的原始字节，数值字段不计）
+     *
+     * @return 字节数
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * 只解码UTF-8字节的前缀部分
+     *
+     * @param value UTF-8字节
+     * @param maxChars 最大字符数
+     * @return 截断后的字符串
+     */
+    private static String decodePrefix(byte[] value, int maxChars) {
+        // 单个UTF-16字符最多对应3个UTF-8字节
+        int length = (int) Math.min(value.length, (long) maxChars * 3);
+        // 回退到字符边界，避免截断多字节字符
+        while (length < value.length && length > 0 && (value[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        String text = new String(value, 0, length, StandardCharsets.UTF_8);
+        if (text.length() <= maxChars) {
+            return text;
+        }
+        int end = Character.isHighSurrogate(text.charAt(maxChars - 1)) ? maxChars - 1 : maxChars;
+        return text.substring(0, end);
+    }
+}
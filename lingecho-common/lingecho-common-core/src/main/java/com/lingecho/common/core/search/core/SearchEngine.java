@@ -1,39 +1,59 @@
 package com.lingecho.common.core.search.core;
 
 import com.lingecho.common.core.search.analyzer.ChineseAnalyzer;
+import com.lingecho.common.core.search.analyzer.ChineseDictionary;
+import com.lingecho.common.core.search.analyzer.EdgeNGramAnalyzerWrapper;
+import com.lingecho.common.core.search.analyzer.NGramAnalyzer;
+import com.lingecho.common.core.search.config.MetadataType;
 import com.lingecho.common.core.search.config.SearchConfig;
 import com.lingecho.common.core.search.config.StorageType;
 import com.lingecho.common.core.search.model.*;
 import com.lingecho.common.core.search.model.Document;
+import com.lingecho.common.core.search.vector.VectorSimilarity;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
-import org.apache.lucene.search.highlight.Highlighter;
-import org.apache.lucene.search.highlight.QueryScorer;
-import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
-import org.apache.lucene.search.highlight.SimpleSpanFragmenter;
 import org.apache.lucene.search.suggest.InputIterator;
 import org.apache.lucene.search.suggest.Lookup;
 import org.apache.lucene.search.suggest.analyzing.AnalyzingInfixSuggester;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.search.uhighlight.WholeBreakIterator;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wltea.analyzer.lucene.IKAnalyzer;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.BreakIterator;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
 
 /**
  * 搜索引擎核心实现类
@@ -55,23 +75,107 @@ public class SearchEngine implements AutoCloseable {
     private static final String FIELD_TITLE = "title";
     private static final String FIELD_CONTENT = "content";
     private static final String FIELD_TIMESTAMP = "timestamp";
+    // 标题的边缘N元组字段，用于前缀匹配
+    private static final String FIELD_TITLE_PREFIX = "title_prefix";
+    // 元数据N元组子字段前缀，用于子串检索
+    private static final String NGRAM_FIELD_PREFIX = "ngram_";
+    // 文档向量，存为二进制doc values，加载存储字段时不会读取
+    private static final String FIELD_VECTOR = "_vector";
+
+    // 标题/内容字段在倒排中记录偏移量，高亮时直接读取postings，无需重新分析原文
+    private static final FieldType TEXT_WITH_OFFSETS = new FieldType(TextField.TYPE_STORED);
+    static {
+        TEXT_WITH_OFFSETS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TEXT_WITH_OFFSETS.freeze();
+    }
+
+    // 标题前缀字段和元数据N元组字段只需要文档号，不记录词频、位置和归一化因子
+    private static final FieldType GRAM_TYPE = new FieldType();
+    static {
+        GRAM_TYPE.setTokenized(true);
+        GRAM_TYPE.setIndexOptions(IndexOptions.DOCS);
+        GRAM_TYPE.setOmitNorms(true);
+        GRAM_TYPE.freeze();
+    }
+
+    // 标题前缀匹配的权重
+    private static final float TITLE_PREFIX_BOOST = 1.5f;
+
+    // 内置字段，其余返回字段视为元数据
+    private static final Set<String> CORE_FIELDS = Set.of(FIELD_ID, FIELD_TYPE, FIELD_TITLE, FIELD_CONTENT, FIELD_TIMESTAMP);
+
+    // 带有SortedDocValues的短字段，只请求这些字段时无需读取存储字段
+    private static final Set<String> DOC_VALUES_FIELDS = Set.of(FIELD_ID, FIELD_TYPE, FIELD_TITLE);
+
+    // 索引排序：段内文档按时间戳从新到旧排列，"最新优先"的查询收集到足够结果后即可提前结束
+    private static final Sort TIMESTAMP_INDEX_SORT = new Sort(new SortField(FIELD_TIMESTAMP, SortField.Type.LONG, true));
+
+    // 高亮时单个字段最多分析的字符数（与旧版Highlighter默认值保持一致）
+    private static final int HIGHLIGHT_MAX_LENGTH = 50 * 1024;
+
+    // 命中词在高亮片段中的位置，0.5表示居中，前后都保留上下文
+    private static final float HIGHLIGHT_FRAGMENT_ALIGNMENT = 0.5f;
+
+    // 过滤条件缓存：缓存的段至少占索引文档数的比例，以及缓存代价超过查询代价多少倍时跳过（与Lucene默认一致）
+    private static final float FILTER_CACHE_MIN_SEGMENT_RATIO = 0.03f;
+    private static final float FILTER_CACHE_SKIP_FACTOR = 10f;
+
+    // 带过滤条件的向量检索：候选被过滤得不够时候选数的放大倍数和最多重试次数，仍不够时在过滤结果上精确计算
+    private static final int FILTERED_VECTOR_GROWTH = 4;
+    private static final int FILTERED_VECTOR_RETRIES = 3;
 
     private final SearchConfig config;
     private Directory directory;
+    // 索引分析器（含标题前缀字段的边缘N元组）
     private Analyzer analyzer;
+    // 查询分析器
+    private Analyzer searchAnalyzer;
+    private ChineseDictionary chineseDictionary;
     private IndexWriter indexWriter;
-    private IndexReader indexReader;
-    private IndexSearcher indexSearcher;
+    // 请求开始时acquire搜索器、结束时release；刷新后旧读取器在最后一个使用它的请求释放后才关闭。索引尚不存在时为null
+    private volatile SearcherManager searcherManager;
+    private final Object searcherManagerLock = new Object();
+    // 新读取器在对搜索可见之前预热，搜索器共用过滤条件缓存
+    private final SearcherFactory searcherFactory = new SearcherFactory() {
+        @Override
+        public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+            warmReader(reader);
+            return createIndexSearcher(reader);
+        }
+    };
+    // 过滤条件缓存（段级位集），在搜索器重新打开时共享，未变化的段继续命中
+    private LRUQueryCache filterCache;
+    private QueryCachingPolicy filterCachingPolicy;
+    private VectorIndex vectorIndex;
+    // 自己创建的提交线程，使用配置中的共享线程池时为null
     private ScheduledExecutorService commitExecutor;
+    private ScheduledFuture<?> commitTask;
+    // 定时提交任务执行期间持有，关闭时等待正在执行的一次结束
+    private final Object commitTaskLock = new Object();
+    // 事务日志，未启用时为null
+    private Translog translog;
+    private volatile long lastFlushTime;
+    // 最早一次尚未对搜索可见的写入时间，0表示没有
+    private volatile long pendingRefreshSince;
+    private final Object commitLock = new Object();
+    // 写入与日志追加的顺序锁：单主键操作持读锁并按主键分段加锁，影响多个主键的删除持写锁
+    private final ReentrantReadWriteLock writeOrderLock = new ReentrantReadWriteLock();
+    private final Object[] uidLocks = createUidLocks(64);
     private AnalyzingInfixSuggester suggester;
+    // 热门查询统计，未启用预热时为null
+    private HotQueries hotQueries;
+    private volatile long lastHotQuerySave;
+    // 已预热的段（按段的核心缓存键），仅删除变化的段和合并时已预热的段不再重复预热
+    private final Set<Object> warmedSegments = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    // 正在执行的搜索，相同请求在同一读取器上只执行一次
+    private final Map<InFlightKey, CompletableFuture<SearchResult>> inFlightSearches = new ConcurrentHashMap<>();
+    private final LongAdder coalescedSearches = new LongAdder();
     
     // 性能优化：智能缓存系统
     private final Map<String, Query> queryCache = new ConcurrentHashMap<>();
     private final Map<String, List<String>> suggestionCache = new ConcurrentHashMap<>();
     private final Map<String, Long> queryTimestamps = new ConcurrentHashMap<>(); // 缓存时间戳
     private final Map<String, Integer> queryHitCounts = new ConcurrentHashMap<>(); // 查询命中次数
-    private QueryParser titleParser;
-    private QueryParser contentParser;
     
     // 性能优化：缓存配置
     private static final int MAX_QUERY_CACHE_SIZE = 2000;
@@ -79,6 +183,11 @@ public class SearchEngine implements AutoCloseable {
     private static final long CACHE_TTL_MS = 300000; // 5分钟缓存过期时间
     private static final int MIN_HIT_COUNT_FOR_CACHE = 2; // 最少命中次数才缓存
 
+    // 预热查询每次收集的命中数，只为加载倒排表，不需要完整结果
+    private static final int WARMUP_HITS = 10;
+    // 热门查询列表的保存间隔
+    private static final long HOT_QUERY_SAVE_INTERVAL_MS = 60000;
+
     /**
      * 创建搜索引擎
      *
@@ -100,13 +209,17 @@ public class SearchEngine implements AutoCloseable {
                 Files.createDirectories(indexPath);
             }
 
-            // 初始化Lucene组件
-            if(config.getStorageType() == StorageType.JDBC){
-                directory = DirectoryProvider.createIndexDirectory(config);
-            } else {
-                directory = FSDirectory.open(indexPath);
+            // 初始化Lucene组件，按存储类型创建目录
+            directory = DirectoryProvider.createIndexDirectory(config);
+            createAnalyzers();
+            createFilterCache();
+            if (config.getWarmupQueryCount() > 0) {
+                hotQueries = new HotQueries(indexPath.resolve(HotQueries.FILE_NAME), config.getWarmupQueryCount());
+                hotQueries.load();
+                lastHotQuerySave = System.currentTimeMillis();
             }
-            analyzer = createAnalyzer();
+            vectorIndex = new VectorIndex(config.getVectorSimilarity(), config.getVectorDimension(),
+                    config.getHnswMaxConnections(), config.getHnswBeamWidth());
 
             // 创建索引写入器，添加索引损坏检测和修复
             IndexWriterConfig writerConfig = new IndexWriterConfig(analyzer);
@@ -137,10 +250,18 @@ public class SearchEngine implements AutoCloseable {
             }
             
             // 性能优化：设置合并策略和缓冲区大小
-            writerConfig.setRAMBufferSizeMB(512); // 增加RAM缓冲区到512MB
+            writerConfig.setRAMBufferSizeMB(config.getRamBufferSizeMB()); // 多个分片时按分片数缩小
             writerConfig.setMaxBufferedDocs(20000); // 增加缓冲文档数
             writerConfig.setUseCompoundFile(false); // 不使用复合文件，提高写入速度
             writerConfig.setMergePolicy(new TieredMergePolicy()); // 使用分层合并策略
+            Sort indexSort = resolveIndexSort(writerConfig.getOpenMode());
+            if (indexSort != null) {
+                writerConfig.setIndexSort(indexSort);
+            }
+            if (hotQueries != null) {
+                // 近实时读取器下合并后的段在替换旧段前预热
+                writerConfig.setMergedSegmentWarmer(this::warmSegment);
+            }
             
             try {
                 indexWriter = new IndexWriter(directory, writerConfig);
@@ -153,23 +274,18 @@ public class SearchEngine implements AutoCloseable {
                 logger.info("IndexWriter created successfully after clearing corrupted index");
             }
 
-            // 预创建查询解析器，避免重复创建
-            titleParser = new QueryParser(FIELD_TITLE, analyzer);
-            contentParser = new QueryParser(FIELD_CONTENT, analyzer);
+            if (config.isTranslogEnabled()) {
+                if (config.getStorageType() == StorageType.JDBC) {
+                    logger.warn("Translog is not supported with JDBC storage, disabled");
+                } else {
+                    openTranslog(indexPath);
+                }
+            }
 
             // 初始化搜索建议器
             if (config.isSuggestEnabled()) {
                 try {
-                    Path suggestPath = indexPath.resolve("suggest");
-                    if (!Files.exists(suggestPath)) {
-                        Files.createDirectories(suggestPath);
-                    }
-                    Directory suggestDir;
-                    if(config.getStorageType() == StorageType.JDBC){
-                        suggestDir = DirectoryProvider.createSuggestDirectory(config);
-                    } else {
-                        suggestDir = FSDirectory.open(suggestPath);
-                    }
+                    Directory suggestDir = DirectoryProvider.createSuggestDirectory(config);
                     suggester = new AnalyzingInfixSuggester(suggestDir, analyzer);
                     
                     // 重要：构建建议器（使用空的迭代器初始化）
@@ -231,9 +347,10 @@ public class SearchEngine implements AutoCloseable {
 
             // 初始化搜索器
             refreshSearcher();
+            loadVectorIndex();
 
             // 启动自动提交任务
-            if (config.isAutoCommit()) {
+            if (config.isAutoCommit() || translog != null) {
                 startAutoCommit();
             }
 
@@ -245,77 +362,467 @@ public class SearchEngine implements AutoCloseable {
         }
     }
 
+    /**
+     * 创建索引分析器和查询分析器
+     * 按字段配置分析器，标题前缀字段在索引时追加边缘N元组，查询时只按标题的方式切分；
+     * 支持子串检索的元数据字段的N元组子字段只在索引时切分，查询直接构造词项
+     */
+    private void createAnalyzers() {
+        Analyzer defaultAnalyzer = createAnalyzer(config.getAnalyzerType());
+
+        Map<String, Analyzer> fieldAnalyzers = new HashMap<>();
+        config.getFieldAnalyzerTypes().forEach((field, type) -> fieldAnalyzers.put(field, createAnalyzer(type)));
+
+        Analyzer titleAnalyzer = fieldAnalyzers.getOrDefault(FIELD_TITLE, defaultAnalyzer);
+        Map<String, Analyzer> indexFieldAnalyzers = new HashMap<>(fieldAnalyzers);
+        indexFieldAnalyzers.put(FIELD_TITLE_PREFIX, new EdgeNGramAnalyzerWrapper(titleAnalyzer,
+                config.getEdgeNGramMinSize(), config.getEdgeNGramMaxSize()));
+        if (!config.getSubstringSearchFields().isEmpty()) {
+            Analyzer ngramAnalyzer = new NGramAnalyzer(config.getSubstringNGramSize());
+            for (String field : config.getSubstringSearchFields()) {
+                indexFieldAnalyzers.put(NGRAM_FIELD_PREFIX + field, ngramAnalyzer);
+            }
+        }
+        Map<String, Analyzer> searchFieldAnalyzers = new HashMap<>(fieldAnalyzers);
+        searchFieldAnalyzers.put(FIELD_TITLE_PREFIX, titleAnalyzer);
+
+        analyzer = new PerFieldAnalyzerWrapper(defaultAnalyzer, indexFieldAnalyzers);
+        searchAnalyzer = new PerFieldAnalyzerWrapper(defaultAnalyzer, searchFieldAnalyzers);
+    }
+
     /**
      * 创建分析器
      *
+     * @param analyzerType 分析器类型
      * @return 分析器实例
      */
-    private Analyzer createAnalyzer() {
-        return switch (config.getAnalyzerType().toLowerCase()) {
-            case "chinese" -> new ChineseAnalyzer();
+    private Analyzer createAnalyzer(String analyzerType) {
+        return switch (analyzerType.toLowerCase()) {
+            case "chinese" -> createChineseAnalyzer();
             case "ik" -> new IKAnalyzer();
             default -> new StandardAnalyzer();
         };
     }
 
     /**
-     * 刷新搜索器
+     * 创建中文分析器，配置了用户词典时启用热加载
+     *
+     * @return 中文分析器
      */
-    private void refreshSearcher() throws IOException {
-        if (indexReader != null) {
-            indexReader.close();
+    private Analyzer createChineseAnalyzer() {
+        String userDictionaryPath = config.getUserDictionaryPath();
+        if (userDictionaryPath == null || userDictionaryPath.isBlank()) {
+            return new ChineseAnalyzer();
+        }
+        // 多个字段使用中文分析器时共享同一词典
+        if (chineseDictionary == null) {
+            chineseDictionary = new ChineseDictionary(Paths.get(userDictionaryPath));
+            chineseDictionary.startAutoReload(config.getDictionaryReloadInterval());
         }
+        return new ChineseAnalyzer(chineseDictionary);
+    }
 
-        // 检查索引是否为空，添加重试机制和更好的错误处理
+    /**
+     * 确定索引排序
+     * 已有索引的段必须按同样的方式排序，否则IndexWriter无法打开，此时保持不排序直到索引重建
+     *
+     * @param openMode 索引打开模式
+     * @return 索引排序，不启用时返回null
+     */
+    private Sort resolveIndexSort(IndexWriterConfig.OpenMode openMode) {
+        if (!config.isIndexSortByTimestamp()) {
+            return null;
+        }
+        if (openMode == IndexWriterConfig.OpenMode.CREATE) {
+            return TIMESTAMP_INDEX_SORT;
+        }
         try {
-            if (DirectoryReader.indexExists(directory)) {
-                indexReader = DirectoryReader.open(directory);
-                indexSearcher = new IndexSearcher(indexReader);
-            } else {
-                // 索引为空，创建一个空的搜索器
-                indexReader = null;
-                indexSearcher = null;
-                logger.debug("Index is empty, searcher not initialized");
+            for (SegmentCommitInfo info : SegmentInfos.readLatestCommit(directory)) {
+                if (!TIMESTAMP_INDEX_SORT.equals(info.info.getIndexSort())) {
+                    logger.warn("Existing index is not sorted by timestamp, index sort disabled until the index is rebuilt");
+                    return null;
+                }
             }
         } catch (IOException e) {
-            logger.warn("Failed to check index existence, retrying once: {}", e.getMessage());
-            
-            // 重试一次
+            logger.warn("Failed to read segment infos, index sort disabled: {}", e.getMessage());
+            return null;
+        }
+        return TIMESTAMP_INDEX_SORT;
+    }
+
+    /**
+     * 创建过滤条件缓存，配置了共享缓存时直接使用
+     * FILTER子句按段缓存为位集，段合并或删除后对应的缓存随段一起失效
+     */
+    private void createFilterCache() {
+        if (!config.isFilterCacheEnabled()) {
+            return;
+        }
+        filterCache = config.getSharedFilterCache() != null ? config.getSharedFilterCache()
+                : newFilterCache(config.getFilterCacheMaxQueries(), config.getFilterCacheMaxMemoryMB(),
+                        config.getFilterCacheMinSegmentDocs());
+        filterCachingPolicy = new FilterCachingPolicy(
+                field -> field.startsWith("meta_") || field.startsWith(NGRAM_FIELD_PREFIX),
+                config.getFilterCacheMinFrequency());
+    }
+
+    /**
+     * 创建过滤条件缓存
+     * Lucene默认只缓存不少于10000个文档且占索引3%以上的段，最小段文档数可配置，小索引也能命中缓存
+     *
+     * @param maxQueries 最多缓存的查询数
+     * @param maxMemoryMB 最大内存（MB）
+     * @param minSegmentDocs 缓存的段至少包含的文档数
+     * @return 过滤条件缓存
+     */
+    public static LRUQueryCache newFilterCache(int maxQueries, int maxMemoryMB, int minSegmentDocs) {
+        return new LRUQueryCache(maxQueries, maxMemoryMB * 1024L * 1024L, context -> {
+            int maxDoc = context.reader().maxDoc();
+            int totalDocs = ReaderUtil.getTopLevelContext(context).reader().maxDoc();
+            return maxDoc >= minSegmentDocs && maxDoc >= totalDocs * FILTER_CACHE_MIN_SEGMENT_RATIO;
+        }, FILTER_CACHE_SKIP_FACTOR);
+    }
+
+    /**
+     * 创建搜索器，所有搜索器共用同一个过滤条件缓存
+     *
+     * @param reader 索引读取器
+     * @return 搜索器
+     */
+    private IndexSearcher createIndexSearcher(IndexReader reader) {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(filterCache);
+        if (filterCachingPolicy != null) {
+            searcher.setQueryCachingPolicy(filterCachingPolicy);
+        }
+        return searcher;
+    }
+
+    /**
+     * 刷新搜索器
+     * 增量打开：未变化的段复用原有的段读取器，段级过滤缓存继续有效
+     */
+    private void refreshSearcher() throws IOException {
+        pendingRefreshSince = 0;
+        SearcherManager manager = searcherManager;
+        if (manager != null) {
+            manager.maybeRefreshBlocking();
+            return;
+        }
+
+        synchronized (searcherManagerLock) {
+            if (searcherManager != null) {
+                searcherManager.maybeRefreshBlocking();
+                return;
+            }
+            if (translog != null) {
+                // 启用事务日志时写入不一定已提交，使用近实时读取器
+                searcherManager = new SearcherManager(indexWriter, searcherFactory);
+                return;
+            }
+
+            // 检查索引是否为空，添加重试机制和更好的错误处理
             try {
-                Thread.sleep(1000); // 等待1秒
-                if (DirectoryReader.indexExists(directory)) {
-                    indexReader = DirectoryReader.open(directory);
-                    indexSearcher = new IndexSearcher(indexReader);
-                } else {
-                    indexReader = null;
-                    indexSearcher = null;
-                    logger.debug("Index is empty after retry, searcher not initialized");
+                openSearcherManagerIfIndexExists();
+            } catch (IOException e) {
+                logger.warn("Failed to check index existence, retrying once: {}", e.getMessage());
+
+                // 重试一次
+                try {
+                    Thread.sleep(1000); // 等待1秒
+                    openSearcherManagerIfIndexExists();
+                } catch (Exception retryEx) {
+                    logger.error("Failed to initialize searcher after retry", retryEx);
                 }
-            } catch (Exception retryEx) {
-                logger.error("Failed to initialize searcher after retry", retryEx);
-                // 如果重试失败，设置默认值
-                indexReader = null;
-                indexSearcher = null;
             }
         }
     }
 
+    private void openSearcherManagerIfIndexExists() throws IOException {
+        if (DirectoryReader.indexExists(directory)) {
+            searcherManager = new SearcherManager(directory, searcherFactory);
+        } else {
+            // 索引为空，暂不创建搜索器
+            logger.debug("Index is empty, searcher not initialized");
+        }
+    }
+
+    /**
+     * 获取当前搜索器，用完后必须调用releaseSearcher
+     *
+     * @return 搜索器，索引为空时返回null
+     * @throws IOException 读取异常
+     */
+    private IndexSearcher acquireSearcher() throws IOException {
+        SearcherManager manager = searcherManager;
+        return manager == null ? null : manager.acquire();
+    }
+
+    /**
+     * 释放acquireSearcher获取的搜索器
+     *
+     * @param searcher 搜索器，可以为null
+     * @throws IOException 关闭读取器异常
+     */
+    private void releaseSearcher(IndexSearcher searcher) throws IOException {
+        if (searcher != null) {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 预热读取器中尚未预热过的段，在读取器对搜索可见之前调用
+     *
+     * @param reader 新打开的读取器
+     */
+    private void warmReader(IndexReader reader) {
+        if (hotQueries == null) {
+            return;
+        }
+        for (LeafReaderContext leaf : reader.leaves()) {
+            warmSegment(leaf.reader());
+        }
+    }
+
+    /**
+     * 在单个段上执行热门查询，加载倒排表、词典和段文件页，同时填充过滤条件缓存
+     *
+     * @param segment 段读取器
+     */
+    private void warmSegment(LeafReader segment) {
+        List<String> queries = hotQueries.top(config.getWarmupQueryCount());
+        if (queries.isEmpty()) {
+            // 还没有热门查询时不记为已预热，之后的刷新仍会预热这个段
+            return;
+        }
+        IndexReader.CacheHelper cacheHelper = segment.getCoreCacheHelper();
+        if (cacheHelper != null && !warmedSegments.add(cacheHelper.getKey())) {
+            return;
+        }
+        long start = System.nanoTime();
+        IndexSearcher searcher = createIndexSearcher(segment);
+        for (String query : queries) {
+            try {
+                searcher.search(parseQuery(new SearchRequest(query)), WARMUP_HITS);
+            } catch (Exception e) {
+                logger.debug("Failed to warm segment with query: {}", query, e);
+            }
+        }
+        logger.debug("Warmed segment of {} docs with {} queries in {}ms", segment.maxDoc(), queries.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 解析查询，优先使用查询缓存，解析结果按缓存策略放入缓存
+     */
+    private Query parseQuery(SearchRequest request) throws IOException {
+        String cacheKey = generateCacheKey(request);
+        Query query = getCachedQuery(cacheKey);
+        if (query == null) {
+            query = createQuery(request);
+            updateQueryCache(cacheKey, query, request);
+        }
+        return query;
+    }
+
     /**
-     * 启动自动提交任务
+     * 到达保存间隔时保存热门查询列表
+     */
+    private void saveHotQueriesIfDue() {
+        if (hotQueries != null && System.currentTimeMillis() - lastHotQuerySave >= HOT_QUERY_SAVE_INTERVAL_MS) {
+            lastHotQuerySave = System.currentTimeMillis();
+            hotQueries.save();
+        }
+    }
+
+    /**
+     * 启动自动提交任务，配置了共享线程池时在其中执行
+     * 启用事务日志时按commitInterval刷新搜索器，Lucene提交只在达到translogFlushInterval或日志大小阈值时进行
      */
     private void startAutoCommit() {
-        commitExecutor = Executors.newSingleThreadScheduledExecutor();
-        commitExecutor.scheduleAtFixedRate(() -> {
+        ScheduledExecutorService scheduler = config.getCommitScheduler();
+        if (scheduler == null) {
+            commitExecutor = Executors.newSingleThreadScheduledExecutor();
+            scheduler = commitExecutor;
+        }
+        commitTask = scheduler.scheduleAtFixedRate(() -> {
+            synchronized (commitTaskLock) {
+                autoCommit();
+            }
+        }, config.getCommitInterval(), config.getCommitInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    private void autoCommit() {
+        ScheduledFuture<?> task = commitTask;
+        try {
+            if (indexWriter == null || task == null || task.isCancelled()) {
+                return;
+            }
+            saveHotQueriesIfDue();
+            if (translog == null) {
+                indexWriter.commit();
+                refreshSearcher();
+                logger.debug("Auto commit completed");
+                return;
+            }
+            if (isTranslogFlushDue()) {
+                commitIndex();
+                logger.debug("Translog flush completed, generation={}", translog.getGeneration());
+            }
+            if (config.isAutoCommit()) {
+                refreshSearcher();
+            }
+        } catch (IOException e) {
+            logger.error("Auto commit failed", e);
+        }
+    }
+
+    /**
+     * 打开事务日志，重放最后一次提交之后的写入并立即提交
+     *
+     * @param indexPath 索引目录
+     * @throws IOException 读写异常
+     */
+    private void openTranslog(Path indexPath) throws IOException {
+        long committedGeneration = 0;
+        if (DirectoryReader.indexExists(directory)) {
             try {
-                if (indexWriter != null) {
-                    indexWriter.commit();
-                    refreshSearcher();
-                    logger.debug("Auto commit completed");
+                String value = SegmentInfos.readLatestCommit(directory).getUserData().get(Translog.COMMIT_GENERATION_KEY);
+                if (value != null) {
+                    committedGeneration = Long.parseLong(value);
                 }
-            } catch (IOException e) {
-                logger.error("Auto commit failed", e);
+            } catch (IOException | NumberFormatException e) {
+                logger.warn("Failed to read translog generation from last commit, replaying all translog files: {}", e.getMessage());
             }
-        }, config.getCommitInterval(), config.getCommitInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        int[] replayed = new int[1];
+        translog = Translog.open(indexPath.resolve("translog"), committedGeneration, operation -> {
+            replay(operation);
+            replayed[0]++;
+        });
+        if (replayed[0] > 0) {
+            commitIndex();
+            logger.info("Replayed {} translog operations", replayed[0]);
+        }
+        lastFlushTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 将事务日志中的操作重新应用到索引（不再记录日志）
+     */
+    private void replay(Translog.Operation operation) throws IOException {
+        switch (operation.getType()) {
+            case UPSERT:
+                Document document = operation.getDocument();
+                indexWriter.updateDocument(new Term(FIELD_UID, uid(document.getId(), document.getType())),
+                        createLuceneDocumentWithUid(document));
+                break;
+            case DELETE_UID:
+                String uid = uid(operation.getKey(), operation.getValue());
+                indexWriter.deleteDocuments(new Term(FIELD_UID, uid));
+                vectorIndex.delete(uid);
+                break;
+            case DELETE_ID:
+                deleteWithVectors(new TermQuery(new Term(FIELD_ID, operation.getKey())));
+                break;
+            case DELETE_BY_FIELD:
+                deleteWithVectors(createExactQuery(operation.getKey(), operation.getValue()));
+                break;
+            default:
+                throw new IllegalStateException("Unknown translog operation: " + operation.getType());
+        }
+    }
+
+    /**
+     * 执行写入并追加事务日志
+     * 同一主键的写入和日志追加在同一把锁内完成，保证日志顺序与实际写入顺序一致；
+     * uid为null表示操作影响多个主键，独占执行
+     *
+     * @param uid 主键，影响多个主键时为null
+     * @param operation 日志操作
+     * @param write 实际写入
+     * @return 日志位置，未启用事务日志时为-1
+     * @throws IOException 写入异常
+     */
+    private long writeAndLog(String uid, Translog.Operation operation, IndexWrite write) throws IOException {
+        if (pendingRefreshSince == 0) {
+            pendingRefreshSince = System.currentTimeMillis();
+        }
+        if (translog == null) {
+            write.apply();
+            return -1;
+        }
+        Lock lock = uid == null ? writeOrderLock.writeLock() : writeOrderLock.readLock();
+        lock.lock();
+        try {
+            if (uid == null) {
+                write.apply();
+                return translog.add(operation);
+            }
+            synchronized (uidLocks[Math.floorMod(uid.hashCode(), uidLocks.length)]) {
+                write.apply();
+                return translog.add(operation);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待日志同步到磁盘，并发写入共用一次fsync
+     */
+    private void syncTranslog(long location) throws IOException {
+        if (translog != null && location >= 0) {
+            translog.sync(location);
+        }
+    }
+
+    /**
+     * 写入后使结果可见：启用事务日志时写入已持久化在日志中，只刷新近实时搜索器；否则提交后刷新
+     */
+    private void commitOrRefresh() throws IOException {
+        if (translog == null) {
+            indexWriter.commit();
+        }
+        refreshSearcher();
+    }
+
+    /**
+     * 提交索引
+     * 启用事务日志时先切换到新的一代并记录在提交数据中，提交成功后删除已包含在提交中的日志
+     */
+    private void commitIndex() throws IOException {
+        if (translog == null) {
+            indexWriter.commit();
+            return;
+        }
+        synchronized (commitLock) {
+            long generation = translog.rollGeneration();
+            indexWriter.setLiveCommitData(Collections.singletonMap(
+                    Translog.COMMIT_GENERATION_KEY, String.valueOf(generation)).entrySet());
+            indexWriter.commit();
+            translog.trimBelow(generation);
+            lastFlushTime = System.currentTimeMillis();
+        }
+    }
+
+    private boolean isTranslogFlushDue() {
+        return System.currentTimeMillis() - lastFlushTime >= config.getTranslogFlushInterval()
+                || translog.sizeInBytes() >= config.getTranslogFlushThresholdMB() * 1024L * 1024L;
+    }
+
+    private static Object[] createUidLocks(int count) {
+        Object[] locks = new Object[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    @FunctionalInterface
+    private interface IndexWrite {
+        void apply() throws IOException;
     }
 
     /**
@@ -349,26 +856,19 @@ public class SearchEngine implements AutoCloseable {
 
         long now = System.currentTimeMillis();
 
-        org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
-        // 关键：写入复合主键字段
-        doc.add(new StringField(FIELD_UID, uid(id, type), Field.Store.YES));
-
-        // 其它检索/展示字段
-        doc.add(new StringField(FIELD_ID, id, Field.Store.YES));
-        doc.add(new StringField(FIELD_TYPE, type, Field.Store.YES));
-        doc.add(new TextField(FIELD_TITLE, safeTitle, Field.Store.YES));
-        doc.add(new SortedDocValuesField(FIELD_TITLE, new BytesRef(safeTitle)));
-        doc.add(new TextField(FIELD_CONTENT, safeContent, Field.Store.YES));
-        doc.add(new LongPoint(FIELD_TIMESTAMP, now));
-        doc.add(new StoredField(FIELD_TIMESTAMP, now));
+        org.apache.lucene.document.Document doc = buildLuceneDocument(id, type, safeTitle, safeContent, now, null, null);
 
         // ✅ upsert：不存在就新增，存在就覆盖，绝不会因为“没有旧文档”报错
-        indexWriter.updateDocument(new Term(FIELD_UID, uid(id, type)), doc);
+        String uid = uid(id, type);
+        long location = writeAndLog(uid, Translog.Operation.upsert(new Document(id, type, safeTitle, safeContent).setTimestamp(now)), () -> {
+            indexWriter.updateDocument(new Term(FIELD_UID, uid), doc);
+            vectorIndex.delete(uid);
+        });
+        syncTranslog(location);
 
         // 建议逻辑保持不变
-        if (!config.isAutoCommit() || indexSearcher == null) {
-            indexWriter.commit();
-            refreshSearcher();
+        if (!config.isAutoCommit() || searcherManager == null) {
+            commitOrRefresh();
         }
         clearCaches();
 
@@ -414,7 +914,8 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 检查异常
      */
     private boolean documentExists(String id, String type) throws IOException {
-        if (indexSearcher == null) {
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher == null) {
             return false;
         }
         
@@ -424,11 +925,13 @@ public class SearchEngine implements AutoCloseable {
             queryBuilder.add(new TermQuery(new Term(FIELD_ID, id)), BooleanClause.Occur.MUST);
             queryBuilder.add(new TermQuery(new Term(FIELD_TYPE, type)), BooleanClause.Occur.MUST);
             
-            TopDocs topDocs = indexSearcher.search(queryBuilder.build(), 1);
+            TopDocs topDocs = searcher.search(queryBuilder.build(), 1);
             return topDocs.totalHits.value > 0;
         } catch (Exception e) {
             logger.warn("Failed to check document existence: id={}, type={}", id, type, e);
             return false;
+        } finally {
+            releaseSearcher(searcher);
         }
     }
 
@@ -446,9 +949,6 @@ public class SearchEngine implements AutoCloseable {
             // 删除旧文档
             deleteDocument(id, type);
             
-            // 直接创建并索引新文档，避免递归调用
-            org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
-            
             // 确保标题和内容不为 null
             String safeTitle = title != null ? title.trim() : "";
             String safeContent = content != null ? content.trim() : "";
@@ -458,14 +958,8 @@ public class SearchEngine implements AutoCloseable {
                 safeTitle = id;
             }
             
-            // 添加字段
-            doc.add(new StringField(FIELD_ID, id, Field.Store.YES));
-            doc.add(new StringField(FIELD_TYPE, type, Field.Store.YES));
-            doc.add(new TextField(FIELD_TITLE, safeTitle, Field.Store.YES));
-            doc.add(new SortedDocValuesField(FIELD_TITLE, new BytesRef(safeTitle)));
-            doc.add(new TextField(FIELD_CONTENT, safeContent, Field.Store.YES));
-            doc.add(new LongPoint(FIELD_TIMESTAMP, System.currentTimeMillis()));
-            doc.add(new StoredField(FIELD_TIMESTAMP, System.currentTimeMillis()));
+            // 直接创建并索引新文档，避免递归调用
+            org.apache.lucene.document.Document doc = buildLuceneDocument(id, type, safeTitle, safeContent, System.currentTimeMillis(), null, null);
             
             // 写入索引
             indexWriter.addDocument(doc);
@@ -487,7 +981,7 @@ public class SearchEngine implements AutoCloseable {
             if (!config.isAutoCommit()) {
                 indexWriter.commit();
                 refreshSearcher();
-            } else if (indexSearcher == null) {
+            } else if (searcherManager == null) {
                 indexWriter.commit();
                 refreshSearcher();
             }
@@ -511,18 +1005,32 @@ public class SearchEngine implements AutoCloseable {
             if (d.getId() == null || d.getId().isBlank()) {
                 throw new IllegalArgumentException("Document ID cannot be null or empty");
             }
+            if (d.getVector() != null) {
+                // 写入前校验维度，避免批次写到一半失败
+                vectorIndex.checkDimension(d.getVector());
+            }
             String type = d.getType() == null ? "" : d.getType();
             uniq.put(uid(d.getId(), type), d);
         }
 
+        long location = -1;
         for (Document d : uniq.values()) {
             org.apache.lucene.document.Document luceneDoc = createLuceneDocumentWithUid(d); // 见下
-            indexWriter.updateDocument(new Term(FIELD_UID, uid(d.getId(), d.getType())), luceneDoc);
+            String uid = uid(d.getId(), d.getType());
+            location = writeAndLog(uid, Translog.Operation.upsert(d), () -> {
+                indexWriter.updateDocument(new Term(FIELD_UID, uid), luceneDoc);
+                if (d.getVector() != null) {
+                    vectorIndex.add(uid, d.getVector());
+                } else {
+                    vectorIndex.delete(uid);
+                }
+            });
         }
+        // 整批只等待一次日志同步
+        syncTranslog(location);
 
-        if (!config.isAutoCommit() || indexSearcher == null) {
-            indexWriter.commit();
-            refreshSearcher();
+        if (!config.isAutoCommit() || searcherManager == null) {
+            commitOrRefresh();
         }
         clearCaches();
         logger.info("Upserted {} documents", uniq.size());
@@ -534,22 +1042,108 @@ public class SearchEngine implements AutoCloseable {
             String safeContent = d.getContent() != null ? d.getContent().trim() : "";
             if (safeTitle.isEmpty() && safeContent.isEmpty()) safeTitle = d.getId();
 
-            org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
-            doc.add(new StringField(FIELD_UID, uid(d.getId(), d.getType()), Field.Store.YES));
-            doc.add(new StringField(FIELD_ID, d.getId(), Field.Store.YES));
-            doc.add(new StringField(FIELD_TYPE, d.getType(), Field.Store.YES));
-            doc.add(new TextField(FIELD_TITLE, safeTitle, Field.Store.YES));
-            doc.add(new SortedDocValuesField(FIELD_TITLE, new BytesRef(safeTitle)));
-            doc.add(new TextField(FIELD_CONTENT, safeContent, Field.Store.YES));
-            doc.add(new LongPoint(FIELD_TIMESTAMP, d.getTimestamp()));
-            doc.add(new StoredField(FIELD_TIMESTAMP, d.getTimestamp()));
-            return doc;
+            return buildLuceneDocument(d.getId(), d.getType(), safeTitle, safeContent, d.getTimestamp(), d.getMetadata(),
+                    d.getVector());
         } catch (Exception e) {
             logger.error("Failed to create Lucene document: {}", d, e);
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 构建Lucene文档（所有写入路径共用，保证字段结构一致）
+     *
+     * @param id 文档ID
+     * @param type 文档类型
+     * @param safeTitle 已处理的标题
+     * @param safeContent 已处理的内容
+     * @param timestamp 时间戳
+     * @param metadata 元数据，可以为null
+     * @param vector 向量，可以为null
+     * @return Lucene文档
+     */
+    private org.apache.lucene.document.Document buildLuceneDocument(String id, String type, String safeTitle,
+                                                                    String safeContent, long timestamp,
+                                                                    Map<String, String> metadata, float[] vector) {
+        org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
+        // 关键：写入复合主键字段
+        doc.add(new StringField(FIELD_UID, uid(id, type), Field.Store.YES));
+
+        // 其它检索/展示字段
+        doc.add(new StringField(FIELD_ID, id, Field.Store.YES));
+        doc.add(new SortedDocValuesField(FIELD_ID, new BytesRef(id)));
+        doc.add(new StringField(FIELD_TYPE, type, Field.Store.YES));
+        doc.add(new SortedDocValuesField(FIELD_TYPE, new BytesRef(type)));
+        doc.add(new Field(FIELD_TITLE, safeTitle, TEXT_WITH_OFFSETS));
+        // 为排序添加SortedDocValuesField
+        doc.add(new SortedDocValuesField(FIELD_TITLE, new BytesRef(safeTitle)));
+        if (config.isTitleEdgeNGramEnabled()) {
+            // 标题前缀字段，只索引不存储
+            doc.add(new Field(FIELD_TITLE_PREFIX, safeTitle, GRAM_TYPE));
+        }
+        doc.add(new Field(FIELD_CONTENT, safeContent, TEXT_WITH_OFFSETS));
+        doc.add(new LongPoint(FIELD_TIMESTAMP, timestamp));
+        doc.add(new StoredField(FIELD_TIMESTAMP, timestamp));
+        // 用于时间直方图统计
+        doc.add(new NumericDocValuesField(FIELD_TIMESTAMP, timestamp));
+
+        // 添加元数据
+        if (metadata != null) {
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    addMetadataField(doc, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        if (vector != null) {
+            // 向量随文档持久化，重新打开索引时据此重建HNSW图
+            doc.add(new BinaryDocValuesField(FIELD_VECTOR, VectorIndex.encode(vector)));
+        }
+        return doc;
+    }
+
+    /**
+     * 按元数据类型添加字段
+     * 原值始终存储用于返回；关键字索引为词项和SortedDocValues，数值和日期索引为点和NumericDocValues，
+     * 范围过滤走BKD树，排序和分组直接读取doc values
+     *
+     * @param doc Lucene文档
+     * @param key 元数据字段名
+     * @param value 元数据值
+     */
+    private void addMetadataField(org.apache.lucene.document.Document doc, String key, String value) {
+        String field = "meta_" + key;
+        doc.add(new StoredField(field, value));
+
+        MetadataType type = config.getMetadataType(key);
+        try {
+            switch (type) {
+                case LONG:
+                case DATE:
+                    long longValue = type.parseLong(value);
+                    doc.add(new LongPoint(field, longValue));
+                    doc.add(new NumericDocValuesField(field, longValue));
+                    break;
+                case DOUBLE:
+                    double doubleValue = type.parseDouble(value);
+                    doc.add(new DoublePoint(field, doubleValue));
+                    doc.add(new DoubleDocValuesField(field, doubleValue));
+                    break;
+                default:
+                    doc.add(new StringField(field, value, Field.Store.NO));
+                    doc.add(new SortedDocValuesField(field, new BytesRef(value)));
+                    if (config.getSubstringSearchFields().contains(key)) {
+                        // 子串检索：N元组子字段定位候选文档，doc values用于校验
+                        doc.add(new Field(NGRAM_FIELD_PREFIX + key, value, GRAM_TYPE));
+                    }
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            // 无法解析的值只存储不索引，不影响文档其它字段
+            logger.warn("Metadata '{}' value '{}' is not a valid {}, stored only", key, value, type);
+        }
+    }
+
     /**
      * 创建Lucene文档
      */
@@ -571,26 +1165,8 @@ public class SearchEngine implements AutoCloseable {
             safeTitle = doc.getId();
         }
         
-        org.apache.lucene.document.Document luceneDoc = new org.apache.lucene.document.Document();
-
-        // 添加字段
-        luceneDoc.add(new StringField(FIELD_ID, doc.getId(), Field.Store.YES));
-        luceneDoc.add(new StringField(FIELD_TYPE, doc.getType(), Field.Store.YES));
-        luceneDoc.add(new TextField(FIELD_TITLE, safeTitle, Field.Store.YES));
-        // 为排序添加SortedDocValuesField
-        luceneDoc.add(new SortedDocValuesField(FIELD_TITLE, new BytesRef(safeTitle)));
-        luceneDoc.add(new TextField(FIELD_CONTENT, safeContent, Field.Store.YES));
-        luceneDoc.add(new LongPoint(FIELD_TIMESTAMP, doc.getTimestamp()));
-        luceneDoc.add(new StoredField(FIELD_TIMESTAMP, doc.getTimestamp()));
-
-        // 添加元数据
-        for (Map.Entry<String, String> entry : doc.getMetadata().entrySet()) {
-            if (entry.getKey() != null && entry.getValue() != null) {
-                luceneDoc.add(new StringField("meta_" + entry.getKey(), entry.getValue(), Field.Store.YES));
-            }
-        }
-
-        return luceneDoc;
+        return buildLuceneDocument(doc.getId(), doc.getType(), safeTitle, safeContent, doc.getTimestamp(),
+                doc.getMetadata(), doc.getVector());
     }
 
     /**
@@ -601,38 +1177,271 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 搜索异常
      */
     public SearchResult search(SearchRequest request) throws IOException {
+        if (hotQueries != null) {
+            hotQueries.record(request.getQuery());
+        }
+        // 整个请求使用同一个搜索器，合并键也以它的读取器区分，刷新后到达的请求不会合并到旧读取器上的搜索；
+        // 请求结束前该读取器不会因刷新而关闭
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return search(request, searcher);
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    private SearchResult search(SearchRequest request, IndexSearcher searcher) throws IOException {
+        if (!config.isSearchCoalescingEnabled() || searcher == null) {
+            return executeSearch(request, searcher);
+        }
+
+        // 相同请求合并：第一个请求执行搜索，并发到达的相同请求等待它的结果
+        InFlightKey key = new InFlightKey(request.copy(), searcher.getIndexReader());
+        CompletableFuture<SearchResult> flight = new CompletableFuture<>();
+        CompletableFuture<SearchResult> leader = inFlightSearches.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalescedSearches.increment();
+            return awaitLeader(leader, request);
+        }
+        try {
+            SearchResult result = executeSearch(request, searcher);
+            flight.complete(result);
+            return result.copy();
+        } catch (IOException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightSearches.remove(key, flight);
+        }
+    }
+
+    /**
+     * 等待合并到的搜索完成，最多等待请求的超时时间；超时后返回空的超时结果，与限时搜索的部分结果语义一致
+     *
+     * @param leader 正在执行的相同搜索
+     * @param request 搜索请求
+     * @return 搜索结果的副本
+     * @throws IOException 搜索异常，等待被中断时为InterruptedIOException
+     */
+    private SearchResult awaitLeader(CompletableFuture<SearchResult> leader, SearchRequest request) throws IOException {
+        long startTime = System.currentTimeMillis();
+        long timeout = request.getTimeout() > 0 ? request.getTimeout() : config.getSearchTimeout();
+        try {
+            return (timeout > 0 ? leader.get(timeout, TimeUnit.MILLISECONDS) : leader.get()).copy();
+        } catch (TimeoutException e) {
+            logger.warn("Coalesced search timed out after {}ms waiting for query: '{}'", timeout, request.getQuery());
+            SearchResult result = emptyResult(request, startTime);
+            result.setTotalHitsExact(false);
+            result.setTimedOut(true);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for coalesced search");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static SearchResult emptyResult(SearchRequest request, long startTime) {
+        SearchResult result = new SearchResult(request.getQuery(), 0);
+        result.setPage(request.getPage());
+        result.setPageSize(request.getPageSize());
+        result.setSearchTime(System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    /**
+     * 限时搜索
+     * 本次请求所用搜索器的读取器包装为ExitableDirectoryReader，通配符等多词项查询改写时枚举词典也会检查超时；
+     * 收集阶段由TimeLimitingCollector检查，超时后已收集的命中保留在collector中
+     *
+     * @param searcher 本次请求使用的搜索器
+     * @return 是否超时
+     */
+    private boolean searchWithTimeout(IndexSearcher searcher, Query query, Collector collector, long timeout,
+                                      SearchProfile profile) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        if (reader instanceof DirectoryReader) {
+            searcher = createIndexSearcher(ExitableDirectoryReader.wrap((DirectoryReader) reader, new QueryTimeoutImpl(timeout)));
+        }
+        TimeLimitingCollector limitedCollector = new TimeLimitingCollector(collector, TimeLimitingCollector.getGlobalCounter(), timeout);
+        limitedCollector.setBaseline();
+        try {
+            search(searcher, query, limitedCollector, profile);
+            return false;
+        } catch (TimeLimitingCollector.TimeExceededException | ExitableDirectoryReader.ExitingReaderException e) {
+            logger.warn("Search timed out after {}ms, returning partial results for query: '{}'", timeout, query);
+            return true;
+        }
+    }
+
+    /**
+     * 执行检索；需要剖析时按IndexSearcher.search的步骤逐步执行，分别记录改写、创建Weight和各段打分的耗时
+     */
+    private void search(IndexSearcher searcher, Query query, Collector collector, SearchProfile profile) throws IOException {
+        if (profile == null) {
+            searcher.search(query, collector);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Query rewritten = searcher.rewrite(query);
+        long rewriteEnd = System.nanoTime();
+        profile.setQuery(rewritten.toString());
+        profile.setRewriteNanos(rewriteEnd - start);
+        Weight weight = searcher.createWeight(rewritten, collector.scoreMode(), 1f);
+        profile.setCreateWeightNanos(System.nanoTime() - rewriteEnd);
+
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            SearchProfile.SegmentProfile segment = new SearchProfile.SegmentProfile(leaf.ord, leaf.reader().maxDoc());
+            profile.getSegments().add(segment);
+            LeafCollector leafCollector;
+            try {
+                leafCollector = collector.getLeafCollector(leaf);
+            } catch (CollectionTerminatedException e) {
+                continue;
+            }
+            long scorerStart = System.nanoTime();
+            BulkScorer scorer = weight.bulkScorer(leaf);
+            long scoreStart = System.nanoTime();
+            segment.setScorerNanos(scoreStart - scorerStart);
+            if (scorer == null) {
+                continue;
+            }
+            long[] collected = new long[1];
+            LeafCollector counting = new FilterLeafCollector(leafCollector) {
+                @Override
+                public void collect(int doc) throws IOException {
+                    collected[0]++;
+                    super.collect(doc);
+                }
+            };
+            try {
+                scorer.score(counting, leaf.reader().getLiveDocs());
+            } catch (CollectionTerminatedException e) {
+                // 收集器提前结束本段，与IndexSearcher的处理一致
+            } finally {
+                segment.setScoreNanos(System.nanoTime() - scoreStart);
+                segment.setDocsCollected(collected[0]);
+                profile.setDocsCollected(profile.getDocsCollected() + collected[0]);
+            }
+        }
+    }
+
+    /**
+     * 结束一个阶段：记录指标，需要剖析时同时记入剖析结果
+     *
+     * @return 当前时间，作为下一阶段的开始时间
+     */
+    private static long endPhase(SearchMetrics metrics, SearchProfile profile, SearchMetrics.Phase phase, long phaseStart) {
+        long now = System.nanoTime();
+        metrics.recordPhase(phase, now - phaseStart);
+        if (profile != null) {
+            switch (phase) {
+                case PARSE:
+                    profile.setParseNanos(now - phaseStart);
+                    break;
+                case FETCH:
+                    profile.setFetchNanos(now - phaseStart);
+                    break;
+                case HIGHLIGHT:
+                    profile.setHighlightNanos(now - phaseStart);
+                    break;
+                default:
+                    // 检索阶段由search方法细分记录
+                    break;
+            }
+        }
+        return now;
+    }
+
+    /**
+     * 被合并到其他相同请求上的搜索次数
+     *
+     * @return 合并次数
+     */
+    public long getCoalescedSearchCount() {
+        return coalescedSearches.sum();
+    }
+
+    private SearchResult executeSearch(SearchRequest request, IndexSearcher searcher) throws IOException {
         long startTime = System.currentTimeMillis();
 
         // 检查搜索器是否可用
-        if (indexSearcher == null) {
+        if (searcher == null) {
             // 索引为空，返回空结果
-            SearchResult result = new SearchResult(request.getQuery(), 0);
-            result.setPage(request.getPage());
-            result.setPageSize(request.getPageSize());
-            result.setSearchTime(System.currentTimeMillis() - startTime);
-            return result;
+            return emptyResult(request, startTime);
         }
 
+        SearchMetrics metrics = config.getMetrics();
+        SearchProfile profile = request.isProfile() ? new SearchProfile() : null;
+        long searchStart = System.nanoTime();
+        long phaseStart = searchStart;
+
         // 性能优化：智能查询缓存
         String cacheKey = generateCacheKey(request);
         Query query = getCachedQuery(cacheKey);
         if (query == null) {
+            metrics.recordCache(SearchMetrics.Cache.QUERY, SearchMetrics.CacheEvent.MISS, 1);
             query = createQuery(request);
             // 智能缓存策略：只缓存热门查询
             updateQueryCache(cacheKey, query, request);
         } else {
+            metrics.recordCache(SearchMetrics.Cache.QUERY, SearchMetrics.CacheEvent.HIT, 1);
             // 更新命中次数
             queryHitCounts.merge(cacheKey, 1, Integer::sum);
         }
+        phaseStart = endPhase(metrics, profile, SearchMetrics.Phase.PARSE, phaseStart);
 
-        // 创建排序
-        Sort sort = createSort(request);
+        // 创建排序：向量检索按相似度或融合得分排序，文本部分按相关度参与融合
+        boolean vectorSearch = request.getVector() != null;
+        boolean hasQueryText = request.getQuery() != null && !request.getQuery().trim().isEmpty();
+        Sort sort = vectorSearch ? Sort.RELEVANCE : createSort(request);
 
         // 性能优化：批量获取文档
-        TopDocs topDocs = indexSearcher.search(query, request.getMaxResults(), sort);
+        FacetCollector facetCollector = createFacetCollector(request);
+        long timeout = request.getTimeout() > 0 ? request.getTimeout() : config.getSearchTimeout();
+        boolean timedOut = false;
+        TopDocs topDocs = null;
+        if (!vectorSearch || hasQueryText || facetCollector != null) {
+            int numHits = Math.max(1, Math.min(request.getMaxResults(), searcher.getIndexReader().maxDoc()));
+            TopDocsCollector<?> topCollector = createTopDocsCollector(sort, numHits, totalHitsThreshold(request, facetCollector));
+            // 命中文档和分组统计在同一次遍历中收集
+            Collector collector = facetCollector == null ? topCollector : MultiCollector.wrap(topCollector, facetCollector);
+            if (timeout > 0) {
+                timedOut = searchWithTimeout(searcher, query, collector, timeout, profile);
+            } else {
+                search(searcher, query, collector, profile);
+            }
+            topDocs = topCollector.topDocs();
+        }
+        if (vectorSearch) {
+            // 向量近邻检索，有查询文本时与BM25结果按排名融合
+            long vectorStart = System.nanoTime();
+            topDocs = searchVectors(searcher, request, hasQueryText ? topDocs : null);
+            if (profile != null) {
+                profile.setVectorSearchNanos(System.nanoTime() - vectorStart);
+            }
+        }
+        phaseStart = endPhase(metrics, profile, SearchMetrics.Phase.SEARCH, phaseStart);
 
         // 构建搜索结果
         SearchResult result = new SearchResult(request.getQuery(), topDocs.totalHits.value);
+        result.setTotalHitsExact(!timedOut && topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO);
+        result.setTimedOut(timedOut);
+        if (facetCollector != null) {
+            result.setFacets(facetCollector.getResults());
+        }
         result.setPage(request.getPage());
         result.setPageSize(request.getPageSize());
         result.setSearchTime(System.currentTimeMillis() - startTime);
@@ -660,17 +1469,23 @@ public class SearchEngine implements AutoCloseable {
                     docIds[i - start] = topDocs.scoreDocs[i].doc;
                 }
                 
-                // 批量获取文档
+                // 批量获取文档：只加载请求需要的字段
+                Set<String> storedFields = resolveStoredFields(request);
                 org.apache.lucene.document.Document[] docs = new org.apache.lucene.document.Document[docIds.length];
                 for (int i = 0; i < docIds.length; i++) {
                     try {
-                        docs[i] = indexSearcher.doc(docIds[i]);
+                        docs[i] = loadDocument(searcher, docIds[i], storedFields, request, profile);
                     } catch (Exception e) {
                         logger.warn("Failed to get document with id: {}", docIds[i], e);
                         continue;
                     }
                 }
+                phaseStart = endPhase(metrics, profile, SearchMetrics.Phase.FETCH, phaseStart);
                 
+                // 整页一次性高亮，复用实际执行的查询
+                Map<String, String[]> highlights = highlightHits(searcher, query, request, docIds, storedFields);
+                endPhase(metrics, profile, SearchMetrics.Phase.HIGHLIGHT, phaseStart);
+
                 int addedHits = 0;
                 // 在处理每个 scoreDoc 时，打印评分并检查是否为 NaN
                 for (int i = 0; i < docs.length; i++) {
@@ -691,7 +1506,13 @@ public class SearchEngine implements AutoCloseable {
                     // 放宽评分过滤条件，避免所有结果被过滤
                     if (score >= request.getMinScore()) {
                         // 创建并添加 SearchHit
-                        SearchResult.SearchHit hit = createSearchHit(docs[i], score, request);
+                        SearchResult.SearchHit hit = createSearchHit(docs[i], score, request, highlights, i);
+                        if (scoreDoc instanceof FieldDoc) {
+                            hit.setSortValues(toSortValues(request, (FieldDoc) scoreDoc));
+                        }
+                        if (profile != null && !vectorSearch) {
+                            hit.setExplanation(searcher.explain(query, docIds[i]).toString());
+                        }
                         result.addHit(hit); // 将结果添加到 SearchResult 的 hits 列表中
                         addedHits++;
                     } else {
@@ -715,6 +1536,11 @@ public class SearchEngine implements AutoCloseable {
             logger.debug("No documents to process: scoreDocs.length={}", topDocs.scoreDocs.length);
         }
 
+        if (profile != null) {
+            profile.setTotalNanos(System.nanoTime() - searchStart);
+            result.setProfile(profile);
+        }
+
         // 性能监控日志
         long searchTime = System.currentTimeMillis() - startTime;
         if (searchTime > 100) { // 记录慢查询
@@ -723,7 +1549,338 @@ public class SearchEngine implements AutoCloseable {
             logger.debug("Query completed in {}ms: '{}'", searchTime, request.getQuery());
         }
 
-        return result;
+        return result;
+    }
+
+    /**
+     * 向量检索
+     * HNSW图给出候选文档，再按主键和过滤条件在当前搜索器上校验（排除已删除、未刷新或不满足过滤条件的候选）；
+     * 有文本结果时按RRF融合，文档得分为各路结果中1/(k+排名)之和
+     *
+     * @param searcher 本次请求使用的搜索器
+     * @param request 搜索请求
+     * @param lexicalTopDocs 按相关度排序的文本检索结果，为null时只做向量检索
+     * @return 按得分降序排列的结果，总命中数为下限
+     * @throws IOException 搜索异常
+     */
+    private TopDocs searchVectors(IndexSearcher searcher, SearchRequest request, TopDocs lexicalTopDocs) throws IOException {
+        int wanted = Math.max(0, request.getMaxResults());
+        int candidates = Math.max(request.getVectorCandidates(), wanted);
+        List<VectorIndex.Hit> hits = vectorIndex.search(request.getVector(), candidates, candidates);
+        Map<String, Integer> docIds = resolveVectorCandidates(searcher, hits, request);
+
+        // 过滤条件在HNSW选出候选之后才生效，选择性强时大部分候选被过滤掉：放大候选数重试，
+        // 仍不够时说明满足条件的文档很少，直接在过滤结果上精确计算相似度
+        Query filterQuery = createFiltersQuery(request);
+        if (filterQuery != null) {
+            int live = vectorIndex.size();
+            for (int retry = 0; retry < FILTERED_VECTOR_RETRIES && isVectorPoolShort(docIds, hits, wanted, candidates, live); retry++) {
+                candidates = (int) Math.min(live, (long) candidates * FILTERED_VECTOR_GROWTH);
+                hits = vectorIndex.search(request.getVector(), candidates, candidates);
+                docIds = resolveVectorCandidates(searcher, hits, request);
+            }
+            if (isVectorPoolShort(docIds, hits, wanted, candidates, live)) {
+                docIds = new HashMap<>();
+                hits = exactVectorSearch(searcher, filterQuery, request.getVector(), wanted, docIds);
+            }
+        }
+
+        boolean hybrid = lexicalTopDocs != null;
+        int rankConstant = Math.max(0, request.getRrfRankConstant());
+        Map<Integer, Float> scores = new LinkedHashMap<>();
+        int rank = 0;
+        for (VectorIndex.Hit hit : hits) {
+            Integer docId = docIds.get(hit.getUid());
+            if (docId == null) {
+                continue;
+            }
+            rank++;
+            scores.put(docId, hybrid ? 1f / (rankConstant + rank) : hit.getScore());
+        }
+        if (hybrid) {
+            ScoreDoc[] lexical = lexicalTopDocs.scoreDocs;
+            for (int i = 0; i < lexical.length; i++) {
+                scores.merge(lexical[i].doc, 1f / (rankConstant + i + 1), Float::sum);
+            }
+        }
+
+        ScoreDoc[] scoreDocs = new ScoreDoc[scores.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            scoreDocs[i++] = new ScoreDoc(entry.getKey(), entry.getValue());
+        }
+        Arrays.sort(scoreDocs, (a, b) -> a.score != b.score ? Float.compare(b.score, a.score) : Integer.compare(a.doc, b.doc));
+        if (scoreDocs.length > request.getMaxResults()) {
+            scoreDocs = Arrays.copyOf(scoreDocs, Math.max(0, request.getMaxResults()));
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO), scoreDocs);
+    }
+
+    /**
+     * 通过过滤的候选不足，且HNSW还有未返回的节点
+     */
+    private static boolean isVectorPoolShort(Map<String, Integer> docIds, List<VectorIndex.Hit> hits,
+                                             int wanted, int candidates, int live) {
+        return docIds.size() < wanted && hits.size() >= candidates && candidates < live;
+    }
+
+    /**
+     * 在满足过滤条件的文档上逐个计算向量相似度
+     *
+     * @param searcher 本次请求使用的搜索器
+     * @param filterQuery 过滤条件
+     * @param vector 查询向量
+     * @param k 返回数量
+     * @param docIds 输出：返回的主键到文档ID的映射
+     * @return 按相似度降序排列的结果
+     * @throws IOException 搜索异常
+     */
+    private List<VectorIndex.Hit> exactVectorSearch(IndexSearcher searcher, Query filterQuery, float[] vector,
+                                                    int k, Map<String, Integer> docIds) throws IOException {
+        VectorSimilarity similarity = config.getVectorSimilarity();
+        float[] query = similarity.prepare(vector);
+        Comparator<VectorIndex.Hit> byScore = Comparator.comparingDouble(VectorIndex.Hit::getScore);
+        PriorityQueue<VectorIndex.Hit> top = new PriorityQueue<>(byScore);
+        Map<String, Integer> matched = new HashMap<>();
+        searcher.search(filterQuery, new SimpleCollector() {
+            private int docBase;
+            private BinaryDocValues vectors;
+            private SortedDocValues ids;
+            private SortedDocValues types;
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                docBase = context.docBase;
+                vectors = DocValues.getBinary(context.reader(), FIELD_VECTOR);
+                ids = DocValues.getSorted(context.reader(), FIELD_ID);
+                types = DocValues.getSorted(context.reader(), FIELD_TYPE);
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                if (!vectors.advanceExact(doc) || !ids.advanceExact(doc)) {
+                    return;
+                }
+                float[] candidate = VectorIndex.decode(vectors.binaryValue());
+                if (candidate.length != query.length) {
+                    return;
+                }
+                String id = ids.lookupOrd(ids.ordValue()).utf8ToString();
+                String type = types.advanceExact(doc) ? types.lookupOrd(types.ordValue()).utf8ToString() : "";
+                String uid = uid(id, type);
+                top.add(new VectorIndex.Hit(uid, similarity.compare(query, similarity.prepare(candidate))));
+                matched.put(uid, docBase + doc);
+                if (top.size() > k) {
+                    matched.remove(top.poll().getUid());
+                }
+            }
+
+            @Override
+            public ScoreMode scoreMode() {
+                return ScoreMode.COMPLETE_NO_SCORES;
+            }
+        });
+        List<VectorIndex.Hit> hits = new ArrayList<>(top);
+        hits.sort(byScore.reversed());
+        docIds.putAll(matched);
+        return hits;
+    }
+
+    /**
+     * 在本次请求的搜索器上校验向量候选，返回主键到文档ID的映射
+     *
+     * @param searcher 本次请求使用的搜索器
+     * @param hits 向量候选
+     * @param request 搜索请求，使用其中的过滤条件
+     * @return 通过校验的候选
+     * @throws IOException 搜索异常
+     */
+    private Map<String, Integer> resolveVectorCandidates(IndexSearcher searcher, List<VectorIndex.Hit> hits,
+                                                         SearchRequest request) throws IOException {
+        if (hits.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<BytesRef> uids = new ArrayList<>(hits.size());
+        for (VectorIndex.Hit hit : hits) {
+            uids.add(new BytesRef(hit.getUid()));
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(new TermInSetQuery(FIELD_UID, uids), BooleanClause.Occur.FILTER);
+        Query filterQuery = createFiltersQuery(request);
+        if (filterQuery != null) {
+            builder.add(filterQuery, BooleanClause.Occur.FILTER);
+        }
+
+        Map<String, Integer> docIds = new HashMap<>();
+        forEachUid(searcher, builder.build(), docIds::put);
+        return docIds;
+    }
+
+    /**
+     * 遍历匹配查询的文档的主键
+     *
+     * @param searcher 搜索器
+     * @param query 查询
+     * @param consumer 接收主键和全局文档ID
+     * @throws IOException 搜索异常
+     */
+    private static void forEachUid(IndexSearcher searcher, Query query, ObjIntConsumer<String> consumer) throws IOException {
+        searcher.search(query, new SimpleCollector() {
+            private int docBase;
+            private SortedDocValues ids;
+            private SortedDocValues types;
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                docBase = context.docBase;
+                ids = DocValues.getSorted(context.reader(), FIELD_ID);
+                types = DocValues.getSorted(context.reader(), FIELD_TYPE);
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                String id = ids.advanceExact(doc) ? ids.lookupOrd(ids.ordValue()).utf8ToString() : null;
+                String type = types.advanceExact(doc) ? types.lookupOrd(types.ordValue()).utf8ToString() : "";
+                if (id != null) {
+                    consumer.accept(uid(id, type), docBase + doc);
+                }
+            }
+
+            @Override
+            public ScoreMode scoreMode() {
+                return ScoreMode.COMPLETE_NO_SCORES;
+            }
+        });
+    }
+
+    /**
+     * 从索引中的向量doc values重建HNSW图
+     */
+    private void loadVectorIndex() throws IOException {
+        vectorIndex.clear();
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher == null) {
+            return;
+        }
+        int loaded = 0;
+        try {
+            loaded = loadVectors(searcher.getIndexReader());
+        } finally {
+            releaseSearcher(searcher);
+        }
+        if (loaded > 0) {
+            logger.info("Loaded {} vectors into HNSW graph", loaded);
+        }
+    }
+
+    private int loadVectors(IndexReader indexReader) throws IOException {
+        int loaded = 0;
+        for (LeafReaderContext leaf : indexReader.leaves()) {
+            LeafReader reader = leaf.reader();
+            if (reader.getFieldInfos().fieldInfo(FIELD_VECTOR) == null) {
+                continue;
+            }
+            BinaryDocValues vectors = DocValues.getBinary(reader, FIELD_VECTOR);
+            SortedDocValues ids = DocValues.getSorted(reader, FIELD_ID);
+            SortedDocValues types = DocValues.getSorted(reader, FIELD_TYPE);
+            Bits liveDocs = reader.getLiveDocs();
+            for (int doc = vectors.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = vectors.nextDoc()) {
+                if ((liveDocs != null && !liveDocs.get(doc)) || !ids.advanceExact(doc)) {
+                    continue;
+                }
+                String id = ids.lookupOrd(ids.ordValue()).utf8ToString();
+                String type = types.advanceExact(doc) ? types.lookupOrd(types.ordValue()).utf8ToString() : "";
+                try {
+                    vectorIndex.add(uid(id, type), VectorIndex.decode(vectors.binaryValue()));
+                    loaded++;
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping vector of document {}: {}", uid(id, type), e.getMessage());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 解析需要加载的存储字段
+     *
+     * @param request 搜索请求
+     * @return 存储字段名集合，为null时表示加载全部字段
+     */
+    private Set<String> resolveStoredFields(SearchRequest request) {
+        List<String> fields = request.getFields();
+        if (fields.isEmpty()) {
+            return null;
+        }
+
+        // ID和类型用于标识结果，始终加载
+        Set<String> storedFields = new HashSet<>();
+        storedFields.add(FIELD_ID);
+        storedFields.add(FIELD_TYPE);
+        for (String field : fields) {
+            if (field == null || field.isBlank()) {
+                continue;
+            }
+            if (CORE_FIELDS.contains(field) || field.startsWith("meta_")) {
+                storedFields.add(field);
+            } else {
+                storedFields.add("meta_" + field);
+            }
+        }
+        return storedFields;
+    }
+
+    /**
+     * 按需加载文档
+     * 只需要小字段时直接读取doc values，否则通过字段选择访问器只解码需要的存储字段
+     *
+     * @param searcher 本次请求使用的搜索器
+     * @param docId 文档ID
+     * @param storedFields 需要加载的字段，为null时加载全部字段
+     * @param request 搜索请求
+     * @return Lucene文档
+     * @throws IOException 读取异常
+     */
+    private org.apache.lucene.document.Document loadDocument(IndexSearcher searcher, int docId, Set<String> storedFields,
+                                                            SearchRequest request, SearchProfile profile) throws IOException {
+        if (storedFields != null && DOC_VALUES_FIELDS.containsAll(storedFields)) {
+            org.apache.lucene.document.Document doc = loadFromDocValues(searcher, docId, storedFields);
+            if (doc != null) {
+                return doc;
+            }
+        }
+
+        ProjectionFieldVisitor visitor = new ProjectionFieldVisitor(storedFields, FIELD_CONTENT, request.getContentSnippetSize());
+        searcher.doc(docId, visitor);
+        if (profile != null) {
+            profile.setStoredFieldBytes(profile.getStoredFieldBytes() + visitor.getBytesRead());
+        }
+        return visitor.getDocument();
+    }
+
+    /**
+     * 从doc values读取字段
+     *
+     * @param searcher 本次请求使用的搜索器
+     * @param docId 文档ID
+     * @param fields 字段名集合
+     * @return Lucene文档，旧段缺少doc values时返回null
+     * @throws IOException 读取异常
+     */
+    private org.apache.lucene.document.Document loadFromDocValues(IndexSearcher searcher, int docId, Set<String> fields)
+            throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+
+        org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
+        for (String field : fields) {
+            SortedDocValues values = leaf.reader().getSortedDocValues(field);
+            if (values == null || !values.advanceExact(docId - leaf.docBase)) {
+                return null;
+            }
+            doc.add(new StoredField(field, values.lookupOrd(values.ordValue()).utf8ToString()));
+        }
+        return doc;
     }
 
     /**
@@ -737,11 +1894,15 @@ public class SearchEngine implements AutoCloseable {
         key.append(request.getQuery()).append("|");
         key.append(request.getMaxResults()).append("|");
         key.append(request.getMinScore()).append("|");
+        key.append(request.isTitlePrefix()).append("|");
         
         // 添加过滤条件到缓存键
         for (SearchRequest.Filter filter : request.getFilters()) {
             key.append(filter.getField()).append("=").append(filter.getValue()).append("|");
         }
+        if (!request.getIds().isEmpty()) {
+            key.append("ids=").append(String.join(",", request.getIds())).append("|");
+        }
         
         return key.toString();
     }
@@ -758,6 +1919,7 @@ public class SearchEngine implements AutoCloseable {
                 return query;
             } else {
                 // 缓存过期，清理
+                config.getMetrics().recordCache(SearchMetrics.Cache.QUERY, SearchMetrics.CacheEvent.EVICTION, 1);
                 queryCache.remove(cacheKey);
                 queryTimestamps.remove(cacheKey);
                 queryHitCounts.remove(cacheKey);
@@ -779,7 +1941,10 @@ public class SearchEngine implements AutoCloseable {
             
             // 如果缓存过大，清理最少使用的缓存
             if (queryCache.size() > MAX_QUERY_CACHE_SIZE) {
+                int before = queryCache.size();
                 cleanupLeastUsedCache();
+                config.getMetrics().recordCache(SearchMetrics.Cache.QUERY, SearchMetrics.CacheEvent.EVICTION,
+                        Math.max(0, before - queryCache.size()));
             }
         }
     }
@@ -794,7 +1959,7 @@ public class SearchEngine implements AutoCloseable {
         }
         
         // 不缓存太短的查询
-        if (request.getQuery().length() < 2) {
+        if (request.getQuery() == null || request.getQuery().length() < 2) {
             return false;
         }
         
@@ -831,11 +1996,16 @@ public class SearchEngine implements AutoCloseable {
             currentTime - entry.getValue() > CACHE_TTL_MS);
         
         // 清理对应的查询缓存
+        int queryCacheSize = queryCache.size();
         queryCache.entrySet().removeIf(entry -> 
             !queryTimestamps.containsKey(entry.getKey()));
+        config.getMetrics().recordCache(SearchMetrics.Cache.QUERY, SearchMetrics.CacheEvent.EVICTION,
+                Math.max(0, queryCacheSize - queryCache.size()));
         
         // 清理建议缓存
         if (suggestionCache.size() > MAX_SUGGESTION_CACHE_SIZE) {
+            config.getMetrics().recordCache(SearchMetrics.Cache.SUGGESTION, SearchMetrics.CacheEvent.EVICTION,
+                    suggestionCache.size());
             suggestionCache.clear();
             logger.debug("Suggestion cache cleared due to size limit");
         }
@@ -853,43 +2023,44 @@ public class SearchEngine implements AutoCloseable {
         try {
             // 验证查询字符串
             if (queryString == null || queryString.trim().isEmpty()) {
-                logger.warn("Query string is null or empty, using MatchAllDocsQuery");
-                return new MatchAllDocsQuery();
+                // 空查询匹配全部文档，过滤条件仍然生效（如按知识库统计分组）
+                Query filterQuery = createFiltersQuery(request);
+                if (filterQuery == null) {
+                    logger.debug("Query string is null or empty, using MatchAllDocsQuery");
+                    return new MatchAllDocsQuery();
+                }
+                return new ConstantScoreQuery(filterQuery);
             }
 
             // 清理查询字符串，移除可能导致解析问题的特殊字符
             String cleanQuery = queryString.trim().replaceAll("[\\p{Cntrl}\\p{Space}]+", " ");
             
-            // 性能优化：使用预创建的解析器
-            BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
-
+            // 标题和内容一次解析，标题权重更高
+            QueryParser parser = createQueryParser();
+            Query textQuery;
             try {
-                // 标题查询（权重更高）
-                Query titleQuery = titleParser.parse(cleanQuery);
-                titleQuery = new BoostQuery(titleQuery, 2.0f);
-                queryBuilder.add(titleQuery, BooleanClause.Occur.SHOULD);
+                textQuery = parser.parse(cleanQuery);
             } catch (Exception e) {
-                logger.warn("Failed to parse title query: '{}', using wildcard query", cleanQuery, e);
-                // 回退到通配符查询
-                Query titleQuery = new WildcardQuery(new Term(FIELD_TITLE, "*" + cleanQuery + "*"));
-                titleQuery = new BoostQuery(titleQuery, 2.0f);
-                queryBuilder.add(titleQuery, BooleanClause.Occur.SHOULD);
+                logger.warn("Failed to parse query: '{}', using plain text query", cleanQuery, e);
+                // 回退到不含语法的纯文本查询，而不是通配符扫描
+                textQuery = createPlainTextQuery(cleanQuery);
             }
 
-            try {
-                // 内容查询
-                Query contentQuery = contentParser.parse(cleanQuery);
-                queryBuilder.add(contentQuery, BooleanClause.Occur.SHOULD);
-            } catch (Exception e) {
-                logger.warn("Failed to parse content query: '{}', using wildcard query", cleanQuery, e);
-                // 回退到通配符查询
-                Query contentQuery = new WildcardQuery(new Term(FIELD_CONTENT, "*" + cleanQuery + "*"));
-                queryBuilder.add(contentQuery, BooleanClause.Occur.SHOULD);
+            // 请求开启标题前缀匹配时，文本匹配与标题前缀匹配任一命中即可；普通查询不增加前缀子句
+            BooleanQuery.Builder matchBuilder = new BooleanQuery.Builder();
+            matchBuilder.add(textQuery, BooleanClause.Occur.SHOULD);
+            Query prefixQuery = request.isTitlePrefix() ? createTitlePrefixQuery(cleanQuery) : null;
+            if (prefixQuery != null) {
+                matchBuilder.add(new BoostQuery(new ConstantScoreQuery(prefixQuery), TITLE_PREFIX_BOOST), BooleanClause.Occur.SHOULD);
             }
 
-            // 添加过滤条件
-            for (SearchRequest.Filter filter : request.getFilters()) {
-                Query filterQuery = createFilterQuery(filter);
+            // 文本条件必须满足，过滤条件只做筛选不参与评分
+            BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+            queryBuilder.add(matchBuilder.build(), BooleanClause.Occur.MUST);
+
+            // 添加过滤条件：多个过滤条件合并为一个子句，过滤缓存直接缓存它们交集的位集
+            Query filterQuery = createFiltersQuery(request);
+            if (filterQuery != null) {
                 queryBuilder.add(filterQuery, BooleanClause.Occur.FILTER);
             }
 
@@ -905,9 +2076,101 @@ public class SearchEngine implements AutoCloseable {
 
         } catch (Exception e) {
             logger.error("Failed to create query for: '{}', using fallback query", queryString, e);
-            // 如果所有解析都失败，回退到通配符查询
-            return new WildcardQuery(new Term(FIELD_CONTENT, "*" + queryString + "*"));
+            // 如果所有解析都失败，回退到纯文本查询，避免前导通配符扫描整个词典
+            return createPlainTextQuery(queryString.trim());
+        }
+    }
+
+    /**
+     * 创建查询解析器
+     * QueryParser不是线程安全的，每次查询创建新实例（创建开销很小）
+     *
+     * @return 标题和内容的多字段解析器
+     */
+    private QueryParser createQueryParser() {
+        return new MultiFieldQueryParser(new String[]{FIELD_TITLE, FIELD_CONTENT}, searchAnalyzer,
+                Map.of(FIELD_TITLE, 2.0f, FIELD_CONTENT, 1.0f));
+    }
+
+    /**
+     * 创建纯文本查询
+     * 不解析查询语法，直接按分析器切分后在标题和内容上匹配，用于查询语法错误时的回退
+     *
+     * @param queryText 查询文本
+     * @return 纯文本查询
+     */
+    private Query createPlainTextQuery(String queryText) {
+        QueryBuilder builder = new QueryBuilder(searchAnalyzer);
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+        Query titleQuery = builder.createBooleanQuery(FIELD_TITLE, queryText);
+        if (titleQuery != null) {
+            queryBuilder.add(new BoostQuery(titleQuery, 2.0f), BooleanClause.Occur.SHOULD);
+        }
+        Query contentQuery = builder.createBooleanQuery(FIELD_CONTENT, queryText);
+        if (contentQuery != null) {
+            queryBuilder.add(contentQuery, BooleanClause.Occur.SHOULD);
+        }
+        return queryBuilder.build();
+    }
+
+    /**
+     * 创建标题前缀查询
+     * 查询词按标题的分析器切分后，在边缘N元组字段上做词项查找
+     *
+     * @param queryText 查询文本
+     * @return 前缀查询，未启用或没有词元时返回null
+     */
+    private Query createTitlePrefixQuery(String queryText) {
+        if (!config.isTitleEdgeNGramEnabled()) {
+            return null;
+        }
+        return new QueryBuilder(searchAnalyzer).createBooleanQuery(FIELD_TITLE_PREFIX, queryText, BooleanClause.Occur.MUST);
+    }
+
+    /**
+     * 合并请求的过滤条件和文档ID限定
+     *
+     * @param request 搜索请求
+     * @return 过滤查询，没有过滤条件时返回null
+     */
+    private Query createFiltersQuery(SearchRequest request) {
+        Query filterQuery = createFiltersQuery(request.getFilters());
+        List<String> ids = request.getIds();
+        if (ids.isEmpty()) {
+            return filterQuery;
+        }
+        List<BytesRef> terms = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            terms.add(new BytesRef(id));
+        }
+        Query idQuery = new TermInSetQuery(FIELD_ID, terms);
+        if (filterQuery == null) {
+            return idQuery;
+        }
+        return new BooleanQuery.Builder()
+                .add(filterQuery, BooleanClause.Occur.FILTER)
+                .add(idQuery, BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    /**
+     * 合并过滤条件
+     *
+     * @param filters 过滤条件列表
+     * @return 过滤查询，没有过滤条件时返回null
+     */
+    private Query createFiltersQuery(List<SearchRequest.Filter> filters) {
+        if (filters.isEmpty()) {
+            return null;
         }
+        if (filters.size() == 1) {
+            return createFilterQuery(filters.get(0));
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (SearchRequest.Filter filter : filters) {
+            builder.add(createFilterQuery(filter), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
     }
 
     /**
@@ -922,38 +2185,114 @@ public class SearchEngine implements AutoCloseable {
 
         switch (filter.getType()) {
             case EQUALS:
-                return new TermQuery(new Term(field, value));
+                return createExactQuery(filter.getField(), value);
             case NOT_EQUALS:
+                // 纯MUST_NOT的布尔查询不匹配任何文档，需要以全部文档为基础排除
                 return new BooleanQuery.Builder()
-                        .add(new TermQuery(new Term(field, value)), BooleanClause.Occur.MUST_NOT)
+                        .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                        .add(createExactQuery(filter.getField(), value), BooleanClause.Occur.MUST_NOT)
                         .build();
             case CONTAINS:
-                return new WildcardQuery(new Term(field, "*" + value + "*"));
+                return createContainsQuery(filter.getField(), value);
             case NOT_CONTAINS:
                 return new BooleanQuery.Builder()
-                        .add(new WildcardQuery(new Term(field, "*" + value + "*")), BooleanClause.Occur.MUST_NOT)
+                        .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                        .add(createContainsQuery(filter.getField(), value), BooleanClause.Occur.MUST_NOT)
                         .build();
             case GREATER_THAN:
-                try {
-                    long longValue = Long.parseLong(value);
-                    return LongPoint.newRangeQuery(field, longValue + 1, Long.MAX_VALUE);
-                } catch (NumberFormatException e) {
-                    // 如果不是数字，使用字符串比较
-                    return new TermRangeQuery(field, new BytesRef(value), null, false, true);
-                }
+                return createRangeQuery(filter.getField(), value, true);
             case LESS_THAN:
-                try {
-                    long longValue = Long.parseLong(value);
-                    return LongPoint.newRangeQuery(field, Long.MIN_VALUE, longValue - 1);
-                } catch (NumberFormatException e) {
-                    // 如果不是数字，使用字符串比较
-                    return new TermRangeQuery(field, null, new BytesRef(value), true, false);
-                }
+                return createRangeQuery(filter.getField(), value, false);
             default:
                 return new MatchAllDocsQuery();
         }
     }
 
+    /**
+     * 创建元数据精确匹配查询
+     *
+     * @param metaField 元数据字段名（不含前缀）
+     * @param value 字段值
+     * @return 精确匹配查询，数值无法解析时不匹配任何文档
+     */
+    private Query createExactQuery(String metaField, String value) {
+        String field = "meta_" + metaField;
+        MetadataType type = config.getMetadataType(metaField);
+        try {
+            switch (type) {
+                case LONG:
+                case DATE:
+                    return LongPoint.newExactQuery(field, type.parseLong(value));
+                case DOUBLE:
+                    return DoublePoint.newExactQuery(field, type.parseDouble(value));
+                default:
+                    return new TermQuery(new Term(field, value));
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Filter value '{}' is not a valid {} for metadata '{}'", value, type, metaField);
+            return new MatchNoDocsQuery();
+        }
+    }
+
+    /**
+     * 创建元数据范围查询（不含边界）
+     * 数值和日期字段使用BKD树，与选择性高的查询组合时改用doc values逐个校验；关键字字段按字符串比较
+     *
+     * @param metaField 元数据字段名（不含前缀）
+     * @param value 边界值
+     * @param greaterThan true表示大于，false表示小于
+     * @return 范围查询，数值无法解析时不匹配任何文档
+     */
+    private Query createRangeQuery(String metaField, String value, boolean greaterThan) {
+        String field = "meta_" + metaField;
+        MetadataType type = config.getMetadataType(metaField);
+        try {
+            switch (type) {
+                case LONG:
+                case DATE: {
+                    long bound = type.parseLong(value);
+                    if (bound == (greaterThan ? Long.MAX_VALUE : Long.MIN_VALUE)) {
+                        return new MatchNoDocsQuery();
+                    }
+                    long lower = greaterThan ? bound + 1 : Long.MIN_VALUE;
+                    long upper = greaterThan ? Long.MAX_VALUE : bound - 1;
+                    return new IndexOrDocValuesQuery(LongPoint.newRangeQuery(field, lower, upper),
+                            NumericDocValuesField.newSlowRangeQuery(field, lower, upper));
+                }
+                case DOUBLE: {
+                    double bound = type.parseDouble(value);
+                    return greaterThan
+                            ? DoublePoint.newRangeQuery(field, DoublePoint.nextUp(bound), Double.POSITIVE_INFINITY)
+                            : DoublePoint.newRangeQuery(field, Double.NEGATIVE_INFINITY, DoublePoint.nextDown(bound));
+                }
+                default:
+                    return greaterThan
+                            ? new TermRangeQuery(field, new BytesRef(value), null, false, true)
+                            : new TermRangeQuery(field, null, new BytesRef(value), true, false);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Filter value '{}' is not a valid {} for metadata '{}'", value, type, metaField);
+            return new MatchNoDocsQuery();
+        }
+    }
+
+    /**
+     * 创建子串查询
+     * 支持子串检索的字段转换为N元组词项的交集，其余字段只能使用通配符查询
+     *
+     * @param metaField 元数据字段名（不含前缀）
+     * @param value 子串
+     * @return 子串查询
+     */
+    private Query createContainsQuery(String metaField, String value) {
+        String field = "meta_" + metaField;
+        if (config.getSubstringSearchFields().contains(metaField)) {
+            return new SubstringQuery(field, NGRAM_FIELD_PREFIX + metaField, value, config.getSubstringNGramSize());
+        }
+        logger.debug("Metadata field '{}' is not substring searchable, using wildcard query", metaField);
+        return new WildcardQuery(new Term(field, "*" + value + "*"));
+    }
+
     /**
      * 创建排序
      *
@@ -967,28 +2306,186 @@ public class SearchEngine implements AutoCloseable {
 
         List<SortField> sortFields = new ArrayList<>();
         for (SearchRequest.SortField sortField : request.getSortFields()) {
-            SortField.Type type = SortField.Type.STRING;
-            if (sortField.getField().equals(FIELD_TIMESTAMP)) {
-                type = SortField.Type.LONG;
+            String name = sortField.getField();
+            boolean reverse = sortField.getOrder() == SearchRequest.SortField.SortOrder.DESC;
+            if (name.equals(FIELD_TIMESTAMP)) {
+                // 与索引排序一致时可以提前结束
+                sortFields.add(new SortField(FIELD_TIMESTAMP, SortField.Type.LONG, reverse));
+            } else if (DOC_VALUES_FIELDS.contains(name)) {
+                sortFields.add(new SortField(name, SortField.Type.STRING, reverse));
+            } else if (CORE_FIELDS.contains(name)) {
+                logger.warn("Field '{}' has no doc values and cannot be sorted, ignored", name);
+            } else {
+                // 元数据字段按声明的类型读取doc values，缺少该字段的文档排在最后
+                String metaField = name.startsWith("meta_") ? name.substring("meta_".length()) : name;
+                SortField.Type type = toSortType(config.getMetadataType(metaField));
+                SortField field = new SortField("meta_" + metaField, type, reverse);
+                field.setMissingValue(missingLast(type, reverse));
+                sortFields.add(field);
             }
-
-            SortField field = new SortField(sortField.getField(), type,
-                    sortField.getOrder() == SearchRequest.SortField.SortOrder.DESC);
-            sortFields.add(field);
         }
 
+        if (sortFields.isEmpty()) {
+            return Sort.RELEVANCE;
+        }
         return new Sort(sortFields.toArray(new SortField[0]));
     }
 
+    /**
+     * 将排序值按请求中的排序字段对齐，被忽略的排序字段对应null；字符串排序值转为String
+     *
+     * @param request 搜索请求
+     * @param fieldDoc 按字段排序的命中文档
+     * @return 排序值
+     */
+    private Object[] toSortValues(SearchRequest request, FieldDoc fieldDoc) {
+        List<SearchRequest.SortField> sortFields = request.getSortFields();
+        Object[] values = new Object[sortFields.size()];
+        int next = 0;
+        for (int i = 0; i < values.length && next < fieldDoc.fields.length; i++) {
+            String name = sortFields.get(i).getField();
+            if (!name.equals(FIELD_TIMESTAMP) && !DOC_VALUES_FIELDS.contains(name) && CORE_FIELDS.contains(name)) {
+                continue;
+            }
+            Object value = fieldDoc.fields[next++];
+            values[i] = value instanceof BytesRef ? ((BytesRef) value).utf8ToString() : value;
+        }
+        return values;
+    }
+
+    /**
+     * 排序时缺失值排在最后所对应的缺失值
+     */
+    private static Object missingLast(SortField.Type type, boolean reverse) {
+        switch (type) {
+            case LONG:
+                return reverse ? Long.MIN_VALUE : Long.MAX_VALUE;
+            case DOUBLE:
+                return reverse ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            default:
+                return reverse ? SortField.STRING_FIRST : SortField.STRING_LAST;
+        }
+    }
+
+    /**
+     * 创建命中文档收集器
+     * 按相关度排序时使用TopScoreDocCollector，命中数统计达到阈值后评分器可以跳过不可能进入前N的块（block-max WAND）；
+     * 按字段排序且与索引排序一致（如按时间从新到旧）时，达到阈值后跳过段内剩余文档
+     *
+     * @param sort 排序
+     * @param numHits 需要收集的结果数
+     * @param totalHitsThreshold 命中数统计阈值
+     * @return 命中文档收集器
+     */
+    private TopDocsCollector<?> createTopDocsCollector(Sort sort, int numHits, int totalHitsThreshold) {
+        if (Sort.RELEVANCE.equals(sort)) {
+            return TopScoreDocCollector.create(numHits, totalHitsThreshold);
+        }
+        return TopFieldCollector.create(sort, numHits, totalHitsThreshold);
+    }
+
+    /**
+     * 计算命中数统计阈值，超过阈值后总命中数为下限
+     * 分组统计需要遍历全部命中文档，此时总是精确统计
+     *
+     * @param request 搜索请求
+     * @param facetCollector 分组统计收集器，可以为null
+     * @return 命中数统计阈值
+     */
+    private int totalHitsThreshold(SearchRequest request, FacetCollector facetCollector) {
+        if (facetCollector != null) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, request.getTrackTotalHits());
+    }
+
+    /**
+     * 创建分组统计收集器
+     * 关键字字段按SortedDocValues统计词项，数值和日期字段按NumericDocValues统计词项或直方图
+     *
+     * @param request 搜索请求
+     * @return 分组统计收集器，请求中没有分组统计时返回null
+     */
+    private FacetCollector createFacetCollector(SearchRequest request) {
+        if (request.getFacets().isEmpty()) {
+            return null;
+        }
+
+        FacetCollector collector = new FacetCollector();
+        for (SearchRequest.Facet facet : request.getFacets()) {
+            String name = facet.getField();
+            if (name == null || facet.getType() == null) {
+                throw new IllegalArgumentException("Facet field and type cannot be null");
+            }
+            boolean histogram = facet.getType() == SearchRequest.Facet.FacetType.DATE_HISTOGRAM;
+            if (histogram && facet.getInterval() <= 0) {
+                throw new IllegalArgumentException("Date histogram interval must be positive: " + name);
+            }
+
+            if (name.equals(FIELD_TIMESTAMP)) {
+                if (histogram) {
+                    collector.addHistogram(name, FIELD_TIMESTAMP, facet.getInterval());
+                } else {
+                    collector.addNumericTerms(name, FIELD_TIMESTAMP, facet.getSize(), String::valueOf);
+                }
+                continue;
+            }
+            if (CORE_FIELDS.contains(name)) {
+                if (histogram || !DOC_VALUES_FIELDS.contains(name)) {
+                    throw new IllegalArgumentException("Unsupported facet on field: " + name);
+                }
+                collector.addSortedTerms(name, name, facet.getSize());
+                continue;
+            }
+
+            // 元数据字段按声明的类型读取doc values
+            String metaField = name.startsWith("meta_") ? name.substring("meta_".length()) : name;
+            String field = "meta_" + metaField;
+            MetadataType type = config.getMetadataType(metaField);
+            if (histogram) {
+                if (type != MetadataType.LONG && type != MetadataType.DATE) {
+                    throw new IllegalArgumentException("Date histogram requires a LONG or DATE metadata field: " + name);
+                }
+                collector.addHistogram(name, field, facet.getInterval());
+            } else if (type == MetadataType.KEYWORD) {
+                collector.addSortedTerms(name, field, facet.getSize());
+            } else if (type == MetadataType.DOUBLE) {
+                collector.addNumericTerms(name, field, facet.getSize(),
+                        bits -> String.valueOf(Double.longBitsToDouble(bits)));
+            } else {
+                collector.addNumericTerms(name, field, facet.getSize(), String::valueOf);
+            }
+        }
+        return collector;
+    }
+
+    /**
+     * 元数据类型对应的排序类型
+     */
+    private static SortField.Type toSortType(MetadataType type) {
+        switch (type) {
+            case LONG:
+            case DATE:
+                return SortField.Type.LONG;
+            case DOUBLE:
+                return SortField.Type.DOUBLE;
+            default:
+                return SortField.Type.STRING;
+        }
+    }
+
     /**
      * 创建搜索结果项
      *
      * @param doc Lucene文档
      * @param score 评分
      * @param request 搜索请求
+     * @param highlights 当前页的高亮结果
+     * @param index 文档在当前页中的位置
      * @return 搜索结果项
      */
-    private SearchResult.SearchHit createSearchHit(org.apache.lucene.document.Document doc, float score, SearchRequest request) {
+    private SearchResult.SearchHit createSearchHit(org.apache.lucene.document.Document doc, float score, SearchRequest request,
+                                                   Map<String, String[]> highlights, int index) {
         SearchResult.SearchHit hit = new SearchResult.SearchHit();
         
         // 安全获取字段值
@@ -1000,26 +2497,12 @@ public class SearchEngine implements AutoCloseable {
         hit.setTitle(title != null ? title : "");
         hit.setContent(content != null ? content : "");
         hit.setScore(score);
-        // 高亮处理
+        // 高亮处理：没有高亮片段时回退到原文
         if (request.isHighlight() && config.isHighlightEnabled()) {
-            try {
-                if (title != null && !title.isEmpty()) {
-                    hit.setHighlightedTitle(highlightText(title, request.getQuery()));
-                } else {
-                    hit.setHighlightedTitle("");
-                }
-                
-                if (content != null && !content.isEmpty()) {
-                    hit.setHighlightedContent(highlightText(content, request.getQuery()));
-                } else {
-                    hit.setHighlightedContent("");
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to highlight text for document: {}", id, e);
-                // 设置默认值
-                hit.setHighlightedTitle(title != null ? title : "");
-                hit.setHighlightedContent(content != null ? content : "");
-            }
+            String highlightedTitle = highlightAt(highlights, FIELD_TITLE, index);
+            String highlightedContent = highlightAt(highlights, FIELD_CONTENT, index);
+            hit.setHighlightedTitle(highlightedTitle != null ? highlightedTitle : hit.getTitle());
+            hit.setHighlightedContent(highlightedContent != null ? highlightedContent : hit.getContent());
         }
 
         // 提取元数据
@@ -1036,37 +2519,84 @@ public class SearchEngine implements AutoCloseable {
     }
 
     /**
-     * 高亮文本
+     * 批量高亮当前页的命中文档
+     * 基于实际执行的查询而非原始查询字符串，由UnifiedHighlighter一次处理整页结果，偏移量直接取自postings
      *
-     * @param text 原文本
-     * @param query 查询
-     * @return 高亮后的文本
+     * @param searcher 本次请求使用的搜索器
+     * @param query 实际执行的查询
+     * @param request 搜索请求
+     * @param docIds 当前页的文档ID
+     * @param storedFields 请求返回的字段，为null时表示全部字段
+     * @return 字段名到高亮文本数组的映射，数组与docIds一一对应；未启用高亮时返回空映射
      */
-    private String highlightText(String text, String query) {
-        if (text == null || text.isEmpty() || query == null || query.trim().isEmpty()) {
-            return text != null ? text : "";
+    private Map<String, String[]> highlightHits(IndexSearcher searcher, Query query, SearchRequest request, int[] docIds,
+                                                Set<String> storedFields) {
+        if (!request.isHighlight() || !config.isHighlightEnabled() || docIds.length == 0
+                || request.getQuery() == null || request.getQuery().trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // 只高亮请求返回的字段
+        List<String> fields = new ArrayList<>(2);
+        List<Integer> maxPassages = new ArrayList<>(2);
+        if (storedFields == null || storedFields.contains(FIELD_TITLE)) {
+            fields.add(FIELD_TITLE);
+            maxPassages.add(1);
+        }
+        if (storedFields == null || storedFields.contains(FIELD_CONTENT)) {
+            fields.add(FIELD_CONTENT);
+            maxPassages.add(Math.max(1, config.getHighlightMaxFragments()));
+        }
+        if (fields.isEmpty()) {
+            return Collections.emptyMap();
         }
 
         try {
-            Query highlightQuery = new TermQuery(new Term(FIELD_CONTENT, query.trim()));
-            QueryScorer queryScorer = new QueryScorer(highlightQuery, FIELD_CONTENT); // 指定字段
-            Highlighter highlighter = new Highlighter(
-                    new SimpleHTMLFormatter(config.getHighlightPreTag(), config.getHighlightPostTag()),
-                    queryScorer
-            );
-
-            highlighter.setTextFragmenter(
-                    new SimpleSpanFragmenter(queryScorer, config.getHighlightFragmentSize())
-            );
-
-            String highlighted = highlighter.getBestFragment(analyzer, FIELD_CONTENT, text);
-            return highlighted != null ? highlighted : text;
+            UnifiedHighlighter highlighter = createHighlighter(searcher);
+            return highlighter.highlightFields(
+                    fields.toArray(new String[0]),
+                    query,
+                    docIds,
+                    maxPassages.stream().mapToInt(Integer::intValue).toArray());
         } catch (Exception e) {
-            logger.warn("高亮失败: {}", text, e);
-            return text;
+            logger.warn("Failed to highlight hits for query: '{}'", request.getQuery(), e);
+            return Collections.emptyMap();
         }
     }
 
+    /**
+     * 创建高亮器
+     *
+     * @param searcher 当前搜索器
+     * @return 高亮器实例
+     */
+    private UnifiedHighlighter createHighlighter(IndexSearcher searcher) {
+        UnifiedHighlighter highlighter = new UnifiedHighlighter(searcher, analyzer) {
+            @Override
+            protected BreakIterator getBreakIterator(String field) {
+                // 标题整体作为一个片段，内容按句切分，片段长度取最接近配置值的句子边界
+                if (FIELD_TITLE.equals(field)) {
+                    return new WholeBreakIterator();
+                }
+                return LengthGoalBreakIterator.createClosestToLength(
+                        BreakIterator.getSentenceInstance(Locale.ROOT), config.getHighlightFragmentSize(),
+                        HIGHLIGHT_FRAGMENT_ALIGNMENT);
+            }
+        };
+        highlighter.setFormatter(new DefaultPassageFormatter(
+                config.getHighlightPreTag(), config.getHighlightPostTag(), "... ", false));
+        highlighter.setMaxLength(HIGHLIGHT_MAX_LENGTH);
+        return highlighter;
+    }
+
+    /**
+     * 获取指定位置的高亮文本
+     */
+    private static String highlightAt(Map<String, String[]> highlights, String field, int index) {
+        String[] values = highlights.get(field);
+        return values != null && index < values.length ? values[index] : null;
+    }
+
     /**
      * 删除文档
      *
@@ -1085,10 +2615,14 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 删除异常
      */
     public void deleteDocument(String id, String type) throws IOException {
-        indexWriter.deleteDocuments(new Term(FIELD_UID, uid(id, type)));
+        String uid = uid(id, type);
+        long location = writeAndLog(uid, Translog.Operation.deleteUid(id, type), () -> {
+            indexWriter.deleteDocuments(new Term(FIELD_UID, uid));
+            vectorIndex.delete(uid);
+        });
+        syncTranslog(location);
         if (!config.isAutoCommit()) {
-            indexWriter.commit();
-            refreshSearcher();
+            commitOrRefresh();
         }
     }
 
@@ -1100,13 +2634,15 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 删除异常
      */
     public void deleteDocuments(List<String> ids) throws IOException {
+        long location = -1;
         for (String id : ids) {
-            indexWriter.deleteDocuments(new Term(FIELD_ID, id));
+            location = writeAndLog(null, Translog.Operation.deleteId(id),
+                    () -> deleteWithVectors(new TermQuery(new Term(FIELD_ID, id))));
         }
+        syncTranslog(location);
 
         if (!config.isAutoCommit()) {
-            indexWriter.commit();
-            refreshSearcher();
+            commitOrRefresh();
         }
     }
 
@@ -1118,13 +2654,33 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 删除异常
      */
     public void deleteDocumentsByField(String field, String value) throws IOException {
-        String metaField = "meta_" + field;
-        indexWriter.deleteDocuments(new Term(metaField, value));
+        long location = writeAndLog(null, Translog.Operation.deleteByField(field, value),
+                () -> deleteWithVectors(createExactQuery(field, value)));
+        syncTranslog(location);
 
         if (!config.isAutoCommit()) {
-            indexWriter.commit();
-            refreshSearcher();
+            commitOrRefresh();
+        }
+    }
+
+    /**
+     * 按查询删除文档，同时删除这些文档在HNSW图中的向量
+     * 向量按主键存储，删除前先在包含未刷新写入的近实时读取器上查出匹配文档的主键
+     *
+     * @param query 删除条件
+     * @throws IOException 删除异常
+     */
+    private void deleteWithVectors(Query query) throws IOException {
+        if (vectorIndex.size() > 0) {
+            List<String> uids = new ArrayList<>();
+            try (DirectoryReader reader = DirectoryReader.open(indexWriter, true, false)) {
+                forEachUid(new IndexSearcher(reader), query, (uid, doc) -> uids.add(uid));
+            }
+            for (String uid : uids) {
+                vectorIndex.delete(uid);
+            }
         }
+        indexWriter.deleteDocuments(query);
     }
 
     /**
@@ -1133,8 +2689,15 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 清空异常
      */
     public void clearIndex() throws IOException {
-        indexWriter.deleteAll();
-        indexWriter.commit();
+        // 清空期间不允许其他写入，避免清空前的写入在清空后的日志中重放
+        writeOrderLock.writeLock().lock();
+        try {
+            indexWriter.deleteAll();
+            commitIndex();
+            vectorIndex.clear();
+        } finally {
+            writeOrderLock.writeLock().unlock();
+        }
         refreshSearcher();
     }
 
@@ -1145,7 +2708,7 @@ public class SearchEngine implements AutoCloseable {
      */
     public void optimizeIndex() throws IOException {
         indexWriter.forceMerge(1);
-        indexWriter.commit();
+        commitIndex();
         refreshSearcher();
     }
 
@@ -1156,7 +2719,49 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 获取异常
      */
     public IndexStats getIndexStats() throws IOException {
-        return new IndexStats(indexReader.numDocs(), indexReader.maxDoc());
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher == null) {
+            return new IndexStats(0, 0);
+        }
+        try {
+            IndexReader reader = searcher.getIndexReader();
+            return new IndexStats(reader.numDocs(), reader.maxDoc());
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * 获取引擎运行状态，用于指标采集
+     *
+     * @return 状态，包括numDocs、deletedDocs、segmentCount、ramBufferBytes、pendingMerges、mergingSegments、
+     *         refreshLagMillis（最早一次未刷新写入距今的时间）
+     */
+    public Map<String, Long> getEngineStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        try {
+            IndexSearcher searcher = acquireSearcher();
+            if (searcher != null) {
+                try {
+                    IndexReader reader = searcher.getIndexReader();
+                    stats.put("numDocs", (long) reader.numDocs());
+                    stats.put("deletedDocs", (long) reader.numDeletedDocs());
+                    stats.put("segmentCount", (long) reader.leaves().size());
+                } finally {
+                    releaseSearcher(searcher);
+                }
+            }
+        } catch (IOException | AlreadyClosedException e) {
+            logger.debug("Failed to read index stats: {}", e.getMessage());
+        }
+        if (indexWriter != null) {
+            stats.put("ramBufferBytes", indexWriter.ramBytesUsed());
+            stats.put("pendingMerges", indexWriter.hasPendingMerges() ? 1L : 0L);
+            stats.put("mergingSegments", (long) indexWriter.getMergingSegments().size());
+        }
+        long since = pendingRefreshSince;
+        stats.put("refreshLagMillis", since == 0 ? 0L : System.currentTimeMillis() - since);
+        return stats;
     }
 
     /**
@@ -1166,12 +2771,19 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 获取异常
      */
     public IndexHealthInfo getIndexHealthInfo() throws IOException {
-        if (indexReader == null) {
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher == null) {
             return new IndexHealthInfo(true, "Index is empty", 0, 0);
         }
 
-        int numDocs = indexReader.numDocs();
-        int maxDoc = indexReader.maxDoc();
+        int numDocs;
+        int maxDoc;
+        try {
+            numDocs = searcher.getIndexReader().numDocs();
+            maxDoc = searcher.getIndexReader().maxDoc();
+        } finally {
+            releaseSearcher(searcher);
+        }
         int deletedDocs = maxDoc - numDocs;
         double healthScore = numDocs > 0 ? (double) numDocs / maxDoc : 1.0;
 
@@ -1188,14 +2800,38 @@ public class SearchEngine implements AutoCloseable {
      * @throws IOException 检查异常
      */
     public boolean needsOptimization() throws IOException {
-        if (indexReader == null) {
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher == null) {
             return false;
         }
 
-        // 如果删除的文档数量超过总文档数的30%，建议优化
-        int numDocs = indexReader.numDocs();
-        int maxDoc = indexReader.maxDoc();
-        return maxDoc > 0 && (double) (maxDoc - numDocs) / maxDoc > 0.3;
+        try {
+            // 如果删除的文档数量超过总文档数的30%，建议优化
+            int numDocs = searcher.getIndexReader().numDocs();
+            int maxDoc = searcher.getIndexReader().maxDoc();
+            return maxDoc > 0 && (double) (maxDoc - numDocs) / maxDoc > 0.3;
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * 获取过滤条件缓存统计
+     *
+     * @return 缓存统计，未启用时为空
+     */
+    public Map<String, Long> getFilterCacheStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        if (filterCache == null) {
+            return stats;
+        }
+        stats.put("hitCount", filterCache.getHitCount());
+        stats.put("missCount", filterCache.getMissCount());
+        stats.put("cacheCount", filterCache.getCacheCount());
+        stats.put("cacheSize", filterCache.getCacheSize());
+        stats.put("evictionCount", filterCache.getEvictionCount());
+        stats.put("ramBytesUsed", filterCache.ramBytesUsed());
+        return stats;
     }
 
     /**
@@ -1238,9 +2874,11 @@ public class SearchEngine implements AutoCloseable {
         String cacheKey = query.toLowerCase().trim();
         List<String> cachedSuggestions = suggestionCache.get(cacheKey);
         if (cachedSuggestions != null) {
+            config.getMetrics().recordCache(SearchMetrics.Cache.SUGGESTION, SearchMetrics.CacheEvent.HIT, 1);
             logger.debug("Returning cached suggestions for query: {}", query);
             return new ArrayList<>(cachedSuggestions);
         }
+        config.getMetrics().recordCache(SearchMetrics.Cache.SUGGESTION, SearchMetrics.CacheEvent.MISS, 1);
 
         try {
             logger.debug("Looking up suggestions for query: '{}' with max results: {}", 
@@ -1288,20 +2926,43 @@ public class SearchEngine implements AutoCloseable {
 
     /**
      * 预热缓存（预加载热门查询）
+     * 解析查询放入查询缓存，并在当前搜索器上执行一次；启用预热时这些查询同时计入热门查询，用于之后的新段
      */
     public void warmupCache(List<String> popularQueries) {
         logger.info("Starting cache warmup with {} queries", popularQueries.size());
+        IndexSearcher searcher;
+        try {
+            searcher = acquireSearcher();
+        } catch (IOException e) {
+            logger.warn("Failed to acquire searcher for cache warmup: {}", e.getMessage());
+            searcher = null;
+        }
+        try {
+            warmupQueries(popularQueries, searcher);
+        } finally {
+            try {
+                releaseSearcher(searcher);
+            } catch (IOException e) {
+                logger.debug("Failed to release searcher after cache warmup", e);
+            }
+        }
+        logger.info("Cache warmup completed");
+    }
+
+    private void warmupQueries(List<String> popularQueries, IndexSearcher searcher) {
         for (String query : popularQueries) {
             try {
-                SearchRequest request = new SearchRequest(query);
-                String cacheKey = generateCacheKey(request);
-                Query luceneQuery = createQuery(request);
-                updateQueryCache(cacheKey, luceneQuery, request);
+                if (hotQueries != null) {
+                    hotQueries.record(query);
+                }
+                Query luceneQuery = parseQuery(new SearchRequest(query));
+                if (searcher != null) {
+                    searcher.search(luceneQuery, WARMUP_HITS);
+                }
             } catch (Exception e) {
                 logger.warn("Failed to warmup cache for query: {}", query, e);
             }
         }
-        logger.info("Cache warmup completed");
     }
 
     /**
@@ -1314,17 +2975,25 @@ public class SearchEngine implements AutoCloseable {
         logger.info("最大结果数: {}, 最小评分: {}", request.getMaxResults(), request.getMinScore());
         logger.info("过滤条件: {}", request.getFilters());
         
-        if (indexSearcher == null) {
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher == null) {
             logger.info("搜索器为空，索引可能为空");
             return;
         }
-        
+        try {
+            debugSearch(request, searcher);
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    private void debugSearch(SearchRequest request, IndexSearcher searcher) throws IOException {
         // 创建查询
         Query query = createQuery(request);
         logger.info("创建的查询: {}", query);
         
         // 执行搜索
-        TopDocs topDocs = indexSearcher.search(query, request.getMaxResults());
+        TopDocs topDocs = searcher.search(query, request.getMaxResults());
         logger.info("搜索结果: totalHits={}, scoreDocs.length={}", 
                    topDocs.totalHits.value, topDocs.scoreDocs.length);
         
@@ -1360,13 +3029,13 @@ public class SearchEngine implements AutoCloseable {
                 indexWriter = null;
             }
             
-            if (indexReader != null) {
+            if (searcherManager != null) {
                 try {
-                    indexReader.close();
+                    searcherManager.close();
                 } catch (Exception e) {
-                    logger.debug("Error closing corrupted indexReader", e);
+                    logger.debug("Error closing corrupted searcherManager", e);
                 }
-                indexReader = null;
+                searcherManager = null;
             }
             
             // 删除所有索引文件
@@ -1398,7 +3067,10 @@ public class SearchEngine implements AutoCloseable {
             return;
         }
         
+        IndexSearcher searcher = null;
         try {
+            searcher = acquireSearcher();
+            IndexReader indexReader = searcher == null ? null : searcher.getIndexReader();
             // 从索引中读取所有文档来重建建议器
             if (indexReader != null && indexReader.numDocs() > 0) {
                 // 创建文档迭代器
@@ -1491,6 +3163,12 @@ public class SearchEngine implements AutoCloseable {
             }
         } catch (Exception e) {
             logger.warn("Failed to rebuild suggester", e);
+        } finally {
+            try {
+                releaseSearcher(searcher);
+            } catch (IOException e) {
+                logger.debug("Failed to release searcher after suggester rebuild", e);
+            }
         }
     }
 
@@ -1500,13 +3178,18 @@ public class SearchEngine implements AutoCloseable {
     public void diagnoseIndex() throws IOException {
         logger.info("=== 索引诊断信息 ===");
         
-        if (indexReader == null) {
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher == null) {
             logger.info("索引读取器为空");
             return;
         }
         
-        logger.info("索引统计: numDocs={}, maxDoc={}", 
-                   indexReader.numDocs(), indexReader.maxDoc());
+        try {
+            logger.info("索引统计: numDocs={}, maxDoc={}", 
+                       searcher.getIndexReader().numDocs(), searcher.getIndexReader().maxDoc());
+        } finally {
+            releaseSearcher(searcher);
+        }
         
         logger.info("=== 索引诊断结束 ===");
     }
@@ -1516,6 +3199,13 @@ public class SearchEngine implements AutoCloseable {
      */
     @Override
     public void close() throws IOException {
+        if (commitTask != null) {
+            commitTask.cancel(false);
+            // 共享线程池不随本索引关闭，等待正在执行的一次提交结束
+            synchronized (commitTaskLock) {
+                commitTask = null;
+            }
+        }
         if (commitExecutor != null) {
             commitExecutor.shutdown();
             try {
@@ -1528,13 +3218,22 @@ public class SearchEngine implements AutoCloseable {
             }
         }
 
+        if (hotQueries != null) {
+            hotQueries.save();
+        }
+
         if (indexWriter != null) {
-            indexWriter.commit();
+            commitIndex();
             indexWriter.close();
         }
 
-        if (indexReader != null) {
-            indexReader.close();
+        if (translog != null) {
+            translog.close();
+        }
+
+        if (searcherManager != null) {
+            // 只释放管理器持有的引用，仍在执行的请求释放后读取器才关闭
+            searcherManager.close();
         }
 
         if (suggester != null) {
@@ -1549,10 +3248,50 @@ public class SearchEngine implements AutoCloseable {
             analyzer.close();
         }
 
+        if (searchAnalyzer != null) {
+            searchAnalyzer.close();
+        }
+
+        if (chineseDictionary != null) {
+            chineseDictionary.close();
+        }
+
         // 清理缓存
         queryCache.clear();
         suggestionCache.clear();
 
         logger.info("SearchEngine closed");
     }
+
+    /**
+     * 合并搜索的键：请求参数完全相同且基于同一个读取器时结果相同，刷新后的新读取器开始新的一轮
+     */
+    private static final class InFlightKey {
+        private final SearchRequest request;
+        private final IndexReader reader;
+        private final int hash;
+
+        InFlightKey(SearchRequest request, IndexReader reader) {
+            this.request = request;
+            this.reader = reader;
+            this.hash = 31 * request.hashCode() + System.identityHashCode(reader);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof InFlightKey)) {
+                return false;
+            }
+            InFlightKey other = (InFlightKey) o;
+            return reader == other.reader && request.equals(other.request);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.lingecho.common.core.search.core;
+
+/**
+ * 搜索引擎的指标回调
+ * 引擎在各阶段结束和缓存访问时调用，由使用方对接到Micrometer等指标系统；默认实现什么也不做。
+ * 回调在搜索线程上同步执行，实现需要线程安全且足够轻量。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public interface SearchMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    SearchMetrics NOOP = new SearchMetrics() {
+    };
+
+    /**
+     * 搜索阶段
+     */
+    enum Phase {
+        // 解析查询（含查询缓存查找）
+        PARSE,
+        // 检索和收集命中、分组统计
+        SEARCH,
+        // 加载存储字段
+        FETCH,
+        // 高亮
+        HIGHLIGHT
+    }
+
+    /**
+     * 缓存
+     */
+    enum Cache {
+        QUERY, SUGGESTION
+    }
+
+    /**
+     * 缓存事件
+     */
+    enum CacheEvent {
+        HIT, MISS, EVICTION
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     *
+     * @param phase 阶段
+     * @param nanos 耗时（纳秒）
+     */
+    default void recordPhase(Phase phase, long nanos) {
+    }
+
+    /**
+     * 记录缓存事件
+     *
+     * @param cache 缓存
+     * @param event 事件
+     * @param count 事件数，淘汰时为淘汰的条目数
+     */
+    default void recordCache(Cache cache, CacheEvent event, long count) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.lingecho.common.core.search.core;
+
+import lombok.Getter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 搜索子系统过载时拒绝请求
+ * 携带建议的重试等待时间，调用方可以据此返回429和Retry-After
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+@Getter
+public class SearchRejectedException extends RejectedExecutionException {
+
+    /**
+     * 被拒绝请求所属的操作类型
+     */
+    private final AdmissionController.Pool pool;
+
+    /**
+     * 建议的重试等待时间（毫秒）
+     */
+    private final long retryAfterMillis;
+
+    public SearchRejectedException(AdmissionController.Pool pool, long retryAfterMillis, String message) {
+        super(message);
+        this.pool = pool;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
@@ -0,0 +1,181 @@
+package com.lingecho.common.core.search.core;
+
+import com.lingecho.common.core.search.model.SearchProfile;
+import com.lingecho.common.core.search.model.SearchRequest;
+import com.lingecho.common.core.search.model.SearchResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 多个索引的搜索结果合并
+ * 与Lucene的TopDocs.merge一致：各索引分别返回前(offset+pageSize)条，按排序值（或得分）归并后截取请求的页；
+ * 排序相同时按索引顺序、再按索引内排名决定先后，保证结果稳定。
+ * 各索引的BM25得分基于各自的词频统计，按相关度合并时得分只是近似可比。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public final class SearchResultMerger {
+
+    private SearchResultMerger() {
+    }
+
+    /**
+     * 生成发往单个索引的请求：从第一页开始取足合并所需的条数，词项统计多取一些分组以减小合并误差
+     *
+     * @param request 原始请求
+     * @return 单个索引的请求
+     */
+    public static SearchRequest shardRequest(SearchRequest request) {
+        SearchRequest shardRequest = request.copy();
+        shardRequest.setPage(1);
+        shardRequest.setPageSize(Math.max(0, request.getOffset()) + request.getPageSize());
+        if (!request.getFacets().isEmpty()) {
+            List<SearchRequest.Facet> facets = new ArrayList<>(request.getFacets().size());
+            for (SearchRequest.Facet facet : request.getFacets()) {
+                if (facet.getType() == SearchRequest.Facet.FacetType.TERMS && facet.getSize() > 0) {
+                    facets.add(new SearchRequest.Facet(facet.getField(), facet.getType(),
+                            facet.getSize() * 3 / 2 + 10, facet.getInterval()));
+                } else {
+                    facets.add(facet);
+                }
+            }
+            shardRequest.setFacets(facets);
+        }
+        return shardRequest;
+    }
+
+    /**
+     * 合并各索引的结果
+     *
+     * @param request 原始请求
+     * @param results 各索引的结果，顺序决定同分时的先后
+     * @return 合并后的结果
+     */
+    public static SearchResult merge(SearchRequest request, List<SearchResult> results) {
+        SearchResult merged = new SearchResult(request.getQuery(), 0);
+        merged.setPage(request.getPage());
+        merged.setPageSize(request.getPageSize());
+
+        long totalHits = 0;
+        boolean exact = true;
+        boolean timedOut = false;
+        long searchTime = 0;
+        List<SearchResult.SearchHit> hits = new ArrayList<>();
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (SearchResult result : results) {
+            totalHits += result.getTotalHits();
+            exact &= result.isTotalHitsExact();
+            timedOut |= result.isTimedOut();
+            searchTime = Math.max(searchTime, result.getSearchTime());
+            hits.addAll(result.getHits());
+            suggestions.addAll(result.getSuggestions());
+        }
+        merged.setTotalHits(totalHits);
+        merged.setTotalHitsExact(exact);
+        merged.setTimedOut(timedOut);
+        merged.setSearchTime(searchTime);
+        merged.setSuggestions(new ArrayList<>(suggestions));
+
+        // List.sort是稳定排序，同分的命中保持索引顺序和索引内排名
+        hits.sort(hitComparator(request));
+        int start = Math.min(Math.max(0, request.getOffset()), hits.size());
+        int end = Math.min(start + request.getPageSize(), hits.size());
+        merged.setHits(hits.subList(start, end));
+
+        if (!request.getFacets().isEmpty()) {
+            merged.setFacets(mergeFacets(request, results));
+        }
+        if (request.isProfile()) {
+            SearchProfile profile = new SearchProfile();
+            for (SearchResult result : results) {
+                if (result.getProfile() != null) {
+                    profile.getShards().add(result.getProfile());
+                    profile.setDocsCollected(profile.getDocsCollected() + result.getProfile().getDocsCollected());
+                    profile.setStoredFieldBytes(profile.getStoredFieldBytes() + result.getProfile().getStoredFieldBytes());
+                }
+            }
+            merged.setProfile(profile);
+        }
+        return merged;
+    }
+
+    /**
+     * 命中排序：有排序值时按请求的排序字段依次比较，否则按得分降序
+     */
+    private static Comparator<SearchResult.SearchHit> hitComparator(SearchRequest request) {
+        List<SearchRequest.SortField> sortFields = request.getSortFields();
+        Comparator<SearchResult.SearchHit> byScore = (a, b) -> Float.compare(b.getScore(), a.getScore());
+        if (sortFields.isEmpty() || request.getVector() != null) {
+            return byScore;
+        }
+        return (a, b) -> {
+            Object[] left = a.getSortValues();
+            Object[] right = b.getSortValues();
+            if (left == null || right == null) {
+                return byScore.compare(a, b);
+            }
+            for (int i = 0; i < sortFields.size() && i < left.length && i < right.length; i++) {
+                int cmp = compareValues(left[i], right[i]);
+                if (cmp != 0) {
+                    // 缺失值始终排在最后
+                    boolean missing = left[i] == null || right[i] == null;
+                    boolean reverse = sortFields.get(i).getOrder() == SearchRequest.SortField.SortOrder.DESC;
+                    return reverse && !missing ? -cmp : cmp;
+                }
+            }
+            return 0;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right ? 0 : (left == null ? 1 : -1);
+        }
+        if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left instanceof Comparable && left.getClass() == right.getClass()) {
+            return ((Comparable) left).compareTo(right);
+        }
+        return String.valueOf(left).compareTo(String.valueOf(right));
+    }
+
+    /**
+     * 合并分组统计：词项统计按键累加后取前N个，直方图按区间累加后按区间起点排序
+     */
+    private static Map<String, List<SearchResult.FacetBucket>> mergeFacets(SearchRequest request, List<SearchResult> results) {
+        Map<String, List<SearchResult.FacetBucket>> merged = new LinkedHashMap<>();
+        for (SearchRequest.Facet facet : request.getFacets()) {
+            String name = facet.getField();
+            boolean histogram = facet.getType() == SearchRequest.Facet.FacetType.DATE_HISTOGRAM;
+            Map<String, Long> counts = histogram ? new TreeMap<>(Comparator.comparingLong(Long::parseLong)) : new HashMap<>();
+            for (SearchResult result : results) {
+                for (SearchResult.FacetBucket bucket : result.getFacet(name)) {
+                    counts.merge(bucket.getKey(), bucket.getCount(), Long::sum);
+                }
+            }
+            List<SearchResult.FacetBucket> buckets = new ArrayList<>(counts.size());
+            counts.forEach((key, count) -> buckets.add(new SearchResult.FacetBucket(key, count)));
+            if (!histogram) {
+                buckets.sort(Comparator.comparingLong(SearchResult.FacetBucket::getCount).reversed()
+                        .thenComparing(SearchResult.FacetBucket::getKey));
+                if (facet.getSize() > 0 && buckets.size() > facet.getSize()) {
+                    merged.put(name, new ArrayList<>(buckets.subList(0, facet.getSize())));
+                    continue;
+                }
+            }
+            merged.put(name, buckets);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,163 @@
+package com.lingecho.common.core.search.core;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 子串查询
+ * 在N元组子字段上对查询串的所有N元组做交集得到候选文档，再用原字段的doc values校验是否真正包含，
+ * 避免"*value*"通配符查询枚举整个词典
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+final class SubstringQuery extends Query {
+
+    // 原字段（带SortedDocValues），用于精确校验
+    private final String field;
+
+    // N元组子字段
+    private final String ngramField;
+
+    // 查询子串
+    private final String value;
+
+    // 索引时的最大N元组长度
+    private final int gramSize;
+
+    /**
+     * 创建子串查询
+     *
+     * @param field 原字段
+     * @param ngramField N元组子字段
+     * @param value 查询子串
+     * @param gramSize 索引时的最大N元组长度
+     */
+    SubstringQuery(String field, String ngramField, String value, int gramSize) {
+        this.field = Objects.requireNonNull(field);
+        this.ngramField = Objects.requireNonNull(ngramField);
+        this.value = Objects.requireNonNull(value);
+        this.gramSize = gramSize;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        if (value.isEmpty()) {
+            return new MatchAllDocsQuery();
+        }
+        // 不超过N元组长度的子串本身就是一个词项，无需校验
+        if (value.codePointCount(0, value.length()) <= gramSize) {
+            return new ConstantScoreQuery(new TermQuery(new Term(ngramField, value)));
+        }
+        return super.rewrite(reader);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        Query approximationQuery = searcher.rewrite(createApproximationQuery());
+        Weight approximationWeight = searcher.createWeight(approximationQuery, ScoreMode.COMPLETE_NO_SCORES, 1f);
+        BytesRef needle = new BytesRef(value);
+
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                Scorer approximation = approximationWeight.scorer(context);
+                if (approximation == null) {
+                    return null;
+                }
+                SortedDocValues values = DocValues.getSorted(context.reader(), field);
+                TwoPhaseIterator iterator = new TwoPhaseIterator(approximation.iterator()) {
+                    @Override
+                    public boolean matches() throws IOException {
+                        if (!values.advanceExact(approximation.docID())) {
+                            return false;
+                        }
+                        return contains(values.lookupOrd(values.ordValue()), needle);
+                    }
+
+                    @Override
+                    public float matchCost() {
+                        return needle.length;
+                    }
+                };
+                return new ConstantScoreScorer(this, score(), scoreMode, iterator);
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext context) {
+                return DocValues.isCacheable(context, field) && approximationWeight.isCacheable(context);
+            }
+        };
+    }
+
+    /**
+     * 创建候选查询：查询串所有N元组的交集
+     */
+    private Query createApproximationQuery() {
+        Set<String> grams = new LinkedHashSet<>();
+        int[] codePoints = value.codePoints().toArray();
+        for (int i = 0; i + gramSize <= codePoints.length; i++) {
+            grams.add(new String(codePoints, i, gramSize));
+        }
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String gram : grams) {
+            builder.add(new TermQuery(new Term(ngramField, gram)), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 判断UTF-8字节序列是否包含另一个字节序列
+     */
+    private static boolean contains(BytesRef text, BytesRef needle) {
+        int last = text.offset + text.length - needle.length;
+        outer:
+        for (int i = text.offset; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (text.bytes[i + j] != needle.bytes[needle.offset + j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String defaultField) {
+        return (field.equals(defaultField) ? "" : field + ":") + "*" + value + "*";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!sameClassAs(other)) {
+            return false;
+        }
+        SubstringQuery that = (SubstringQuery) other;
+        return field.equals(that.field) && ngramField.equals(that.ngramField)
+                && value.equals(that.value) && gramSize == that.gramSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, ngramField, value, gramSize);
+    }
+}
@@ -0,0 +1,417 @@
+package com.lingecho.common.core.search.core;
+
+import com.lingecho.common.core.search.model.Document;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 索引操作的预写日志（事务日志）
+ * 写入操作先应用到IndexWriter再追加到日志，返回前按位置同步到磁盘；并发写入的同步请求合并为一次fsync（组提交）。
+ * 日志按代分文件，Lucene提交前切换到新的一代并把代号写入提交数据，提交成功后删除更早的代；
+ * 启动时从最后一次提交记录的代开始重放，未提交的写入不会丢失。
+ * 每条记录为[长度][CRC32][内容]，崩溃时写了一半的尾部记录在重放时被丢弃。
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+final class Translog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(Translog.class);
+
+    /**
+     * Lucene提交数据中记录事务日志代号的键
+     */
+    static final String COMMIT_GENERATION_KEY = "translog_generation";
+
+    private static final Pattern FILE_PATTERN = Pattern.compile("translog-(\\d+)\\.tlog");
+    private static final int MAGIC = 0x544C4F47;
+    private static final int MAX_RECORD_SIZE = 256 * 1024 * 1024;
+
+    private final Path dir;
+    // 组提交：同步锁保证同时只有一个线程fsync，其余线程等待后检查自己的位置是否已被覆盖
+    private final Object syncLock = new Object();
+
+    @Getter
+    private long generation;
+    private FileChannel channel;
+    private OutputStream out;
+    // 累计写入和已同步的字节位置，跨代单调递增
+    private long written;
+    private volatile long synced;
+    // 当前代之前未删除的各代文件大小
+    private final TreeMap<Long, Long> retainedSizes = new TreeMap<>();
+    private long currentSize;
+
+    private Translog(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 打开事务日志并读出需要重放的操作
+     *
+     * @param dir 日志目录
+     * @param committedGeneration 最后一次Lucene提交记录的代号，没有记录时为0
+     * @param replay 按写入顺序接收需要重放的操作
+     * @return 事务日志，写入从新的一代开始
+     * @throws IOException 读写异常
+     */
+    static Translog open(Path dir, long committedGeneration, OperationConsumer replay) throws IOException {
+        Files.createDirectories(dir);
+        Translog translog = new Translog(dir);
+        TreeMap<Long, Path> files = translog.listGenerations();
+        long maxGeneration = committedGeneration;
+        for (Map.Entry<Long, Path> entry : files.entrySet()) {
+            long gen = entry.getKey();
+            maxGeneration = Math.max(maxGeneration, gen);
+            if (gen < committedGeneration) {
+                Files.deleteIfExists(entry.getValue());
+                continue;
+            }
+            int count = readGeneration(entry.getValue(), replay);
+            translog.retainedSizes.put(gen, Files.size(entry.getValue()));
+            logger.info("Read {} operations from translog generation {}", count, gen);
+        }
+        translog.startGeneration(maxGeneration + 1);
+        return translog;
+    }
+
+    /**
+     * 追加操作（写入缓冲区，未同步）
+     *
+     * @param operation 操作
+     * @return 操作结束的位置，传给sync保证持久化
+     * @throws IOException 写入异常
+     */
+    synchronized long add(Operation operation) throws IOException {
+        byte[] payload = operation.encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(payload.length);
+        data.writeInt((int) crc.getValue());
+        data.write(payload);
+        long length = 8L + payload.length;
+        written += length;
+        currentSize += length;
+        return written;
+    }
+
+    /**
+     * 确保位置之前的操作已写入磁盘
+     *
+     * @param location add返回的位置
+     * @throws IOException 同步异常
+     */
+    void sync(long location) throws IOException {
+        if (synced >= location) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= location) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                out.flush();
+                target = written;
+                current = channel;
+            }
+            // fsync期间其他线程可以继续追加，它们的位置由下一次同步覆盖
+            current.force(false);
+            synced = target;
+        }
+    }
+
+    /**
+     * 切换到新的一代，当前代同步后关闭
+     *
+     * @return 新的代号
+     * @throws IOException 读写异常
+     */
+    long rollGeneration() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                closeCurrent();
+                retainedSizes.put(generation, currentSize);
+                startGeneration(generation + 1);
+                return generation;
+            }
+        }
+    }
+
+    /**
+     * 删除代号小于指定值的日志文件（这些操作已包含在Lucene提交中）
+     *
+     * @param minGeneration 需要保留的最小代号
+     * @throws IOException 删除异常
+     */
+    synchronized void trimBelow(long minGeneration) throws IOException {
+        for (Map.Entry<Long, Path> entry : listGenerations().headMap(minGeneration).entrySet()) {
+            Files.deleteIfExists(entry.getValue());
+        }
+        retainedSizes.headMap(minGeneration).clear();
+    }
+
+    /**
+     * 未提交到Lucene的日志大小
+     */
+    synchronized long sizeInBytes() {
+        long size = currentSize;
+        for (long retained : retainedSizes.values()) {
+            size += retained;
+        }
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (channel != null) {
+                    closeCurrent();
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    private void startGeneration(long gen) throws IOException {
+        Path file = dir.resolve("translog-" + gen + ".tlog");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeLong(gen);
+        out.flush();
+        channel.force(true);
+        generation = gen;
+        currentSize = 12;
+    }
+
+    private void closeCurrent() throws IOException {
+        out.flush();
+        channel.force(false);
+        channel.close();
+        synced = written;
+    }
+
+    private TreeMap<Long, Path> listGenerations() throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(dir)) {
+            paths.forEach(path -> {
+                Matcher matcher = FILE_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), path);
+                }
+            });
+        }
+        return files;
+    }
+
+    /**
+     * 读出一代日志中的全部完整记录，遇到不完整或校验失败的记录时停止
+     */
+    private static int readGeneration(Path file, OperationConsumer replay) throws IOException {
+        int count = 0;
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024))) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a translog file: " + file);
+            }
+            data.readLong();
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                Operation operation;
+                try {
+                    int checksum = data.readInt();
+                    if (length < 0 || length > MAX_RECORD_SIZE) {
+                        throw new IOException("Invalid record length " + length);
+                    }
+                    byte[] payload = new byte[length];
+                    data.readFully(payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        throw new IOException("Checksum mismatch");
+                    }
+                    operation = Operation.decode(payload);
+                } catch (IOException e) {
+                    logger.warn("Discarding incomplete translog tail in {} after {} operations: {}", file, count, e.getMessage());
+                    break;
+                }
+                replay.accept(operation);
+                count++;
+            }
+        } catch (EOFException e) {
+            logger.warn("Translog file {} has an incomplete header, ignored", file);
+        }
+        return count;
+    }
+
+    /**
+     * 日志中的一次索引操作
+     */
+    @Getter
+    static final class Operation {
+
+        enum Type {
+            UPSERT, DELETE_UID, DELETE_ID, DELETE_BY_FIELD
+        }
+
+        private final Type type;
+        private final Document document;
+        // DELETE_UID为文档ID和类型，DELETE_ID为文档ID，DELETE_BY_FIELD为字段名和值
+        private final String key;
+        private final String value;
+
+        private Operation(Type type, Document document, String key, String value) {
+            this.type = type;
+            this.document = document;
+            this.key = key;
+            this.value = value;
+        }
+
+        static Operation upsert(Document document) {
+            return new Operation(Type.UPSERT, document, null, null);
+        }
+
+        static Operation deleteUid(String id, String type) {
+            return new Operation(Type.DELETE_UID, null, id, type);
+        }
+
+        static Operation deleteId(String id) {
+            return new Operation(Type.DELETE_ID, null, id, null);
+        }
+
+        static Operation deleteByField(String field, String value) {
+            return new Operation(Type.DELETE_BY_FIELD, null, field, value);
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type.ordinal());
+            if (type == Type.UPSERT) {
+                writeString(out, document.getId());
+                writeString(out, document.getType());
+                writeString(out, document.getTitle());
+                writeString(out, document.getContent());
+                out.writeLong(document.getTimestamp());
+                Map<String, String> metadata = document.getMetadata();
+                out.writeInt(metadata != null ? metadata.size() : -1);
+                if (metadata != null) {
+                    for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                        writeString(out, entry.getKey());
+                        writeString(out, entry.getValue());
+                    }
+                }
+                float[] vector = document.getVector();
+                out.writeInt(vector != null ? vector.length : -1);
+                if (vector != null) {
+                    for (float v : vector) {
+                        out.writeFloat(v);
+                    }
+                }
+            } else {
+                writeString(out, key);
+                writeString(out, value);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        static Operation decode(byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= Type.values().length) {
+                throw new IOException("Unknown translog operation " + ordinal);
+            }
+            Type type = Type.values()[ordinal];
+            if (type != Type.UPSERT) {
+                return new Operation(type, null, readString(in), readString(in));
+            }
+            Document document = new Document(readString(in), readString(in), readString(in), readString(in));
+            document.setTimestamp(in.readLong());
+            int metadataSize = in.readInt();
+            Map<String, String> metadata = null;
+            if (metadataSize >= 0) {
+                metadata = new HashMap<>(metadataSize * 2);
+                for (int i = 0; i < metadataSize; i++) {
+                    metadata.put(readString(in), readString(in));
+                }
+            }
+            document.setMetadata(metadata);
+            int dimension = in.readInt();
+            if (dimension >= 0) {
+                float[] vector = new float[dimension];
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = in.readFloat();
+                }
+                document.setVector(vector);
+            }
+            return new Operation(type, document, null, null);
+        }
+
+        // 内容可能超过writeUTF的64KB上限，按UTF-8字节数组写入，-1表示null
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 接收重放的操作
+     */
+    @FunctionalInterface
+    interface OperationConsumer {
+        void accept(Operation operation) throws IOException;
+    }
+}
@@ -0,0 +1,250 @@
+package com.lingecho.common.core.search.core;
+
+import com.lingecho.common.core.search.vector.FloatVectorStore;
+import com.lingecho.common.core.search.vector.HnswGraph;
+import com.lingecho.common.core.search.vector.ScoredNode;
+import com.lingecho.common.core.search.vector.VectorSimilarity;
+import lombok.Data;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文档向量的HNSW索引
+ * 以文档主键（type#id）标识向量；更新和删除只做标记，已删除的节点仍参与图导航，
+ * 标记删除的节点超过存活节点时重建图
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+class VectorIndex {
+
+    // 触发重建的最少已删除节点数
+    private static final int MIN_DELETED_FOR_REBUILD = 1000;
+
+    private static final long GRAPH_SEED = 42L;
+
+    private final VectorSimilarity similarity;
+
+    private final int maxConnections;
+
+    private final int beamWidth;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 向量维度，0表示尚未确定
+    private int dimension;
+
+    private FloatVectorStore vectors;
+
+    private HnswGraph graph;
+
+    private final Map<String, Integer> nodeByUid = new HashMap<>();
+
+    private final List<String> uidByNode = new ArrayList<>();
+
+    private final BitSet deleted = new BitSet();
+
+    /**
+     * 创建向量索引
+     *
+     * @param similarity 相似度
+     * @param dimension 向量维度，0表示由第一个写入的向量决定
+     * @param maxConnections HNSW每层最大连接数
+     * @param beamWidth HNSW构建时的候选队列大小
+     */
+    VectorIndex(VectorSimilarity similarity, int dimension, int maxConnections, int beamWidth) {
+        this.similarity = similarity;
+        this.dimension = Math.max(0, dimension);
+        this.maxConnections = maxConnections;
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * 校验向量维度
+     *
+     * @param vector 向量
+     */
+    void checkDimension(float[] vector) {
+        if (vector.length == 0) {
+            throw new IllegalArgumentException("Vector cannot be empty");
+        }
+        int expected = dimension;
+        if (expected > 0 && vector.length != expected) {
+            throw new IllegalArgumentException("Vector dimension mismatch: expected " + expected + " but got " + vector.length);
+        }
+    }
+
+    /**
+     * 添加或替换文档向量
+     *
+     * @param uid 文档主键
+     * @param vector 向量
+     */
+    void add(String uid, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            checkDimension(vector);
+            if (graph == null) {
+                dimension = vector.length;
+                vectors = new FloatVectorStore(similarity, dimension);
+                graph = new HnswGraph(vectors, maxConnections, beamWidth, GRAPH_SEED);
+            }
+            markDeleted(uid);
+            int node = vectors.add(vector);
+            graph.addNode(node);
+            nodeByUid.put(uid, node);
+            uidByNode.add(uid);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档向量
+     *
+     * @param uid 文档主键
+     */
+    void delete(String uid) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(uid);
+            int deletedCount = deleted.cardinality();
+            if (deletedCount >= MIN_DELETED_FOR_REBUILD && deletedCount > nodeByUid.size()) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空向量索引
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            vectors = null;
+            graph = null;
+            nodeByUid.clear();
+            uidByNode.clear();
+            deleted.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索最相似的文档
+     *
+     * @param query 查询向量
+     * @param k 返回数量
+     * @param ef 检索时的候选队列大小
+     * @return 按相似度降序排列的结果
+     */
+    List<Hit> search(float[] query, int k, int ef) {
+        checkDimension(query);
+        lock.readLock().lock();
+        try {
+            if (graph == null) {
+                return Collections.emptyList();
+            }
+            List<ScoredNode> nodes = graph.search(similarity.prepare(query), k, ef, node -> !deleted.get(node));
+            List<Hit> hits = new ArrayList<>(nodes.size());
+            for (ScoredNode node : nodes) {
+                hits.add(new Hit(uidByNode.get(node.getNode()), node.getScore()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取存活的向量数量
+     *
+     * @return 向量数量
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByUid.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markDeleted(String uid) {
+        Integer old = nodeByUid.remove(uid);
+        if (old != null) {
+            deleted.set(old);
+        }
+    }
+
+    /**
+     * 只用存活节点重建图
+     */
+    private void rebuild() {
+        FloatVectorStore oldVectors = vectors;
+        List<String> oldUids = new ArrayList<>(uidByNode);
+        BitSet oldDeleted = (BitSet) deleted.clone();
+
+        vectors = new FloatVectorStore(similarity, dimension);
+        graph = new HnswGraph(vectors, maxConnections, beamWidth, GRAPH_SEED);
+        nodeByUid.clear();
+        uidByNode.clear();
+        deleted.clear();
+        for (int node = 0; node < oldUids.size(); node++) {
+            if (oldDeleted.get(node)) {
+                continue;
+            }
+            // 存储中的向量已经预处理过，再次预处理结果不变
+            int newNode = vectors.add(oldVectors.get(node));
+            graph.addNode(newNode);
+            nodeByUid.put(oldUids.get(node), newNode);
+            uidByNode.add(oldUids.get(node));
+        }
+    }
+
+    /**
+     * 将向量编码为doc values字节（小端浮点数组）
+     *
+     * @param vector 向量
+     * @return 字节
+     */
+    static BytesRef encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return new BytesRef(buffer.array());
+    }
+
+    /**
+     * 从doc values字节解码向量
+     *
+     * @param bytes 字节
+     * @return 向量
+     */
+    static float[] decode(BytesRef bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length).order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * 向量检索结果
+     */
+    @Data
+    static class Hit {
+        private final String uid;
+        private final float score;
+    }
+}
@@ -43,6 +43,11 @@ public class Document {
      * 文档创建时间戳
      */
     private long timestamp;
+
+    /**
+     * 稠密向量（可选，用于向量检索和混合检索）
+     */
+    private float[] vector;
     
     /**
      * 默认构造函数 - 用于 Jackson 反序列化
@@ -122,6 +127,11 @@ public class Document {
         this.timestamp = timestamp;
         return this;
     }
+
+    public Document setVector(float[] vector) {
+        this.vector = vector;
+        return this;
+    }
     
     /**
      * 添加元数据
@@ -165,6 +175,7 @@ public class Document {
                 ", contentLength=" + (content != null ? content.length() : 0) +
                 ", metadataSize=" + metadata.size() +
                 ", timestamp=" + timestamp +
+                ", vectorDimension=" + (vector != null ? vector.length : 0) +
                 '}';
     }
     
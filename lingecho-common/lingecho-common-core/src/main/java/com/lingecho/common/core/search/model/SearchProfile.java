@@ -0,0 +1,134 @@
+package com.lingecho.common.core.search.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索性能剖析结果
+ * 请求设置profile=true时返回，各阶段耗时单位为纳秒
+ *
+ * @author heathcetide
+ */
+@Data
+public class SearchProfile {
+
+    /**
+     * 改写后实际执行的查询
+     */
+    private String query;
+
+    /**
+     * 解析查询耗时（含查询缓存查找）
+     */
+    private long parseNanos;
+
+    /**
+     * 查询改写耗时（通配符等多词项查询在此展开）
+     */
+    private long rewriteNanos;
+
+    /**
+     * 创建Weight耗时（词项统计在此读取）
+     */
+    private long createWeightNanos;
+
+    /**
+     * 向量检索耗时
+     */
+    private long vectorSearchNanos;
+
+    /**
+     * 收集到的文档数
+     */
+    private long docsCollected;
+
+    /**
+     * 加载存储字段耗时
+     */
+    private long fetchNanos;
+
+    /**
+     * 读取的存储字段字节数（doc values字段不计）
+     */
+    private long storedFieldBytes;
+
+    /**
+     * 高亮耗时
+     */
+    private long highlightNanos;
+
+    /**
+     * 总耗时
+     */
+    private long totalNanos;
+
+    /**
+     * 各段的打分耗时
+     */
+    private List<SegmentProfile> segments = new ArrayList<>();
+
+    /**
+     * 合并多个索引的结果时，各索引自己的剖析结果
+     */
+    private List<SearchProfile> shards = new ArrayList<>();
+
+    /**
+     * 深拷贝，段和分片的剖析结果同样复制一份
+     *
+     * @return 新的剖析结果
+     */
+    public SearchProfile copy() {
+        SearchProfile copy = new SearchProfile();
+        copy.query = query;
+        copy.parseNanos = parseNanos;
+        copy.rewriteNanos = rewriteNanos;
+        copy.createWeightNanos = createWeightNanos;
+        copy.vectorSearchNanos = vectorSearchNanos;
+        copy.docsCollected = docsCollected;
+        copy.fetchNanos = fetchNanos;
+        copy.storedFieldBytes = storedFieldBytes;
+        copy.highlightNanos = highlightNanos;
+        copy.totalNanos = totalNanos;
+        for (SegmentProfile segment : segments) {
+            copy.segments.add(segment.copy());
+        }
+        for (SearchProfile shard : shards) {
+            copy.shards.add(shard.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * 单个段的剖析结果
+     */
+    @Data
+    @NoArgsConstructor
+    public static class SegmentProfile {
+        // 段在读取器中的序号
+        private int ord;
+        // 段的文档数（含已删除）
+        private int maxDoc;
+        // 创建打分器耗时
+        private long scorerNanos;
+        // 遍历、打分和收集耗时
+        private long scoreNanos;
+        // 本段收集到的文档数
+        private long docsCollected;
+
+        public SegmentProfile(int ord, int maxDoc) {
+            this.ord = ord;
+            this.maxDoc = maxDoc;
+        }
+
+        public SegmentProfile copy() {
+            SegmentProfile copy = new SegmentProfile(ord, maxDoc);
+            copy.scorerNanos = scorerNanos;
+            copy.scoreNanos = scoreNanos;
+            copy.docsCollected = docsCollected;
+            return copy;
+        }
+    }
+}
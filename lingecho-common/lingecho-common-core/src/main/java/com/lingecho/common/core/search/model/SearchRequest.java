@@ -1,5 +1,6 @@
 package com.lingecho.common.core.search.model;
 
+import com.fasterxml.jackson.annotation.JsonSetter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +17,32 @@ import java.util.List;
 @Data
 public class SearchRequest {
 
+    /**
+     * 精确统计总命中数
+     */
+    public static final int TRACK_TOTAL_HITS_ACCURATE = Integer.MAX_VALUE;
+
+    /**
+     * 不统计总命中数（totalHits只包含已收集的结果，为下限）
+     */
+    public static final int TRACK_TOTAL_HITS_DISABLED = 0;
+
+    /**
+     * 默认精确统计总命中数，getTotalHits/getTotalPages保持精确；
+     * 只需要前N条结果的调用方可以设置较小的上限（如1000），让评分器跳过不可能进入前N的文档
+     */
+    public static final int DEFAULT_TRACK_TOTAL_HITS = TRACK_TOTAL_HITS_ACCURATE;
+
+    /**
+     * 默认向量检索候选数
+     */
+    public static final int DEFAULT_VECTOR_CANDIDATES = 100;
+
+    /**
+     * 默认RRF融合常数
+     */
+    public static final int DEFAULT_RRF_RANK_CONSTANT = 60;
+
     /**
      * 搜索查询
      */
@@ -32,7 +59,7 @@ public class SearchRequest {
     private int pageSize = 10;
 
     /**
-     * 搜索字段
+     * 返回字段（为空时返回全部存储字段，元数据字段直接使用元数据键名）
      */
     private List<String> fields = new ArrayList<>();
 
@@ -41,6 +68,11 @@ public class SearchRequest {
      */
     private List<Filter> filters = new ArrayList<>();
 
+    /**
+     * 限定文档ID，只在这些文档中检索（如按外部向量索引的结果取回文档）；为空时不限定
+     */
+    private List<String> ids = new ArrayList<>();
+
     /**
      * 排序字段
      */
@@ -60,7 +92,58 @@ public class SearchRequest {
      * 最小得分
      */
     private float minScore = 0.0f;
+
+    /**
+     * 精确统计的命中数上限，超过后totalHits为下限，评分器可以跳过不可能进入前N的文档
+     */
+    private int trackTotalHits = DEFAULT_TRACK_TOTAL_HITS;
+
+    /**
+     * 内容摘要长度，大于0时只返回内容的前N个字符，0表示返回完整内容
+     */
+    private int contentSnippetSize = 0;
+
+    /**
+     * 分组统计（与命中文档在同一次遍历中计算）
+     */
+    private List<Facet> facets = new ArrayList<>();
+
+    /**
+     * 查询向量，设置后按向量近邻检索；同时有查询文本时与BM25结果做RRF融合
+     */
+    private float[] vector;
+
+    /**
+     * 向量检索的候选数（HNSW检索时的ef），越大召回率越高
+     */
+    private int vectorCandidates = DEFAULT_VECTOR_CANDIDATES;
+
+    /**
+     * RRF融合常数k，文档得分为各路结果中1/(k+排名)之和
+     */
+    private int rrfRankConstant = DEFAULT_RRF_RANK_CONSTANT;
+
+    /**
+     * 搜索超时（毫秒），超时后返回已收集到的部分结果并标记timedOut；0表示使用配置中的默认值
+     */
+    private long timeout;
+
+    /**
+     * 是否返回性能剖析（各阶段耗时、各段打分耗时、命中的打分解释），用于诊断慢查询
+     */
+    private boolean profile;
+
+    /**
+     * 标题前缀匹配：查询词同时按前缀匹配标题并加权，用于输入联想等即时搜索；需要启用标题边缘N元组索引
+     */
+    private boolean titlePrefix;
     
+    /**
+     * 创建空的搜索请求（用于反序列化）
+     */
+    public SearchRequest() {
+    }
+
     /**
      * 创建搜索请求
      * 
@@ -118,6 +201,15 @@ public class SearchRequest {
         return this;
     }
     
+    public List<String> getIds() {
+        return new ArrayList<>(ids);
+    }
+
+    public SearchRequest setIds(List<String> ids) {
+        this.ids = ids != null ? new ArrayList<>(ids) : new ArrayList<>();
+        return this;
+    }
+
     public List<SortField> getSortFields() {
         return new ArrayList<>(sortFields);
     }
@@ -141,9 +233,70 @@ public class SearchRequest {
         this.minScore = minScore;
         return this;
     }
+
+    @JsonSetter
+    public SearchRequest setTrackTotalHits(int trackTotalHits) {
+        this.trackTotalHits = trackTotalHits;
+        return this;
+    }
+
+    /**
+     * 设置是否精确统计总命中数
+     * 
+     * @param trackTotalHits true表示精确统计，false表示不统计
+     * @return 当前请求实例
+     */
+    public SearchRequest setTrackTotalHits(boolean trackTotalHits) {
+        this.trackTotalHits = trackTotalHits ? TRACK_TOTAL_HITS_ACCURATE : TRACK_TOTAL_HITS_DISABLED;
+        return this;
+    }
+
+    public SearchRequest setContentSnippetSize(int contentSnippetSize) {
+        this.contentSnippetSize = contentSnippetSize;
+        return this;
+    }
+
+    public SearchRequest setVector(float[] vector) {
+        this.vector = vector;
+        return this;
+    }
+
+    public SearchRequest setVectorCandidates(int vectorCandidates) {
+        this.vectorCandidates = vectorCandidates;
+        return this;
+    }
+
+    public SearchRequest setRrfRankConstant(int rrfRankConstant) {
+        this.rrfRankConstant = rrfRankConstant;
+        return this;
+    }
+
+    public SearchRequest setTimeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public SearchRequest setProfile(boolean profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    public SearchRequest setTitlePrefix(boolean titlePrefix) {
+        this.titlePrefix = titlePrefix;
+        return this;
+    }
+
+    public List<Facet> getFacets() {
+        return new ArrayList<>(facets);
+    }
+
+    public SearchRequest setFacets(List<Facet> facets) {
+        this.facets = facets != null ? new ArrayList<>(facets) : new ArrayList<>();
+        return this;
+    }
     
     /**
-     * 添加搜索字段
+     * 添加返回字段
      * 
      * @param field 字段名
      * @return 当前请求实例
@@ -174,7 +327,44 @@ public class SearchRequest {
         this.sortFields.add(sortField);
         return this;
     }
+
+    /**
+     * 添加分组统计
+     * 
+     * @param facet 分组统计
+     * @return 当前请求实例
+     */
+    public SearchRequest addFacet(Facet facet) {
+        this.facets.add(facet);
+        return this;
+    }
     
+    /**
+     * 复制请求，列表字段浅拷贝
+     *
+     * @return 新的请求实例
+     */
+    public SearchRequest copy() {
+        SearchRequest copy = new SearchRequest(query, page, pageSize);
+        copy.fields = new ArrayList<>(fields);
+        copy.filters = new ArrayList<>(filters);
+        copy.ids = new ArrayList<>(ids);
+        copy.sortFields = new ArrayList<>(sortFields);
+        copy.highlight = highlight;
+        copy.maxResults = maxResults;
+        copy.minScore = minScore;
+        copy.trackTotalHits = trackTotalHits;
+        copy.contentSnippetSize = contentSnippetSize;
+        copy.facets = new ArrayList<>(facets);
+        copy.vector = vector;
+        copy.vectorCandidates = vectorCandidates;
+        copy.rrfRankConstant = rrfRankConstant;
+        copy.timeout = timeout;
+        copy.profile = profile;
+        copy.titlePrefix = titlePrefix;
+        return copy;
+    }
+
     /**
      * 获取偏移量
      * 
@@ -192,10 +382,20 @@ public class SearchRequest {
                 ", pageSize=" + pageSize +
                 ", fields=" + fields +
                 ", filters=" + filters +
+                ", ids=" + ids +
                 ", sortFields=" + sortFields +
                 ", highlight=" + highlight +
                 ", maxResults=" + maxResults +
                 ", minScore=" + minScore +
+                ", trackTotalHits=" + trackTotalHits +
+                ", contentSnippetSize=" + contentSnippetSize +
+                ", facets=" + facets +
+                ", vectorDimension=" + (vector != null ? vector.length : 0) +
+                ", vectorCandidates=" + vectorCandidates +
+                ", rrfRankConstant=" + rrfRankConstant +
+                ", timeout=" + timeout +
+                ", profile=" + profile +
+                ", titlePrefix=" + titlePrefix +
                 '}';
     }
     
@@ -229,4 +429,46 @@ public class SearchRequest {
             ASC, DESC
         }
     }
+
+    /**
+     * 分组统计
+     * 词项统计适用于type和元数据字段，日期直方图适用于timestamp和数值/日期类型的元数据字段
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Facet {
+        private String field;
+        private FacetType type;
+        // 词项统计返回的最大分组数
+        private int size = 10;
+        // 日期直方图的间隔（毫秒）
+        private long interval;
+
+        public enum FacetType {
+            TERMS, DATE_HISTOGRAM
+        }
+
+        /**
+         * 创建词项统计
+         *
+         * @param field 字段名（元数据字段直接使用元数据键名）
+         * @param size 返回的最大分组数
+         * @return 分组统计
+         */
+        public static Facet terms(String field, int size) {
+            return new Facet(field, FacetType.TERMS, size, 0);
+        }
+
+        /**
+         * 创建日期直方图
+         *
+         * @param field 字段名
+         * @param interval 间隔（毫秒）
+         * @return 分组统计
+         */
+        public static Facet dateHistogram(String field, long interval) {
+            return new Facet(field, FacetType.DATE_HISTOGRAM, 0, interval);
+        }
+    }
 }
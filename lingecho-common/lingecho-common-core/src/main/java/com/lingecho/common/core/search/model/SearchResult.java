@@ -5,7 +5,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 搜索结果模型类
@@ -26,6 +28,16 @@ public class SearchResult {
      */
     private long totalHits;
 
+    /**
+     * 总命中数是否精确，为false时totalHits为下限（命中数超过请求的trackTotalHits后不再精确统计）
+     */
+    private boolean totalHitsExact = true;
+
+    /**
+     * 是否超时，为true时命中和分组统计只包含超时前收集到的部分
+     */
+    private boolean timedOut;
+
     /**
      * 当前页码
      */
@@ -50,6 +62,16 @@ public class SearchResult {
      * 建议列表
      */
     private List<String> suggestions = new ArrayList<>();
+
+    /**
+     * 分组统计结果，键为请求中的分组字段
+     */
+    private Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+
+    /**
+     * 性能剖析，请求设置profile=true时才有
+     */
+    private SearchProfile profile;
     
     /**
      * 创建搜索结果
@@ -84,6 +106,21 @@ public class SearchResult {
         return this;
     }
 
+    public SearchResult setTotalHitsExact(boolean totalHitsExact) {
+        this.totalHitsExact = totalHitsExact;
+        return this;
+    }
+
+    public SearchResult setProfile(SearchProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    public SearchResult setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+        return this;
+    }
+
     public SearchResult setPage(int page) {
         this.page = page;
         return this;
@@ -113,6 +150,25 @@ public class SearchResult {
         return this;
     }
     
+    public Map<String, List<FacetBucket>> getFacets() {
+        return new LinkedHashMap<>(facets);
+    }
+
+    public SearchResult setFacets(Map<String, List<FacetBucket>> facets) {
+        this.facets = facets != null ? new LinkedHashMap<>(facets) : new LinkedHashMap<>();
+        return this;
+    }
+
+    /**
+     * 获取某个字段的分组统计
+     * 
+     * @param field 分组字段
+     * @return 分组列表，不存在时返回空列表
+     */
+    public List<FacetBucket> getFacet(String field) {
+        return facets.getOrDefault(field, new ArrayList<>());
+    }
+
     /**
      * 添加搜索结果
      * 
@@ -135,6 +191,35 @@ public class SearchResult {
         return this;
     }
     
+    /**
+     * 深拷贝，命中、分组统计和剖析结果都复制一份，修改副本不影响原结果
+     *
+     * @return 新的结果实例
+     */
+    public SearchResult copy() {
+        SearchResult copy = new SearchResult(query, totalHits);
+        copy.hits = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            copy.hits.add(hit.copy());
+        }
+        copy.totalHitsExact = totalHitsExact;
+        copy.timedOut = timedOut;
+        copy.page = page;
+        copy.pageSize = pageSize;
+        copy.searchTime = searchTime;
+        copy.suggestions = new ArrayList<>(suggestions);
+        copy.facets = new LinkedHashMap<>();
+        facets.forEach((field, buckets) -> {
+            List<FacetBucket> bucketsCopy = new ArrayList<>(buckets.size());
+            for (FacetBucket bucket : buckets) {
+                bucketsCopy.add(new FacetBucket(bucket.getKey(), bucket.getCount()));
+            }
+            copy.facets.put(field, bucketsCopy);
+        });
+        copy.profile = profile != null ? profile.copy() : null;
+        return copy;
+    }
+
     /**
      * 获取总页数
      * 
@@ -176,15 +261,29 @@ public class SearchResult {
     public String toString() {
         return "SearchResult{" +
                 "totalHits=" + totalHits +
+                ", totalHitsExact=" + totalHitsExact +
                 ", page=" + page +
                 ", pageSize=" + pageSize +
                 ", searchTime=" + searchTime + "ms" +
                 ", query='" + query + '\'' +
                 ", hitsSize=" + hits.size() +
                 ", suggestionsSize=" + suggestions.size() +
+                ", facetsSize=" + facets.size() +
                 '}';
     }
     
+    /**
+     * 分组统计项
+     * 词项统计的key为字段值，日期直方图的key为区间起始时间戳（毫秒）
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class FacetBucket {
+        private String key;
+        private long count;
+    }
+
     /**
      * 搜索结果项
      */
@@ -200,6 +299,10 @@ public class SearchResult {
         private String highlightedTitle;
         private String highlightedContent;
         private java.util.Map<String, String> metadata = new java.util.HashMap<>();
+        // 按字段排序时与请求排序字段一一对应的排序值，用于合并多个索引的结果；按相关度排序时为null
+        private Object[] sortValues;
+        // Lucene打分解释，请求设置profile=true时才有
+        private String explanation;
         
         public SearchHit(String id, String title, String content, float score) {
             this.id = id;
@@ -208,6 +311,22 @@ public class SearchResult {
             this.score = score;
         }
 
+        /**
+         * 深拷贝
+         *
+         * @return 新的结果项实例
+         */
+        public SearchHit copy() {
+            SearchHit copy = new SearchHit(id, title, content, score);
+            copy.type = type;
+            copy.highlightedTitle = highlightedTitle;
+            copy.highlightedContent = highlightedContent;
+            copy.metadata = new java.util.HashMap<>(metadata);
+            copy.sortValues = sortValues != null ? sortValues.clone() : null;
+            copy.explanation = explanation;
+            return copy;
+        }
+
         public SearchHit setType(String type) {
             this.type = type;
             return this;
@@ -243,6 +362,16 @@ public class SearchResult {
             this.highlightedContent = highlightedContent;
             return this;
         }
+
+        public SearchHit setSortValues(Object[] sortValues) {
+            this.sortValues = sortValues;
+            return this;
+        }
+
+        public SearchHit setExplanation(String explanation) {
+            this.explanation = explanation;
+            return this;
+        }
         
         public java.util.Map<String, String> getMetadata() {
             return new java.util.HashMap<>(metadata);
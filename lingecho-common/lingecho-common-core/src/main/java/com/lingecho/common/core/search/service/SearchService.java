@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 搜索服务
@@ -51,6 +52,20 @@ public class SearchService {
         return hibiscusSearch.search(request);
     }
 
+    /**
+     * 异步搜索，检索在搜索引擎的异步线程池上执行，不占用请求线程
+     */
+    public CompletableFuture<SearchResult> searchAsync(SearchRequest request) {
+        return hibiscusSearch.searchAsync(request);
+    }
+
+    /**
+     * 异步批量索引文档
+     */
+    public CompletableFuture<Void> indexDocumentsAsync(List<Document> documents) {
+        return hibiscusSearch.indexDocumentsAsync(documents);
+    }
+
     /**
      * 删除文档
      */
@@ -0,0 +1,81 @@
+package com.lingecho.common.core.search.vector;
+
+import java.util.Arrays;
+
+/**
+ * 内存浮点向量存储
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public class FloatVectorStore implements VectorStore {
+
+    private final VectorSimilarity similarity;
+
+    private final int dimension;
+
+    private float[][] vectors = new float[16][];
+
+    private int size;
+
+    /**
+     * 创建向量存储
+     *
+     * @param similarity 相似度
+     * @param dimension 向量维度
+     */
+    public FloatVectorStore(VectorSimilarity similarity, int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Vector dimension must be positive: " + dimension);
+        }
+        this.similarity = similarity;
+        this.dimension = dimension;
+    }
+
+    /**
+     * 添加向量（写入前按相似度预处理）
+     *
+     * @param vector 向量
+     * @return 节点编号
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension mismatch: expected " + dimension + " but got " + vector.length);
+        }
+        if (size == vectors.length) {
+            vectors = Arrays.copyOf(vectors, size + (size >> 1));
+        }
+        vectors[size] = similarity.prepare(vector);
+        return size++;
+    }
+
+    /**
+     * 获取预处理后的向量
+     *
+     * @param node 节点编号
+     * @return 向量
+     */
+    public float[] get(int node) {
+        return vectors[node];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float score(float[] query, int node) {
+        return similarity.compare(query, vectors[node]);
+    }
+
+    @Override
+    public float score(int a, int b) {
+        return similarity.compare(vectors[a], vectors[b]);
+    }
+}
@@ -0,0 +1,513 @@
+package com.lingecho.common.core.search.vector;
+
+import org.apache.lucene.util.SparseFixedBitSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * HNSW（分层可导航小世界）图
+ * 节点按编号顺序加入，向量和相似度计算由{@link VectorStore}提供；
+ * 写操作不是线程安全的，调用方需要保证写入与查询互斥
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public class HnswGraph {
+
+    // 默认每层最大连接数
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    // 默认构建时的候选队列大小
+    public static final int DEFAULT_BEAM_WIDTH = 100;
+
+    private final VectorStore vectors;
+
+    // 第1层及以上的最大连接数
+    private final int maxConnections;
+
+    // 第0层的最大连接数
+    private final int maxConnections0;
+
+    // 构建时的候选队列大小（efConstruction）
+    private final int beamWidth;
+
+    private final double levelMultiplier;
+
+    private final Random random;
+
+    // neighbors[node][level]的第0个元素为邻居数量，其后为邻居节点
+    private int[][][] neighbors = new int[16][][];
+
+    private int size;
+
+    private int entryPoint = -1;
+
+    private int maxLevel = -1;
+
+    /**
+     * 创建HNSW图
+     *
+     * @param vectors 向量存储
+     * @param maxConnections 每层最大连接数（M）
+     * @param beamWidth 构建时的候选队列大小（efConstruction）
+     * @param seed 随机种子
+     */
+    public HnswGraph(VectorStore vectors, int maxConnections, int beamWidth, long seed) {
+        if (maxConnections <= 0 || beamWidth <= 0) {
+            throw new IllegalArgumentException("maxConnections and beamWidth must be positive");
+        }
+        this.vectors = vectors;
+        this.maxConnections = maxConnections;
+        this.maxConnections0 = maxConnections * 2;
+        this.beamWidth = beamWidth;
+        this.levelMultiplier = 1 / Math.log(Math.max(2, maxConnections));
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 获取节点数量
+     *
+     * @return 节点数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 将向量存储中的节点加入图，节点必须按编号顺序加入
+     *
+     * @param node 节点编号
+     */
+    public void addNode(int node) {
+        if (node != size) {
+            throw new IllegalArgumentException("Nodes must be added in order, expected " + size + " but got " + node);
+        }
+        int level = randomLevel();
+        int[][] links = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[l] = new int[maxConnections(l) + 1];
+        }
+        if (size == neighbors.length) {
+            neighbors = Arrays.copyOf(neighbors, size + (size >> 1));
+        }
+        neighbors[node] = links;
+        size++;
+
+        if (entryPoint == -1) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        NodeScorer scorer = other -> vectors.score(node, other);
+        int current = greedySearch(scorer, level);
+        int[] entries = {current};
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            Candidates found = searchLayer(scorer, entries, beamWidth, l, null);
+            int[] selected = selectNeighbors(found.nodes, found.scores, found.size, maxConnections(l));
+            System.arraycopy(selected, 0, links[l], 1, selected.length);
+            links[l][0] = selected.length;
+            for (int neighbor : selected) {
+                addReverseLink(neighbor, node, l);
+            }
+            entries = Arrays.copyOf(found.nodes, found.size);
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 检索与查询向量最相似的节点
+     *
+     * @param query 已预处理的查询向量
+     * @param k 返回数量
+     * @param ef 检索时的候选队列大小，越大召回率越高
+     * @param accept 可返回的节点，为null时全部可返回；不可返回的节点仍用于导航
+     * @return 按相似度降序排列的节点
+     */
+    public List<ScoredNode> search(float[] query, int k, int ef, IntPredicate accept) {
+        if (entryPoint == -1 || k <= 0) {
+            return Collections.emptyList();
+        }
+        NodeScorer scorer = node -> vectors.score(query, node);
+        int current = greedySearch(scorer, 0);
+        Candidates found = searchLayer(scorer, new int[]{current}, Math.max(ef, k), 0, accept);
+        int count = Math.min(k, found.size);
+        List<ScoredNode> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new ScoredNode(found.nodes[i], found.scores[i]));
+        }
+        return results;
+    }
+
+    /**
+     * 写出图结构（不包含向量）
+     *
+     * @param out 输出
+     * @throws IOException 写入异常
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(maxConnections);
+        out.writeInt(beamWidth);
+        out.writeInt(size);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int node = 0; node < size; node++) {
+            int[][] links = neighbors[node];
+            out.writeByte(links.length);
+            for (int[] level : links) {
+                out.writeShort(level[0]);
+                for (int i = 1; i <= level[0]; i++) {
+                    out.writeInt(level[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取图结构，之后可以继续加入新节点
+     *
+     * @param in 输入
+     * @param vectors 向量存储，至少包含图中的全部节点
+     * @param seed 随机种子
+     * @return HNSW图
+     * @throws IOException 读取异常
+     */
+    public static HnswGraph read(DataInput in, VectorStore vectors, long seed) throws IOException {
+        int maxConnections = in.readInt();
+        int beamWidth = in.readInt();
+        HnswGraph graph = new HnswGraph(vectors, maxConnections, beamWidth, seed);
+        int size = in.readInt();
+        if (size > vectors.size()) {
+            throw new IOException("Graph has " + size + " nodes but vector store only has " + vectors.size());
+        }
+        graph.entryPoint = in.readInt();
+        graph.maxLevel = in.readInt();
+        graph.neighbors = new int[Math.max(16, size)][][];
+        for (int node = 0; node < size; node++) {
+            int[][] links = new int[in.readUnsignedByte()][];
+            for (int l = 0; l < links.length; l++) {
+                int count = in.readUnsignedShort();
+                links[l] = new int[graph.maxConnections(l) + 1];
+                links[l][0] = count;
+                for (int i = 1; i <= count; i++) {
+                    links[l][i] = in.readInt();
+                }
+            }
+            graph.neighbors[node] = links;
+        }
+        graph.size = size;
+        return graph;
+    }
+
+    /**
+     * 从入口点逐层贪心下降，直到目标层之上
+     */
+    private int greedySearch(NodeScorer scorer, int targetLevel) {
+        int current = entryPoint;
+        float currentScore = scorer.score(current);
+        for (int l = maxLevel; l > targetLevel; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int[] links = neighbors[current][l];
+                for (int i = 1; i <= links[0]; i++) {
+                    float score = scorer.score(links[i]);
+                    if (score > currentScore) {
+                        current = links[i];
+                        currentScore = score;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在单层内做束搜索
+     */
+    private Candidates searchLayer(NodeScorer scorer, int[] entries, int ef, int level, IntPredicate accept) {
+        NodeHeap candidates = new NodeHeap(true);
+        NodeHeap results = new NodeHeap(false);
+        SparseFixedBitSet visited = new SparseFixedBitSet(size);
+
+        for (int entry : entries) {
+            if (visited.get(entry)) {
+                continue;
+            }
+            visited.set(entry);
+            float score = scorer.score(entry);
+            candidates.push(score, entry);
+            if (accept == null || accept.test(entry)) {
+                results.push(score, entry);
+            }
+        }
+
+        while (candidates.size() > 0) {
+            long top = candidates.pop();
+            float score = NodeHeap.score(top);
+            if (results.size() >= ef && score < NodeHeap.score(results.peek())) {
+                break;
+            }
+            int[][] nodeLinks = neighbors[NodeHeap.node(top)];
+            if (level >= nodeLinks.length) {
+                continue;
+            }
+            int[] links = nodeLinks[level];
+            for (int i = 1; i <= links[0]; i++) {
+                int neighbor = links[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float neighborScore = scorer.score(neighbor);
+                if (results.size() < ef || neighborScore > NodeHeap.score(results.peek())) {
+                    candidates.push(neighborScore, neighbor);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.push(neighborScore, neighbor);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+
+        // 结果堆为最小堆，倒序取出得到降序
+        Candidates found = new Candidates(results.size());
+        for (int i = found.size - 1; i >= 0; i--) {
+            long entry = results.pop();
+            found.nodes[i] = NodeHeap.node(entry);
+            found.scores[i] = NodeHeap.score(entry);
+        }
+        return found;
+    }
+
+    /**
+     * 启发式选择邻居：优先保留与已选邻居不相似的候选以保证图的覆盖面，不足时再用被剪掉的候选补足
+     *
+     * @param nodes 按相似度降序排列的候选
+     * @param scores 候选与目标的相似度
+     * @param count 候选数量
+     * @param max 最大邻居数
+     * @return 选中的邻居
+     */
+    private int[] selectNeighbors(int[] nodes, float[] scores, int count, int max) {
+        int[] selected = new int[Math.min(max, count)];
+        int[] pruned = new int[count];
+        int selectedCount = 0;
+        int prunedCount = 0;
+        for (int i = 0; i < count && selectedCount < selected.length; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (vectors.score(nodes[i], selected[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[selectedCount++] = nodes[i];
+            } else {
+                pruned[prunedCount++] = nodes[i];
+            }
+        }
+        for (int i = 0; i < prunedCount && selectedCount < selected.length; i++) {
+            selected[selectedCount++] = pruned[i];
+        }
+        return selectedCount == selected.length ? selected : Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * 添加反向连接；超过最大连接数时，从最不相似的邻居开始找出第一个不满足多样性的邻居移除，
+     * 都满足多样性时移除最不相似的邻居
+     */
+    private void addReverseLink(int node, int newNeighbor, int level) {
+        int[] links = neighbors[node][level];
+        int count = links[0];
+        if (count < links.length - 1) {
+            links[count + 1] = newNeighbor;
+            links[0] = count + 1;
+            return;
+        }
+
+        Candidates candidates = new Candidates(count + 1);
+        for (int i = 0; i < count; i++) {
+            candidates.nodes[i] = links[i + 1];
+        }
+        candidates.nodes[count] = newNeighbor;
+        for (int i = 0; i <= count; i++) {
+            candidates.scores[i] = vectors.score(node, candidates.nodes[i]);
+        }
+        candidates.sortDescending();
+
+        int removed = candidates.size - 1;
+        for (int i = candidates.size - 1; i > 0; i--) {
+            if (!isDiverse(candidates, i)) {
+                removed = i;
+                break;
+            }
+        }
+        int n = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            if (i != removed) {
+                links[++n] = candidates.nodes[i];
+            }
+        }
+        links[0] = n;
+    }
+
+    /**
+     * 候选与比它更相似的候选都不如与目标相似时满足多样性
+     */
+    private boolean isDiverse(Candidates candidates, int index) {
+        int candidate = candidates.nodes[index];
+        float score = candidates.scores[index];
+        for (int j = 0; j < index; j++) {
+            if (vectors.score(candidate, candidates.nodes[j]) > score) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxConnections0 : maxConnections;
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - random.nextDouble();
+        return (int) (-Math.log(r) * levelMultiplier);
+    }
+
+    @FunctionalInterface
+    private interface NodeScorer {
+        float score(int node);
+    }
+
+    /**
+     * 候选节点及相似度
+     */
+    private static final class Candidates {
+        final int[] nodes;
+        final float[] scores;
+        final int size;
+
+        Candidates(int size) {
+            this.nodes = new int[size];
+            this.scores = new float[size];
+            this.size = size;
+        }
+
+        void sortDescending() {
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = NodeHeap.encode(scores[i], nodes[i]);
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < size; i++) {
+                long entry = packed[size - 1 - i];
+                nodes[i] = NodeHeap.node(entry);
+                scores[i] = NodeHeap.score(entry);
+            }
+        }
+    }
+
+    /**
+     * 节点堆，相似度和节点编号编码为一个long，避免装箱
+     */
+    private static final class NodeHeap {
+        private final boolean maxHeap;
+        private long[] heap = new long[32];
+        private int size;
+
+        NodeHeap(boolean maxHeap) {
+            this.maxHeap = maxHeap;
+        }
+
+        static long encode(float score, int node) {
+            int bits = Float.floatToIntBits(score);
+            int sortable = bits ^ ((bits >> 31) & 0x7fffffff);
+            return ((long) sortable << 32) | (node & 0xFFFFFFFFL);
+        }
+
+        static float score(long entry) {
+            int sortable = (int) (entry >> 32);
+            return Float.intBitsToFloat(sortable ^ ((sortable >> 31) & 0x7fffffff));
+        }
+
+        static int node(long entry) {
+            return (int) entry;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void push(float score, int node) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            heap[size] = encode(score, node);
+            siftUp(size++);
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        long pop() {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+            return top;
+        }
+
+        private boolean before(long a, long b) {
+            return maxHeap ? a > b : a < b;
+        }
+
+        private void siftUp(int i) {
+            long value = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(value, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        private void siftDown(int i) {
+            long value = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], value)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.lingecho.common.core.search.vector;
+
+import lombok.Data;
+
+/**
+ * 向量检索结果：节点编号和相似度
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+@Data
+public class ScoredNode {
+
+    private final int node;
+
+    private final float score;
+}
@@ -0,0 +1,93 @@
+package com.lingecho.common.core.search.vector;
+
+/**
+ * 向量相似度枚举
+ * 相似度越大表示越相似
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public enum VectorSimilarity {
+    /**
+     * 余弦相似度 - 向量写入和查询前先归一化，之后按点积计算
+     */
+    COSINE,
+
+    /**
+     * 点积 - 适用于已归一化的向量
+     */
+    DOT_PRODUCT,
+
+    /**
+     * 欧氏距离 - 相似度为1/(1+距离的平方)
+     */
+    EUCLIDEAN;
+
+    /**
+     * 预处理向量（余弦相似度时归一化），返回新数组，不修改原向量
+     *
+     * @param vector 原向量
+     * @return 预处理后的向量
+     */
+    public float[] prepare(float[] vector) {
+        float[] copy = vector.clone();
+        if (this == COSINE) {
+            normalize(copy);
+        }
+        return copy;
+    }
+
+    /**
+     * 计算两个已预处理向量的相似度
+     *
+     * @param a 向量a
+     * @param b 向量b
+     * @return 相似度
+     */
+    public float compare(float[] a, float[] b) {
+        if (this == EUCLIDEAN) {
+            return 1f / (1f + squareDistance(a, b));
+        }
+        return dotProduct(a, b);
+    }
+
+    /**
+     * 点积
+     */
+    public static float dotProduct(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 欧氏距离的平方
+     */
+    public static float squareDistance(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    /**
+     * 原地归一化，零向量保持不变
+     */
+    public static void normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.lingecho.common.core.search.vector;
+
+/**
+ * 向量存储
+ * HNSW图只保存节点之间的连接，向量本身及相似度计算由存储实现（如内存浮点数组、量化后的内存映射文件）
+ *
+ * @author HibiscusSearch Team
+ * @version 1.0.0
+ */
+public interface VectorStore {
+
+    /**
+     * 获取向量数量，节点编号为0到size-1
+     *
+     * @return 向量数量
+     */
+    int size();
+
+    /**
+     * 获取向量维度
+     *
+     * @return 向量维度
+     */
+    int dimension();
+
+    /**
+     * 计算查询向量与节点的相似度
+     *
+     * @param query 已预处理的查询向量
+     * @param node 节点编号
+     * @return 相似度
+     */
+    float score(float[] query, int node);
+
+    /**
+     * 计算两个节点的相似度
+     *
+     * @param a 节点a
+     * @param b 节点b
+     * @return 相似度
+     */
+    float score(int a, int b);
+}
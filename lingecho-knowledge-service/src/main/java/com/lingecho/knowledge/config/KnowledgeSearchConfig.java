@@ -0,0 +1,31 @@
+package com.lingecho.knowledge.config;
+
+import com.lingecho.common.core.search.ShardedHibiscusSearch;
+import com.lingecho.common.core.search.config.SearchConfig;
+import com.lingecho.knowledge.ingest.IngestionProperties;
+import com.lingecho.knowledge.search.SearchMeters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 知识库全文索引配置
+ * 每个知识库一个分片，删除知识库时直接删除分片目录；分片共用过滤条件缓存和提交线程，RAM缓冲区按分片数平分
+ */
+@Configuration
+public class KnowledgeSearchConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardedHibiscusSearch knowledgeSearch(IngestionProperties properties, SearchMeters searchMeters) {
+        SearchConfig config = new SearchConfig(Paths.get(properties.getIndexPath()))
+                // 片段标题就是文件名，不需要搜索建议
+                .setSuggestEnabled(false)
+                // 写入只同步事务日志，Lucene提交按间隔批量进行
+                .setTranslogEnabled(true)
+                .setRamBufferSizeMB(properties.getRamBufferSizeMB())
+                .setFilterCacheMinSegmentDocs(properties.getFilterCacheMinSegmentDocs())
+                .setMetrics(searchMeters);
+        return new ShardedHibiscusSearch(config, properties.getMaxOpenShards());
+    }
+}
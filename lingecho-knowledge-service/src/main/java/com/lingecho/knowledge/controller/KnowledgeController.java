@@ -2,6 +2,8 @@ package com.lingecho.knowledge.controller;
 
 import com.lingecho.common.core.ApiResponse;
 import com.lingecho.knowledge.entity.Knowledge;
+import com.lingecho.knowledge.ingest.IngestionJob;
+import com.lingecho.knowledge.search.DistributedSearchResult;
 import com.lingecho.knowledge.service.KnowledgeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -55,6 +57,19 @@ public class KnowledgeController {
         return knowledgeService.deleteKnowledge(userId, knowledgeId);
     }
 
+    /**
+     * 检索知识库
+     */
+    @GetMapping("/search")
+    public ApiResponse<DistributedSearchResult> searchKnowledge(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam Long knowledgeId,
+            @RequestParam String query,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int pageSize) {
+        return knowledgeService.searchKnowledge(userId, knowledgeId, query, page, pageSize);
+    }
+
     /**
      * 上传文件到知识库
      */
@@ -63,12 +78,26 @@ public class KnowledgeController {
             @RequestHeader("X-User-Id") Long userId,
             @RequestParam Long knowledgeId,
             @RequestParam("file") MultipartFile file) {
-        try {
-            byte[] fileContent = file.getBytes();
-            return knowledgeService.uploadFileToKnowledgeBase(userId, knowledgeId, file.getOriginalFilename(), fileContent);
-        } catch (Exception e) {
-            return ApiResponse.error("文件上传失败: " + e.getMessage());
-        }
+        return knowledgeService.uploadFileToKnowledgeBase(userId, knowledgeId, file);
+    }
+
+    /**
+     * 查询文件入库任务状态
+     * 任务状态保存在接收上传的节点内存中，其他节点收到查询时转发到各节点查找；该节点重启后返回404
+     */
+    @GetMapping("/upload/status")
+    public ApiResponse<IngestionJob> getIngestionJob(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam String jobId) {
+        return knowledgeService.getIngestionJob(userId, jobId);
+    }
+
+    /**
+     * 入库流水线各阶段的吞吐统计
+     */
+    @GetMapping("/ingest/metrics")
+    public ApiResponse<Map<String, Object>> getIngestionMetrics() {
+        return knowledgeService.getIngestionMetrics();
     }
 }
 
@@ -0,0 +1,63 @@
+package com.lingecho.knowledge.ingest;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件入库任务
+ * 任务只保存在接收上传的节点内存中，其他节点通过节点间接口查询
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class IngestionJob {
+
+    private final String jobId;
+
+    private final Long knowledgeId;
+
+    private final String fileName;
+
+    private final long fileSize;
+
+    private volatile Status status = Status.PENDING;
+
+    /**
+     * 文件存储路径（未配置文件存储时为空）
+     */
+    private volatile String storagePath;
+
+    private final AtomicLong chunksProduced = new AtomicLong();
+
+    private final AtomicLong chunksIndexed = new AtomicLong();
+
+    private volatile String error;
+
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile LocalDateTime finishedAt;
+
+    // 文本提取和分块已结束
+    private volatile boolean extracted;
+
+    @JsonCreator
+    public IngestionJob(@JsonProperty("jobId") String jobId, @JsonProperty("knowledgeId") Long knowledgeId,
+                        @JsonProperty("fileName") String fileName, @JsonProperty("fileSize") long fileSize) {
+        this.jobId = jobId;
+        this.knowledgeId = knowledgeId;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+    }
+
+    public enum Status {
+        PENDING, STORING, EXTRACTING, COMPLETED, FAILED
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
@@ -0,0 +1,502 @@
+package com.lingecho.knowledge.ingest;
+
+import com.lingecho.common.core.search.ShardedHibiscusSearch;
+import com.lingecho.common.core.search.model.Document;
+import com.lingecho.common.core.storage.FileStorageAdapter;
+import com.lingecho.knowledge.vector.EmbeddingClient;
+import com.lingecho.knowledge.vector.KnowledgeVectorIndexManager;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 知识库文件入库流水线
+ * 上传请求只把文件写到临时文件并登记任务，之后异步执行：
+ * 存储（写入文件存储）-> 提取分块（逐段提取文本并按重叠分块）-> 索引（批量写入全文索引，配置了向量化服务时同时写入向量索引）。
+ * 阶段之间使用有界队列：存储和提取阶段的任务队列满时拒绝新的上传，片段队列满时提取阶段阻塞等待索引追上。
+ * 知识库删除后仍在排队的片段不再写入，对应的任务失败
+ */
+@Slf4j
+@Component
+public class IngestionPipeline {
+
+    /**
+     * 片段的文档类型
+     */
+    public static final String CHUNK_TYPE = "knowledge_chunk";
+
+    /**
+     * 片段元数据：知识库ID
+     */
+    public static final String META_KNOWLEDGE_ID = "knowledgeId";
+
+    private static final String SHARD_PREFIX = "kb-";
+
+    private static final int KNOWLEDGE_LOCK_COUNT = 64;
+
+    private final IngestionProperties properties;
+    private final ShardedHibiscusSearch search;
+    private final ObjectProvider<FileStorageAdapter> fileStorageAdapter;
+    private final List<TextExtractor> extractors;
+    private final KnowledgeVectorIndexManager vectorIndexManager;
+    private final EmbeddingClient embeddingClient;
+
+    private final ThreadPoolExecutor storeExecutor;
+    private final ThreadPoolExecutor extractExecutor;
+    private final ExecutorService indexExecutor;
+    private final BlockingQueue<Chunk> chunkQueue;
+    private volatile boolean running = true;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    // 已删除的知识库；写入分片和删除分片持有同一把锁，删除之后不会再有片段写入重新创建分片
+    private final Set<Long> droppedKnowledge = ConcurrentHashMap.newKeySet();
+    private final Object[] knowledgeLocks = new Object[KNOWLEDGE_LOCK_COUNT];
+
+    private final StageMetrics storeMetrics = new StageMetrics("store");
+    private final StageMetrics extractMetrics = new StageMetrics("extract");
+    private final StageMetrics indexMetrics = new StageMetrics("index");
+
+    public IngestionPipeline(IngestionProperties properties, ShardedHibiscusSearch search,
+                             ObjectProvider<FileStorageAdapter> fileStorageAdapter, List<TextExtractor> extractors,
+                             KnowledgeVectorIndexManager vectorIndexManager, EmbeddingClient embeddingClient) {
+        this.properties = properties;
+        this.search = search;
+        this.fileStorageAdapter = fileStorageAdapter;
+        this.extractors = extractors;
+        this.vectorIndexManager = vectorIndexManager;
+        this.embeddingClient = embeddingClient;
+        for (int i = 0; i < knowledgeLocks.length; i++) {
+            knowledgeLocks[i] = new Object();
+        }
+        // 入口阶段队列满时拒绝上传；中间阶段队列满时由上一阶段的线程执行，形成背压而不丢任务
+        this.storeExecutor = newStageExecutor("ingest-store", properties.getStoreThreads(), new ThreadPoolExecutor.AbortPolicy());
+        this.extractExecutor = newStageExecutor("ingest-extract", properties.getExtractThreads(), (task, executor) -> {
+            // CallerRunsPolicy在线程池关闭后直接丢弃任务，任务会一直停在存储阶段；关闭后改为拒绝
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Extract stage is shut down");
+            }
+            task.run();
+        });
+        this.chunkQueue = new ArrayBlockingQueue<>(Math.max(1, properties.getChunkQueueCapacity()));
+        int indexThreads = Math.max(1, properties.getIndexThreads());
+        this.indexExecutor = Executors.newFixedThreadPool(indexThreads, namedThreadFactory("ingest-index"));
+        for (int i = 0; i < indexThreads; i++) {
+            indexExecutor.execute(this::runIndexer);
+        }
+    }
+
+    /**
+     * 提交文件入库任务
+     * 请求线程只把上传内容流式写入临时文件，不把整个文件读入内存
+     *
+     * @param knowledgeId 知识库ID
+     * @param file 上传的文件
+     * @return 入库任务
+     * @throws IOException 写临时文件失败
+     * @throws RejectedExecutionException 等待处理的任务过多
+     */
+    public IngestionJob submit(Long knowledgeId, MultipartFile file) throws IOException {
+        String fileName = file.getOriginalFilename() != null ? Paths.get(file.getOriginalFilename()).getFileName().toString() : "unnamed";
+        TextExtractor extractor = findExtractor(fileName);
+        if (extractor == null) {
+            throw new IllegalArgumentException("不支持的文件类型: " + fileName);
+        }
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), knowledgeId, fileName, file.getSize());
+        Path tempFile = createTempFile(fileName);
+        try {
+            file.transferTo(tempFile);
+            jobs.put(job.getJobId(), job);
+            storeExecutor.execute(() -> store(job, tempFile, extractor));
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.getJobId());
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        pruneFinishedJobs();
+        return job;
+    }
+
+    /**
+     * 删除知识库的分片
+     * 先标记删除，再等正在写入该知识库的批次结束后执行删除；之后排队中的片段不再写入，对应的任务失败
+     *
+     * @param knowledgeId 知识库ID
+     * @param drop 删除全文分片和向量索引
+     * @throws IOException 删除异常
+     */
+    public void dropKnowledge(Long knowledgeId, KnowledgeDrop drop) throws IOException {
+        droppedKnowledge.add(knowledgeId);
+        synchronized (knowledgeLock(knowledgeId)) {
+            drop.run();
+        }
+    }
+
+    /**
+     * 获取入库任务
+     */
+    public IngestionJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 获取各阶段的吞吐统计和队列长度
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("store", withQueue(storeMetrics.snapshot(), storeExecutor.getQueue().size()));
+        metrics.put("extract", withQueue(extractMetrics.snapshot(), extractExecutor.getQueue().size()));
+        metrics.put("index", withQueue(indexMetrics.snapshot(), chunkQueue.size()));
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 按阶段顺序关闭：存储阶段结束后才关闭提取阶段，存储任务都能交给提取阶段
+        storeExecutor.shutdown();
+        try {
+            storeExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        extractExecutor.shutdown();
+        try {
+            extractExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 提取阶段结束后再停止索引线程，已入队的片段会先写完
+        running = false;
+        indexExecutor.shutdown();
+        try {
+            indexExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 存储阶段：把临时文件写入文件存储，然后交给提取阶段
+     */
+    private void store(IngestionJob job, Path tempFile, TextExtractor extractor) {
+        job.setStatus(IngestionJob.Status.STORING);
+        FileStorageAdapter storage = fileStorageAdapter.getIfAvailable();
+        if (storage != null) {
+            long start = System.nanoTime();
+            try {
+                job.setStoragePath(storage.uploadFile(tempFile.toFile(), "knowledge/" + job.getKnowledgeId() + "/" + job.getFileName()));
+                storeMetrics.record(1, job.getFileSize(), System.nanoTime() - start);
+            } catch (RuntimeException e) {
+                storeMetrics.recordError();
+                fail(job, "文件存储失败: " + e.getMessage(), e);
+                deleteQuietly(tempFile);
+                return;
+            }
+        }
+        try {
+            extractExecutor.execute(() -> extract(job, tempFile, extractor));
+        } catch (RejectedExecutionException e) {
+            // 存储阶段超时未结束时提取阶段已关闭
+            fail(job, "入库服务正在停止", e);
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * 提取分块阶段：逐段提取文本、分块，放入片段队列
+     */
+    private void extract(IngestionJob job, Path tempFile, TextExtractor extractor) {
+        job.setStatus(IngestionJob.Status.EXTRACTING);
+        long start = System.nanoTime();
+        long[] chars = new long[1];
+        AtomicInteger chunkIndex = new AtomicInteger();
+        TextChunker chunker = new TextChunker(properties.getChunkSize(), properties.getChunkOverlap(),
+                chunk -> enqueue(job, chunkIndex.getAndIncrement(), chunk));
+        try {
+            extractor.extract(tempFile, text -> {
+                chars[0] += text.length();
+                chunker.accept(text);
+            });
+            chunker.finish();
+            // 等待片段队列的时间也计入，反映下游背压
+            extractMetrics.record(chunkIndex.get(), chars[0], System.nanoTime() - start);
+            job.setExtracted(true);
+            checkCompleted(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            extractMetrics.recordError();
+            fail(job, "入库任务被中断", e);
+        } catch (IOException | RuntimeException e) {
+            extractMetrics.recordError();
+            fail(job, "文本提取失败: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private void enqueue(IngestionJob job, int index, String text) throws InterruptedException {
+        if (droppedKnowledge.contains(job.getKnowledgeId())) {
+            fail(job, "知识库已删除", null);
+        }
+        if (job.getStatus() == IngestionJob.Status.FAILED) {
+            return;
+        }
+        Document document = new Document(job.getJobId() + "-" + index, CHUNK_TYPE, job.getFileName(), text)
+                .addMetadata(META_KNOWLEDGE_ID, String.valueOf(job.getKnowledgeId()))
+                .addMetadata("jobId", job.getJobId())
+                .addMetadata("fileName", job.getFileName())
+                .addMetadata("chunkIndex", String.valueOf(index));
+        if (job.getStoragePath() != null) {
+            document.addMetadata("storagePath", job.getStoragePath());
+        }
+        job.getChunksProduced().incrementAndGet();
+        chunkQueue.put(new Chunk(job, document));
+    }
+
+    /**
+     * 索引阶段：批量取出片段写入全文索引
+     */
+    private void runIndexer() {
+        int batchSize = Math.max(1, properties.getIndexBatchSize());
+        List<Chunk> batch = new ArrayList<>(batchSize);
+        while (running || !chunkQueue.isEmpty()) {
+            try {
+                Chunk first = chunkQueue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                chunkQueue.drainTo(batch, batchSize - 1);
+                indexBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void indexBatch(List<Chunk> batch) {
+        // 一批片段可能来自多个知识库，按知识库分组写入各自的分片
+        Map<Long, List<Chunk>> byKnowledge = new LinkedHashMap<>();
+        for (Chunk chunk : batch) {
+            byKnowledge.computeIfAbsent(chunk.getJob().getKnowledgeId(), id -> new ArrayList<>()).add(chunk);
+        }
+        for (Map.Entry<Long, List<Chunk>> entry : byKnowledge.entrySet()) {
+            indexShard(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void indexShard(Long knowledgeId, List<Chunk> chunks) {
+        List<Document> documents = new ArrayList<>(chunks.size());
+        long chars = 0;
+        for (Chunk chunk : chunks) {
+            documents.add(chunk.getDocument());
+            chars += chunk.getDocument().getContent().length();
+        }
+        long start = System.nanoTime();
+        synchronized (knowledgeLock(knowledgeId)) {
+            if (droppedKnowledge.contains(knowledgeId)) {
+                for (Chunk chunk : chunks) {
+                    fail(chunk.getJob(), "知识库已删除", null);
+                }
+            } else {
+                try {
+                    search.indexDocuments(shardKey(knowledgeId), documents);
+                    if (embeddingClient.isEnabled()) {
+                        indexVectors(knowledgeId, documents);
+                    }
+                    indexMetrics.record(chunks.size(), chars, System.nanoTime() - start);
+                } catch (IOException | RuntimeException e) {
+                    indexMetrics.recordError();
+                    for (Chunk chunk : chunks) {
+                        fail(chunk.getJob(), "索引写入失败: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        for (Chunk chunk : chunks) {
+            chunk.getJob().getChunksIndexed().incrementAndGet();
+            checkCompleted(chunk.getJob());
+        }
+    }
+
+    /**
+     * 向量化片段并按片段ID写入知识库的向量索引，检索时按ID从全文分片取回片段
+     */
+    private void indexVectors(Long knowledgeId, List<Document> documents) {
+        List<String> texts = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            texts.add(document.getContent());
+        }
+        List<float[]> vectors = embeddingClient.embed(texts);
+        for (int i = 0; i < documents.size(); i++) {
+            vectorIndexManager.insert(knowledgeId, documents.get(i).getId(), vectors.get(i));
+        }
+    }
+
+    /**
+     * 知识库对应的索引分片
+     */
+    public static String shardKey(Long knowledgeId) {
+        return SHARD_PREFIX + knowledgeId;
+    }
+
+    /**
+     * 分片对应的知识库ID
+     *
+     * @param shardKey 分片键
+     * @return 知识库ID，不是知识库分片时返回null
+     */
+    public static Long knowledgeId(String shardKey) {
+        if (shardKey == null || !shardKey.startsWith(SHARD_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(shardKey.substring(SHARD_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void checkCompleted(IngestionJob job) {
+        synchronized (job) {
+            if (job.isFinished() || !job.isExtracted()
+                    || job.getChunksIndexed().get() < job.getChunksProduced().get()) {
+                return;
+            }
+            job.setStatus(IngestionJob.Status.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        log.info("Ingested {} chunks from '{}' into knowledge {}", job.getChunksIndexed().get(), job.getFileName(), job.getKnowledgeId());
+    }
+
+    private void fail(IngestionJob job, String message, Exception e) {
+        synchronized (job) {
+            if (job.isFinished()) {
+                return;
+            }
+            job.setError(message);
+            job.setStatus(IngestionJob.Status.FAILED);
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        log.warn("Ingestion job {} for '{}' failed: {}", job.getJobId(), job.getFileName(), message, e);
+    }
+
+    private Object knowledgeLock(Long knowledgeId) {
+        return knowledgeLocks[Math.floorMod(knowledgeId.hashCode(), knowledgeLocks.length)];
+    }
+
+    private TextExtractor findExtractor(String fileName) {
+        for (TextExtractor extractor : extractors) {
+            if (extractor.supports(fileName)) {
+                return extractor;
+            }
+        }
+        return null;
+    }
+
+    private Path createTempFile(String fileName) throws IOException {
+        int dot = fileName.lastIndexOf('.');
+        String suffix = dot >= 0 ? fileName.substring(dot) : ".tmp";
+        if (properties.getTempDir() == null || properties.getTempDir().isEmpty()) {
+            return Files.createTempFile("knowledge-upload-", suffix);
+        }
+        Path dir = Paths.get(properties.getTempDir());
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, "knowledge-upload-", suffix);
+    }
+
+    private void pruneFinishedJobs() {
+        int excess = jobs.size() - Math.max(0, properties.getMaxFinishedJobs());
+        if (excess <= 0) {
+            return;
+        }
+        List<IngestionJob> finished = new ArrayList<>();
+        for (IngestionJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        finished.sort((a, b) -> a.getFinishedAt().compareTo(b.getFinishedAt()));
+        Iterator<IngestionJob> it = finished.iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            jobs.remove(it.next().getJobId());
+        }
+    }
+
+    private static Map<String, Object> withQueue(Map<String, Object> snapshot, int queueSize) {
+        snapshot.put("queued", queueSize);
+        return snapshot;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file {}", file, e);
+        }
+    }
+
+    private ThreadPoolExecutor newStageExecutor(String name, int threads, RejectedExecutionHandler rejectionHandler) {
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getJobQueueCapacity())), namedThreadFactory(name),
+                rejectionHandler);
+    }
+
+    private static ThreadFactory namedThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 删除知识库分片的操作
+     */
+    @FunctionalInterface
+    public interface KnowledgeDrop {
+        void run() throws IOException;
+    }
+
+    /**
+     * 等待写入索引的片段
+     */
+    @Data
+    private static class Chunk {
+        private final IngestionJob job;
+        private final Document document;
+    }
+}
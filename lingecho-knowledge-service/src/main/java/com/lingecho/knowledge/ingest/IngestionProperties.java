@@ -0,0 +1,85 @@
+package com.lingecho.knowledge.ingest;
+
+import com.lingecho.common.core.search.ShardedHibiscusSearch;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 知识库文件入库配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "lingecho.knowledge.ingest")
+public class IngestionProperties {
+
+    /**
+     * 全文索引根目录，每个知识库一个分片子目录
+     */
+    private String indexPath = "./data/knowledge-index";
+
+    /**
+     * 最多同时打开的知识库分片数
+     */
+    private int maxOpenShards = ShardedHibiscusSearch.DEFAULT_MAX_OPEN_SHARDS;
+
+    /**
+     * 所有分片的索引写入RAM缓冲区总量（MB），按最多打开的分片数平分
+     */
+    private int ramBufferSizeMB = 256;
+
+    /**
+     * 过滤条件缓存的段至少包含的片段数，知识库分片较小，低于Lucene默认的10000
+     */
+    private int filterCacheMinSegmentDocs = 1000;
+
+    /**
+     * 上传文件的临时目录，为空时使用系统临时目录
+     */
+    private String tempDir;
+
+    /**
+     * 片段长度（字符）
+     */
+    private int chunkSize = 800;
+
+    /**
+     * 相邻片段的重叠长度（字符）
+     */
+    private int chunkOverlap = 100;
+
+    /**
+     * 每批写入索引的片段数
+     */
+    private int indexBatchSize = 200;
+
+    /**
+     * 存储阶段线程数
+     */
+    private int storeThreads = 2;
+
+    /**
+     * 提取分块阶段线程数
+     */
+    private int extractThreads = 2;
+
+    /**
+     * 索引阶段线程数
+     */
+    private int indexThreads = 1;
+
+    /**
+     * 每个阶段等待处理的任务数上限，超过后拒绝新的上传
+     */
+    private int jobQueueCapacity = 100;
+
+    /**
+     * 等待写入索引的片段数上限，超过后提取阶段阻塞等待
+     */
+    private int chunkQueueCapacity = 2000;
+
+    /**
+     * 保留的已结束任务数
+     */
+    private int maxFinishedJobs = 1000;
+}
@@ -0,0 +1,35 @@
+package com.lingecho.knowledge.ingest;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * PDF文本提取器，逐页提取，解析缓存使用临时文件而不是堆内存
+ */
+@Component
+public class PdfTextExtractor implements TextExtractor {
+
+    @Override
+    public boolean supports(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+
+    @Override
+    public void extract(Path file, TextSink sink) throws IOException, InterruptedException {
+        try (PDDocument document = PDDocument.load(file.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            int pages = document.getNumberOfPages();
+            for (int page = 1; page <= pages; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                sink.accept(stripper.getText(document));
+            }
+        }
+    }
+}
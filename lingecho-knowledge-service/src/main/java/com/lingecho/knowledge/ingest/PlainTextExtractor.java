@@ -0,0 +1,39 @@
+package com.lingecho.knowledge.ingest;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 纯文本提取器，按固定大小的字符块读取
+ */
+@Component
+public class PlainTextExtractor implements TextExtractor {
+
+    private static final Set<String> EXTENSIONS = Set.of("txt", "md", "markdown", "csv", "json", "xml", "html", "htm", "log");
+
+    private static final int BLOCK_SIZE = 8192;
+
+    @Override
+    public boolean supports(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public void extract(Path file, TextSink sink) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[BLOCK_SIZE];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sink.accept(new String(buffer, 0, read));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.lingecho.knowledge.ingest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流水线阶段的吞吐统计
+ */
+public class StageMetrics {
+
+    private final String name;
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public StageMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 记录一次处理
+     *
+     * @param itemCount 处理的条数
+     * @param byteCount 处理的字节（或字符）数
+     * @param nanos 耗时
+     */
+    public void record(long itemCount, long byteCount, long nanos) {
+        items.addAndGet(itemCount);
+        bytes.addAndGet(byteCount);
+        busyNanos.addAndGet(nanos);
+    }
+
+    public void recordError() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * 获取统计快照，吞吐按阶段实际工作时间计算
+     */
+    public Map<String, Object> snapshot() {
+        long nanos = busyNanos.get();
+        double seconds = nanos / 1e9;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("stage", name);
+        snapshot.put("items", items.get());
+        snapshot.put("bytes", bytes.get());
+        snapshot.put("errors", errors.get());
+        snapshot.put("busyMillis", nanos / 1_000_000);
+        snapshot.put("itemsPerSecond", seconds > 0 ? items.get() / seconds : 0.0);
+        snapshot.put("bytesPerSecond", seconds > 0 ? bytes.get() / seconds : 0.0);
+        return snapshot;
+    }
+}
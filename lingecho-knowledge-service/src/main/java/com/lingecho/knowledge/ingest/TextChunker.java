@@ -0,0 +1,81 @@
+package com.lingecho.knowledge.ingest;
+
+/**
+ * 增量文本分块
+ * 接收任意长度的文本段，输出固定长度、首尾重叠的片段；片段尽量在句子或空白处断开
+ */
+public class TextChunker implements TextExtractor.TextSink {
+
+    // 在片段末尾的这一比例范围内寻找断点
+    private static final double BOUNDARY_WINDOW = 0.2;
+
+    private final int chunkSize;
+    private final int overlap;
+    private final TextExtractor.TextSink output;
+    private final StringBuilder buffer = new StringBuilder();
+
+    // 缓冲区开头已经输出过的字符数（上一片段的重叠部分）
+    private int emitted;
+
+    /**
+     * 创建分块器
+     *
+     * @param chunkSize 片段长度（字符）
+     * @param overlap 相邻片段的重叠长度（字符）
+     * @param output 片段输出
+     */
+    public TextChunker(int chunkSize, int overlap, TextExtractor.TextSink output) {
+        if (chunkSize <= 0 || overlap < 0 || overlap >= chunkSize) {
+            throw new IllegalArgumentException("Invalid chunk size " + chunkSize + " or overlap " + overlap);
+        }
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+        this.output = output;
+    }
+
+    @Override
+    public void accept(String text) throws InterruptedException {
+        buffer.append(text);
+        while (buffer.length() >= chunkSize) {
+            int end = findBoundary();
+            emit(buffer.substring(0, end));
+            int next = Math.max(end - overlap, 1);
+            buffer.delete(0, next);
+            emitted = end - next;
+        }
+    }
+
+    /**
+     * 输出剩余文本
+     */
+    public void finish() throws InterruptedException {
+        if (buffer.length() > emitted) {
+            emit(buffer.toString());
+        }
+        buffer.setLength(0);
+        emitted = 0;
+    }
+
+    private int findBoundary() {
+        int min = chunkSize - (int) (chunkSize * BOUNDARY_WINDOW);
+        for (int i = chunkSize - 1; i >= Math.max(min, overlap + 1); i--) {
+            char c = buffer.charAt(i - 1);
+            if (c == '\n' || c == '。' || c == '！' || c == '？' || c == '.' || c == '!' || c == '?') {
+                return i;
+            }
+        }
+        for (int i = chunkSize - 1; i >= Math.max(min, overlap + 1); i--) {
+            if (Character.isWhitespace(buffer.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return chunkSize;
+    }
+
+    private void emit(String chunk) throws InterruptedException {
+        String trimmed = chunk.trim();
+        if (!trimmed.isEmpty()) {
+            output.accept(trimmed);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.lingecho.knowledge.ingest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 文本提取器
+ * 按段输出提取到的文本，不一次性把整个文件读入内存
+ */
+public interface TextExtractor {
+
+    /**
+     * 是否支持该文件
+     *
+     * @param fileName 文件名
+     * @return 是否支持
+     */
+    boolean supports(String fileName);
+
+    /**
+     * 提取文本
+     *
+     * @param file 文件
+     * @param sink 文本输出，下游队列满时会阻塞
+     * @throws IOException 读取异常
+     * @throws InterruptedException 等待下游时被中断
+     */
+    void extract(Path file, TextSink sink) throws IOException, InterruptedException;
+
+    /**
+     * 文本输出
+     */
+    @FunctionalInterface
+    interface TextSink {
+        void accept(String text) throws InterruptedException;
+    }
+}
@@ -0,0 +1,48 @@
+package com.lingecho.knowledge.search;
+
+import com.lingecho.common.core.search.model.SearchResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分布式检索结果，包含合并后的结果和各节点的执行情况
+ */
+@Data
+public class DistributedSearchResult {
+
+    private SearchResult result;
+
+    /**
+     * 参与检索的节点数
+     */
+    private int totalNodes;
+
+    /**
+     * 成功返回的节点数
+     */
+    private int successfulNodes;
+
+    /**
+     * 失败或超时的节点
+     */
+    private List<NodeFailure> failures = new ArrayList<>();
+
+    /**
+     * 是否只包含部分节点的结果
+     */
+    public boolean isPartial() {
+        return !failures.isEmpty();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NodeFailure {
+        private String node;
+        private String reason;
+    }
+}
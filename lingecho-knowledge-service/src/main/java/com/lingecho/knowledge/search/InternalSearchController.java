@@ -0,0 +1,94 @@
+package com.lingecho.knowledge.search;
+
+import com.lingecho.common.core.search.model.SearchResult;
+import com.lingecho.knowledge.ingest.IngestionJob;
+import com.lingecho.knowledge.ingest.IngestionPipeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 节点间检索接口，只在服务之间调用，不经网关暴露
+ * 请求需携带X-Internal-Token请求头；未配置共享密钥时两个接口都拒绝请求
+ */
+@RestController
+@RequestMapping("/internal/search")
+@RequiredArgsConstructor
+public class InternalSearchController {
+
+    /**
+     * 共享密钥请求头
+     */
+    public static final String TOKEN_HEADER = "X-Internal-Token";
+
+    private final KnowledgeShardSearch knowledgeSearch;
+    private final IngestionPipeline ingestionPipeline;
+    private final ScatterGatherProperties properties;
+
+    /**
+     * 检索本节点持有的分片，必须指定分片，不允许一次检索节点上的所有分片
+     */
+    @PostMapping
+    public SearchResult search(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                               @RequestBody ShardSearchRequest request) throws IOException {
+        authorize(token);
+        if (request.getShardKeys() == null || request.getShardKeys().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "shardKeys is required");
+        }
+        if (request.getRequest() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "request is required");
+        }
+        return knowledgeSearch.search(request.getShardKeys(), request.getRequest());
+    }
+
+    /**
+     * 删除本节点上的分片及其向量索引
+     */
+    @DeleteMapping("/shards/{shardKey}")
+    public void dropShard(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                          @PathVariable String shardKey) throws IOException {
+        authorize(token);
+        knowledgeSearch.dropShard(shardKey);
+    }
+
+    /**
+     * 查询本节点上的入库任务
+     */
+    @GetMapping("/jobs/{jobId}")
+    public IngestionJob getJob(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                               @PathVariable String jobId) {
+        authorize(token);
+        IngestionJob job = ingestionPipeline.getJob(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingestion job not found");
+        }
+        return job;
+    }
+
+    /**
+     * 校验共享密钥，按常量时间比较；未配置密钥时拒绝
+     */
+    private void authorize(String token) {
+        String expected = properties.getInternalToken();
+        if (!StringUtils.hasText(expected)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Internal token is not configured");
+        }
+        if (token == null || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid internal token");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.lingecho.knowledge.search;
+
+import com.lingecho.common.core.search.ShardedHibiscusSearch;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 知识库索引状态指标：文档数、删除比例、段数、写缓冲、合并和刷新延迟，汇总所有已打开的分片
+ */
+@Component
+@RequiredArgsConstructor
+public class KnowledgeIndexGauges implements MeterBinder {
+
+    // 一次采集中各个指标共用同一份状态，避免每个指标都遍历一遍分片
+    private static final long STATS_TTL_MS = 1000;
+
+    private final ShardedHibiscusSearch knowledgeSearch;
+    private volatile Map<String, Long> stats = Collections.emptyMap();
+    private volatile long statsTime;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Gauge默认弱引用状态对象，绑定后没有其他地方持有本对象时会被回收，指标变为NaN；这里全部使用强引用
+        gauge(registry, "knowledge.index.docs", "numDocs", null);
+        gauge(registry, "knowledge.index.segments", "segmentCount", null);
+        gauge(registry, "knowledge.index.ram.buffer", "ramBufferBytes", "bytes");
+        gauge(registry, "knowledge.index.merges.pending", "pendingMerges", null);
+        gauge(registry, "knowledge.index.merges.segments", "mergingSegments", null);
+        gauge(registry, "knowledge.index.refresh.lag", "refreshLagMillis", "milliseconds");
+        gauge(registry, "knowledge.index.shards.open", "openShards", null);
+        Gauge.builder("knowledge.index.deleted.ratio", this, gauges -> {
+                    Map<String, Long> current = gauges.currentStats();
+                    long deleted = current.getOrDefault("deletedDocs", 0L);
+                    long total = deleted + current.getOrDefault("numDocs", 0L);
+                    return total == 0 ? 0 : (double) deleted / total;
+                })
+                .description("Deleted documents / all documents in open shards")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String stat, String baseUnit) {
+        Gauge.builder(name, this, gauges -> gauges.currentStats().getOrDefault(stat, 0L))
+                .baseUnit(baseUnit)
+                .strongReference(true)
+                .register(registry);
+    }
+
+    private Map<String, Long> currentStats() {
+        long now = System.currentTimeMillis();
+        if (now - statsTime > STATS_TTL_MS) {
+            stats = knowledgeSearch.getEngineStats();
+            statsTime = now;
+        }
+        return stats;
+    }
+}
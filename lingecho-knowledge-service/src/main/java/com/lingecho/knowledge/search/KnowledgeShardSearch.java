@@ -0,0 +1,156 @@
+package com.lingecho.knowledge.search;
+
+import com.lingecho.common.core.search.ShardedHibiscusSearch;
+import com.lingecho.common.core.search.model.SearchRequest;
+import com.lingecho.common.core.search.model.SearchResult;
+import com.lingecho.knowledge.ingest.IngestionPipeline;
+import com.lingecho.knowledge.vector.KnowledgeVectorIndexManager;
+import com.lingecho.knowledge.vector.VectorHit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本节点的知识库检索
+ * 全文检索各知识库分片；请求带查询向量时同时检索本节点的向量索引，按片段ID取回文档后与全文结果按RRF融合。
+ * 本节点发起的检索和其他节点转发来的检索都经过这里，删除知识库时分片和向量索引一起删除
+ */
+@Component
+@RequiredArgsConstructor
+public class KnowledgeShardSearch {
+
+    private final ShardedHibiscusSearch knowledgeSearch;
+    private final KnowledgeVectorIndexManager vectorIndexManager;
+    private final IngestionPipeline ingestionPipeline;
+
+    /**
+     * 检索本节点持有的分片
+     *
+     * @param shardKeys 分片键，为null时检索所有分片
+     * @param request 分片请求，vector不为空时做混合检索，vectorCandidates为向量检索的ef
+     * @return 本节点的结果，混合检索时得分为RRF得分
+     * @throws IOException 检索异常
+     */
+    public SearchResult search(Collection<String> shardKeys, SearchRequest request) throws IOException {
+        float[] vector = request.getVector();
+        // 全文分片中没有向量，向量部分由知识库向量索引负责
+        SearchResult text = knowledgeSearch.search(shardKeys, request.copy().setVector(null));
+        if (vector == null) {
+            return text;
+        }
+
+        List<SearchResult.SearchHit> vectorHits = new ArrayList<>();
+        for (String shardKey : shardKeys != null ? shardKeys : knowledgeSearch.listShards()) {
+            Long knowledgeId = IngestionPipeline.knowledgeId(shardKey);
+            if (knowledgeId != null) {
+                vectorHits.addAll(searchVectors(shardKey, knowledgeId, vector, request));
+            }
+        }
+        vectorHits.sort(Comparator.comparing(SearchResult.SearchHit::getScore).reversed());
+        return fuse(request, text, vectorHits);
+    }
+
+    /**
+     * 删除本节点上知识库的全文分片和向量索引，入库流水线中排队的片段不再写入
+     *
+     * @param shardKey 分片键
+     * @throws IOException 删除异常
+     */
+    public void dropShard(String shardKey) throws IOException {
+        Long knowledgeId = IngestionPipeline.knowledgeId(shardKey);
+        if (knowledgeId == null) {
+            knowledgeSearch.dropShard(shardKey);
+            return;
+        }
+        ingestionPipeline.dropKnowledge(knowledgeId, () -> {
+            knowledgeSearch.dropShard(shardKey);
+            vectorIndexManager.drop(knowledgeId);
+        });
+    }
+
+    /**
+     * 检索一个知识库的向量索引，并按片段ID从全文分片取回文档；请求的过滤条件同样生效
+     */
+    private List<SearchResult.SearchHit> searchVectors(String shardKey, Long knowledgeId, float[] vector,
+                                                       SearchRequest request) throws IOException {
+        int k = Math.max(1, request.getMaxResults());
+        List<VectorHit> hits = vectorIndexManager.search(knowledgeId, vector, k, request.getVectorCandidates());
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Float> scores = new LinkedHashMap<>();
+        for (VectorHit hit : hits) {
+            scores.put(hit.getId(), hit.getScore());
+        }
+        SearchRequest fetch = request.copy()
+                .setQuery("")
+                .setVector(null)
+                .setIds(new ArrayList<>(scores.keySet()))
+                .setPage(1)
+                .setPageSize(scores.size())
+                .setMaxResults(scores.size())
+                .setHighlight(false)
+                .setFacets(null)
+                .setSortFields(null);
+        List<SearchResult.SearchHit> documents = new ArrayList<>(scores.size());
+        for (SearchResult.SearchHit hit : knowledgeSearch.search(shardKey, fetch).getHits()) {
+            Float score = scores.get(hit.getId());
+            if (score != null) {
+                hit.setScore(score);
+                documents.add(hit);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * RRF融合：片段得分为全文排名和向量排名中1/(k+排名)之和
+     */
+    private static SearchResult fuse(SearchRequest request, SearchResult text, List<SearchResult.SearchHit> vectorHits) {
+        int rankConstant = Math.max(0, request.getRrfRankConstant());
+        Map<String, SearchResult.SearchHit> hits = new LinkedHashMap<>();
+        Map<String, Float> scores = new LinkedHashMap<>();
+        List<SearchResult.SearchHit> textHits = text.getHits();
+        for (int i = 0; i < textHits.size(); i++) {
+            SearchResult.SearchHit hit = textHits.get(i);
+            hits.putIfAbsent(hit.getId(), hit);
+            scores.merge(hit.getId(), 1f / (rankConstant + i + 1), Float::sum);
+        }
+        for (int i = 0; i < vectorHits.size(); i++) {
+            SearchResult.SearchHit hit = vectorHits.get(i);
+            hits.putIfAbsent(hit.getId(), hit);
+            scores.merge(hit.getId(), 1f / (rankConstant + i + 1), Float::sum);
+        }
+
+        List<SearchResult.SearchHit> fused = new ArrayList<>(hits.size());
+        for (Map.Entry<String, SearchResult.SearchHit> entry : hits.entrySet()) {
+            SearchResult.SearchHit hit = entry.getValue();
+            hit.setScore(scores.get(entry.getKey()));
+            hit.setSortValues(null);
+            fused.add(hit);
+        }
+        // List.sort是稳定排序，同分时全文结果在前
+        fused.sort(Comparator.comparing(SearchResult.SearchHit::getScore).reversed());
+        if (fused.size() > request.getMaxResults()) {
+            fused = new ArrayList<>(fused.subList(0, Math.max(0, request.getMaxResults())));
+        }
+
+        SearchResult result = new SearchResult(request.getQuery(), Math.max(text.getTotalHits(), hits.size()));
+        // 向量结果只有前N个，总数为下限
+        result.setTotalHitsExact(false);
+        result.setTimedOut(text.isTimedOut());
+        result.setFacets(text.getFacets());
+        result.setPage(request.getPage());
+        result.setPageSize(request.getPageSize());
+        result.setSearchTime(text.getSearchTime());
+        result.setHits(fused);
+        return result;
+    }
+}
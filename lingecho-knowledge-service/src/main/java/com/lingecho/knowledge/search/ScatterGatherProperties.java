@@ -0,0 +1,39 @@
+package com.lingecho.knowledge.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分布式检索配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "lingecho.knowledge.search")
+public class ScatterGatherProperties {
+
+    /**
+     * 单个节点的检索超时（毫秒），超时的节点计为失败
+     */
+    private long nodeTimeoutMs = 2000;
+
+    /**
+     * 连接其他节点的超时（毫秒）
+     */
+    private long connectTimeoutMs = 500;
+
+    /**
+     * 发往各节点的并发线程数
+     */
+    private int threads = 16;
+
+    /**
+     * 部分节点失败时是否返回其余节点的结果，为false时任一节点失败即整体失败
+     */
+    private boolean allowPartialResults = true;
+
+    /**
+     * 节点间接口的共享密钥，通过X-Internal-Token请求头传递；未配置时节点间接口拒绝所有请求，只能单节点部署
+     */
+    private String internalToken;
+}
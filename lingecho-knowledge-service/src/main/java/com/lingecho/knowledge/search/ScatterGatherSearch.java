@@ -0,0 +1,242 @@
+package com.lingecho.knowledge.search;
+
+import com.lingecho.common.core.search.core.SearchResultMerger;
+import com.lingecho.common.core.search.model.SearchRequest;
+import com.lingecho.common.core.search.model.SearchResult;
+import com.lingecho.knowledge.ingest.IngestionJob;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 跨服务实例的分布式检索
+ * 通过注册中心发现同一服务的其他实例，本节点和各节点并行检索各自持有的分片，
+ * 每个节点有独立的超时，结果按SearchResultMerger归并；失败或超时的节点记录在结果中，其余节点的结果照常返回
+ */
+@Slf4j
+@Component
+public class ScatterGatherSearch {
+
+    private static final String LOCAL_NODE = "local";
+    private static final String SEARCH_PATH = "/internal/search";
+
+    private final KnowledgeShardSearch knowledgeSearch;
+    private final ScatterGatherProperties properties;
+    private final ObjectProvider<DiscoveryClient> discoveryClient;
+    private final ObjectProvider<Registration> registration;
+    private final String serviceId;
+    private final RestTemplate restTemplate;
+    private final ThreadPoolExecutor executor;
+
+    public ScatterGatherSearch(KnowledgeShardSearch knowledgeSearch, ScatterGatherProperties properties,
+                               ObjectProvider<DiscoveryClient> discoveryClient, ObjectProvider<Registration> registration,
+                               RestTemplateBuilder restTemplateBuilder,
+                               @Value("${spring.application.name}") String serviceId) {
+        this.knowledgeSearch = knowledgeSearch;
+        this.properties = properties;
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        this.serviceId = serviceId;
+        RestTemplateBuilder builder = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                .setReadTimeout(Duration.ofMillis(properties.getNodeTimeoutMs()));
+        if (StringUtils.hasText(properties.getInternalToken())) {
+            builder = builder.defaultHeader(InternalSearchController.TOKEN_HEADER, properties.getInternalToken());
+        } else {
+            log.warn("lingecho.knowledge.search.internal-token is not configured, other nodes will reject internal search requests");
+        }
+        this.restTemplate = builder.build();
+        int threads = Math.max(1, properties.getThreads());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "scatter-gather-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 在所有节点上检索并合并结果
+     *
+     * @param shardKeys 要检索的分片
+     * @param request 搜索请求
+     * @return 合并后的结果及各节点的执行情况
+     * @throws IllegalArgumentException 未指定分片
+     * @throws IllegalStateException 没有节点返回结果，或不允许部分结果时有节点失败
+     */
+    public DistributedSearchResult search(List<String> shardKeys, SearchRequest request) {
+        if (shardKeys == null || shardKeys.isEmpty()) {
+            throw new IllegalArgumentException("Shard keys cannot be null or empty");
+        }
+        long startTime = System.currentTimeMillis();
+        SearchRequest shardRequest = SearchResultMerger.shardRequest(request);
+        ShardSearchRequest body = new ShardSearchRequest(shardKeys, shardRequest);
+
+        DistributedSearchResult distributed = new DistributedSearchResult();
+        Map<String, Future<SearchResult>> futures = new LinkedHashMap<>();
+        submit(futures, distributed, LOCAL_NODE, () -> knowledgeSearch.search(shardKeys, shardRequest));
+        for (ServiceInstance peer : peers()) {
+            URI uri = peer.getUri().resolve(SEARCH_PATH);
+            submit(futures, distributed, nodeName(peer), () -> restTemplate.postForObject(uri, body, SearchResult.class));
+        }
+        distributed.setTotalNodes(futures.size() + distributed.getFailures().size());
+
+        // 所有节点共用一个截止时间，整体等待不超过单节点超时
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getNodeTimeoutMs());
+        List<SearchResult> results = new ArrayList<>(futures.size());
+        for (Map.Entry<String, Future<SearchResult>> entry : futures.entrySet()) {
+            String node = entry.getKey();
+            Future<SearchResult> future = entry.getValue();
+            try {
+                SearchResult result = future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (result != null) {
+                    results.add(result);
+                }
+            } catch (TimeoutException e) {
+                // 本节点的Lucene检索不能被中断，中断会关闭NIO文件通道
+                future.cancel(!LOCAL_NODE.equals(node));
+                distributed.getFailures().add(new DistributedSearchResult.NodeFailure(node, "timeout"));
+            } catch (ExecutionException e) {
+                log.warn("Search on node {} failed", node, e.getCause());
+                distributed.getFailures().add(new DistributedSearchResult.NodeFailure(node, String.valueOf(e.getCause().getMessage())));
+            } catch (InterruptedException e) {
+                futures.forEach((name, f) -> f.cancel(!LOCAL_NODE.equals(name)));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for search nodes", e);
+            }
+        }
+        distributed.setSuccessfulNodes(results.size());
+
+        if (results.isEmpty()) {
+            throw new IllegalStateException("No search node responded: " + distributed.getFailures());
+        }
+        if (distributed.isPartial()) {
+            if (!properties.isAllowPartialResults()) {
+                throw new IllegalStateException("Search failed on nodes: " + distributed.getFailures());
+            }
+            log.warn("Partial search result: {}/{} nodes responded, failures={}",
+                    results.size(), distributed.getTotalNodes(), distributed.getFailures());
+        }
+
+        SearchResult merged = SearchResultMerger.merge(request, results);
+        merged.setSearchTime(System.currentTimeMillis() - startTime);
+        distributed.setResult(merged);
+        return distributed;
+    }
+
+    /**
+     * 删除所有节点上的分片；删除是幂等的，任一节点失败时整体失败，由调用方重试
+     *
+     * @param shardKey 分片键
+     * @throws IOException 本节点删除异常，或有其他节点删除失败
+     */
+    public void dropShard(String shardKey) throws IOException {
+        knowledgeSearch.dropShard(shardKey);
+        List<String> failedNodes = new ArrayList<>();
+        for (ServiceInstance peer : peers()) {
+            try {
+                restTemplate.delete(peer.getUri().resolve(SEARCH_PATH + "/shards/" + shardKey));
+            } catch (RuntimeException e) {
+                log.warn("Failed to drop shard {} on node {}", shardKey, nodeName(peer), e);
+                failedNodes.add(nodeName(peer));
+            }
+        }
+        if (!failedNodes.isEmpty()) {
+            throw new IOException("Failed to drop shard " + shardKey + " on nodes " + failedNodes);
+        }
+    }
+
+    /**
+     * 在其他节点上查找入库任务；任务只保存在接收上传的节点上，轮询可能被路由到其他节点
+     *
+     * @param jobId 任务ID
+     * @return 任务，所有节点都没有时返回null
+     */
+    public IngestionJob findIngestionJob(String jobId) {
+        for (ServiceInstance peer : peers()) {
+            try {
+                // 任务ID来自请求参数，作为URI变量编码
+                IngestionJob job = restTemplate.getForObject(peer.getUri().resolve(SEARCH_PATH) + "/jobs/{jobId}",
+                        IngestionJob.class, jobId);
+                if (job != null) {
+                    return job;
+                }
+            } catch (HttpClientErrorException.NotFound e) {
+                // 不在该节点上
+            } catch (RuntimeException e) {
+                log.warn("Failed to look up ingestion job {} on node {}", jobId, nodeName(peer), e);
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Map<String, Future<SearchResult>> futures, DistributedSearchResult distributed,
+                        String node, Callable<SearchResult> task) {
+        try {
+            futures.put(node, executor.submit(task));
+        } catch (RejectedExecutionException e) {
+            distributed.getFailures().add(new DistributedSearchResult.NodeFailure(node, "rejected"));
+        }
+    }
+
+    /**
+     * 同一服务的其他实例，按实例ID排序使同分结果的先后稳定
+     */
+    private List<ServiceInstance> peers() {
+        DiscoveryClient client = discoveryClient.getIfAvailable();
+        if (client == null) {
+            return Collections.emptyList();
+        }
+        Registration self = registration.getIfAvailable();
+        if (self == null) {
+            // 无法区分本节点时只检索本地，避免本节点的结果重复
+            return Collections.emptyList();
+        }
+        List<ServiceInstance> peers = new ArrayList<>();
+        for (ServiceInstance instance : client.getInstances(serviceId)) {
+            if (!self.getInstanceId().equals(instance.getInstanceId())) {
+                peers.add(instance);
+            }
+        }
+        peers.sort(Comparator.comparing(this::nodeName));
+        return peers;
+    }
+
+    private String nodeName(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,55 @@
+package com.lingecho.knowledge.search;
+
+import com.lingecho.common.core.search.core.SearchMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识库检索的阶段耗时和缓存指标，通过actuator的/actuator/metrics导出
+ */
+@Component
+public class SearchMeters implements SearchMetrics {
+
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<Cache, Map<CacheEvent, Counter>> cacheCounters = new EnumMap<>(Cache.class);
+
+    public SearchMeters(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("knowledge.search.phase")
+                    .description("Time spent in each search phase")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (Cache cache : Cache.values()) {
+            Map<CacheEvent, Counter> counters = new EnumMap<>(CacheEvent.class);
+            for (CacheEvent event : CacheEvent.values()) {
+                counters.put(event, Counter.builder("knowledge.search.cache")
+                        .description("Search cache hits, misses and evictions")
+                        .tag("cache", cache.name().toLowerCase(Locale.ROOT))
+                        .tag("event", event.name().toLowerCase(Locale.ROOT))
+                        .register(registry));
+            }
+            cacheCounters.put(cache, counters);
+        }
+    }
+
+    @Override
+    public void recordPhase(Phase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordCache(Cache cache, CacheEvent event, long count) {
+        if (count > 0) {
+            cacheCounters.get(cache).get(event).increment(count);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.lingecho.knowledge.search;
+
+import com.lingecho.common.core.search.model.SearchRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 发往单个节点的检索请求
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardSearchRequest {
+
+    /**
+     * 要检索的分片，不能为空
+     */
+    private List<String> shardKeys;
+
+    private SearchRequest request;
+}
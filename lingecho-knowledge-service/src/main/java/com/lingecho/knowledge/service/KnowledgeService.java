@@ -2,19 +2,29 @@ package com.lingecho.knowledge.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.lingecho.knowledge.entity.Knowledge;
+import com.lingecho.knowledge.ingest.IngestionJob;
+import com.lingecho.knowledge.ingest.IngestionPipeline;
 import com.lingecho.knowledge.mapper.KnowledgeMapper;
+import com.lingecho.knowledge.search.DistributedSearchResult;
+import com.lingecho.knowledge.search.ScatterGatherSearch;
+import com.lingecho.knowledge.vector.EmbeddingClient;
+import com.lingecho.knowledge.vector.VectorIndexProperties;
 import com.lingecho.common.core.ApiResponse;
 import com.lingecho.common.core.exception.BusinessException;
+import com.lingecho.common.core.search.model.SearchRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 知识库服务
@@ -25,6 +35,10 @@ import java.util.Map;
 public class KnowledgeService {
 
     private final KnowledgeMapper knowledgeMapper;
+    private final IngestionPipeline ingestionPipeline;
+    private final ScatterGatherSearch scatterGatherSearch;
+    private final EmbeddingClient embeddingClient;
+    private final VectorIndexProperties vectorIndexProperties;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -90,6 +104,7 @@ public class KnowledgeService {
 
     /**
      * 删除知识库
+     * 所有节点上的分片和向量索引都删除后才删除记录；任一节点删除失败时记录保留，可以再次删除
      */
     @Transactional
     public ApiResponse<Void> deleteKnowledge(Long userId, Long knowledgeId) {
@@ -98,34 +113,101 @@ public class KnowledgeService {
             throw new BusinessException("知识库不存在或无权操作");
         }
 
+        try {
+            scatterGatherSearch.dropShard(IngestionPipeline.shardKey(knowledgeId));
+        } catch (IOException e) {
+            log.warn("Failed to delete indexed chunks of knowledge {}", knowledgeId, e);
+            return ApiResponse.error(503, "知识库索引删除失败，请稍后重试");
+        }
         knowledgeMapper.deleteById(knowledgeId);
         return ApiResponse.success();
     }
 
     /**
      * 上传文件到知识库
+     * 文件写入临时文件后立即返回任务ID，存储、文本提取、分块和索引在入库流水线中异步完成
      */
-    @Transactional
     public ApiResponse<Map<String, Object>> uploadFileToKnowledgeBase(
             Long userId,
             Long knowledgeId,
-            String fileName,
-            byte[] fileContent) {
+            MultipartFile file) {
         
         Knowledge knowledge = knowledgeMapper.selectById(knowledgeId);
         if (knowledge == null || !knowledge.getUserId().equals(userId)) {
             throw new BusinessException("知识库不存在或无权操作");
         }
 
-        // TODO: 实现文件上传到知识库的逻辑
-        // 这里需要根据不同的provider（aliyun, milvus等）实现不同的上传逻辑
+        IngestionJob job;
+        try {
+            job = ingestionPipeline.submit(knowledgeId, file);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.badRequest(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ApiResponse.error(429, "入库任务过多，请稍后重试");
+        } catch (IOException e) {
+            return ApiResponse.error("文件上传失败: " + e.getMessage());
+        }
         
         Map<String, Object> result = new HashMap<>();
         result.put("knowledgeId", knowledgeId);
-        result.put("fileName", fileName);
-        result.put("status", "uploaded");
+        result.put("fileName", job.getFileName());
+        result.put("jobId", job.getJobId());
+        result.put("status", job.getStatus());
         
         return ApiResponse.success(result);
     }
+
+    /**
+     * 查询文件入库任务
+     * 任务只保存在接收上传的节点上，本节点没有时到其他节点查找；节点重启后其上的任务不再可查
+     */
+    public ApiResponse<IngestionJob> getIngestionJob(Long userId, String jobId) {
+        IngestionJob job = ingestionPipeline.getJob(jobId);
+        if (job == null) {
+            job = scatterGatherSearch.findIngestionJob(jobId);
+        }
+        if (job == null) {
+            return ApiResponse.error(404, "入库任务不存在");
+        }
+        Knowledge knowledge = knowledgeMapper.selectById(job.getKnowledgeId());
+        if (knowledge == null || !knowledge.getUserId().equals(userId)) {
+            throw new BusinessException("知识库不存在或无权操作");
+        }
+        return ApiResponse.success(job);
+    }
+
+    /**
+     * 检索知识库片段，请求发往所有持有该知识库分片的节点后合并
+     * 配置了向量化服务时同时按查询向量检索，与全文结果按RRF融合；向量化失败时只做全文检索
+     */
+    public ApiResponse<DistributedSearchResult> searchKnowledge(Long userId, Long knowledgeId, String query, int page, int pageSize) {
+        Knowledge knowledge = knowledgeMapper.selectById(knowledgeId);
+        if (knowledge == null || !knowledge.getUserId().equals(userId)) {
+            throw new BusinessException("知识库不存在或无权操作");
+        }
+
+        SearchRequest request = new SearchRequest(query, page, pageSize);
+        if (embeddingClient.isEnabled() && query != null && !query.isBlank()) {
+            try {
+                request.setVector(embeddingClient.embed(List.of(query)).get(0))
+                        .setVectorCandidates(vectorIndexProperties.getEf());
+            } catch (RuntimeException e) {
+                log.warn("Query embedding failed, falling back to full-text search: knowledgeId={}", knowledgeId, e);
+            }
+        }
+        try {
+            return ApiResponse.success(scatterGatherSearch.search(List.of(IngestionPipeline.shardKey(knowledgeId)), request));
+        } catch (IllegalStateException e) {
+            log.warn("Knowledge search failed: knowledgeId={}, query={}", knowledgeId, query, e);
+            return ApiResponse.error(503, "检索服务暂不可用，请稍后重试");
+        }
+    }
+
+    /**
+     * 获取入库流水线各阶段的吞吐统计
+     */
+    public ApiResponse<Map<String, Object>> getIngestionMetrics() {
+        return ApiResponse.success(ingestionPipeline.getMetrics());
+    }
 }
 
@@ -0,0 +1,101 @@
+package com.lingecho.knowledge.vector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文本向量化客户端
+ * 调用OpenAI兼容的embeddings接口，请求体为{"model", "input"}，按返回的index对应输入顺序；
+ * 未配置服务地址时不可用，知识库只做全文检索
+ */
+@Slf4j
+@Component
+public class EmbeddingClient {
+
+    private final VectorIndexProperties properties;
+    private final RestTemplate restTemplate;
+
+    public EmbeddingClient(VectorIndexProperties properties, RestTemplateBuilder restTemplateBuilder) {
+        this.properties = properties;
+        RestTemplateBuilder builder = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(properties.getEmbeddingTimeoutMs()))
+                .setReadTimeout(Duration.ofMillis(properties.getEmbeddingTimeoutMs()));
+        if (StringUtils.hasText(properties.getEmbeddingApiKey())) {
+            builder = builder.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + properties.getEmbeddingApiKey());
+        }
+        this.restTemplate = builder.build();
+    }
+
+    /**
+     * 是否配置了向量化服务
+     */
+    public boolean isEnabled() {
+        return StringUtils.hasText(properties.getEmbeddingUrl());
+    }
+
+    /**
+     * 批量向量化，超过批大小时分多次请求
+     *
+     * @param texts 文本
+     * @return 与输入顺序一致的向量
+     * @throws IllegalStateException 未配置服务或服务返回的结果不完整
+     */
+    public List<float[]> embed(List<String> texts) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Embedding service is not configured");
+        }
+        int batchSize = Math.max(1, properties.getEmbeddingBatchSize());
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            vectors.addAll(embedBatch(texts.subList(from, Math.min(from + batchSize, texts.size()))));
+        }
+        return vectors;
+    }
+
+    private List<float[]> embedBatch(List<String> texts) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (StringUtils.hasText(properties.getEmbeddingModel())) {
+            body.put("model", properties.getEmbeddingModel());
+        }
+        body.put("input", texts);
+        JsonNode response = restTemplate.postForObject(properties.getEmbeddingUrl(), body, JsonNode.class);
+        JsonNode data = response != null ? response.get("data") : null;
+        if (data == null || !data.isArray() || data.size() != texts.size()) {
+            throw new IllegalStateException("Embedding service returned " + (data == null ? 0 : data.size())
+                    + " vectors for " + texts.size() + " texts");
+        }
+        float[][] vectors = new float[texts.size()][];
+        for (int i = 0; i < data.size(); i++) {
+            JsonNode item = data.get(i);
+            int index = item.path("index").asInt(i);
+            JsonNode embedding = item.get("embedding");
+            if (index < 0 || index >= vectors.length || embedding == null || !embedding.isArray()) {
+                throw new IllegalStateException("Malformed embedding at position " + i);
+            }
+            float[] vector = new float[embedding.size()];
+            for (int d = 0; d < vector.length; d++) {
+                vector[d] = (float) embedding.get(d).asDouble();
+            }
+            vectors[index] = vector;
+        }
+        List<float[]> result = new ArrayList<>(vectors.length);
+        for (float[] vector : vectors) {
+            if (vector == null) {
+                throw new IllegalStateException("Embedding service returned duplicate indexes");
+            }
+            result.add(vector);
+        }
+        return result;
+    }
+}
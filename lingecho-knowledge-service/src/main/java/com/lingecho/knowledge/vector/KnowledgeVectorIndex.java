@@ -0,0 +1,470 @@
+package com.lingecho.knowledge.vector;
+
+import com.lingecho.common.core.search.vector.HnswGraph;
+import com.lingecho.common.core.search.vector.ScoredNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 单个知识库的本地向量索引
+ * 目录结构：vectors.bin为量化向量（内存映射），ids.log为追加写入的片段ID与删除记录，graph.bin为HNSW图快照；
+ * 打开时加载图快照并补建快照之后写入的节点。删除只做标记，标记节点仍参与图导航，
+ * 刷盘时若已删除节点多于存活节点则压缩重建。
+ * 压缩结果写入新的代目录（gen-N），写完后原子替换CURRENT文件切换到新代，再删除旧文件；
+ * 没有CURRENT文件时数据文件直接位于索引目录下。任何时刻崩溃，重新打开时看到的都是完整的某一代
+ */
+@Slf4j
+public class KnowledgeVectorIndex implements Closeable {
+
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String IDS_FILE = "ids.log";
+    private static final String GRAPH_FILE = "graph.bin";
+    private static final String CURRENT_FILE = "CURRENT";
+    private static final String GENERATION_PREFIX = "gen-";
+    // 早期版本压缩时使用的临时目录
+    private static final String LEGACY_COMPACT_DIR = "compact.tmp";
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DELETE = 2;
+
+    private static final int MIN_DELETED_FOR_COMPACT = 1000;
+    private static final long GRAPH_SEED = 42L;
+
+    private final Path directory;
+    private final VectorIndexProperties properties;
+    // 当前代的数据目录
+    private Path dataDir;
+    private int generation;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private QuantizedVectorStore vectors;
+    private HnswGraph graph;
+    private DataOutputStream idsLog;
+    private final Map<String, Integer> nodeById = new HashMap<>();
+    private final List<String> idByNode = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private volatile boolean closed;
+
+    private KnowledgeVectorIndex(Path directory, VectorIndexProperties properties) {
+        this.directory = directory;
+        this.properties = properties;
+    }
+
+    /**
+     * 打开或创建向量索引
+     *
+     * @param directory 索引目录
+     * @param properties 配置
+     * @return 向量索引
+     * @throws IOException 读取异常
+     */
+    public static KnowledgeVectorIndex open(Path directory, VectorIndexProperties properties) throws IOException {
+        Files.createDirectories(directory);
+        KnowledgeVectorIndex index = new KnowledgeVectorIndex(directory, properties);
+        index.resolveGeneration();
+        if (Files.exists(index.dataDir.resolve(VECTORS_FILE))) {
+            index.load();
+        }
+        return index;
+    }
+
+    /**
+     * 写入或替换片段向量
+     *
+     * @param id 片段ID
+     * @param vector 向量
+     * @throws IOException 写入异常
+     */
+    public void insert(String id, float[] vector) throws IOException {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("Vector id cannot be null or empty");
+        }
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (vectors == null) {
+                int dimension = properties.getDimension() > 0 ? properties.getDimension() : vector.length;
+                vectors = QuantizedVectorStore.open(dataDir.resolve(VECTORS_FILE), properties.getSimilarity(), dimension);
+                graph = new HnswGraph(vectors, properties.getMaxConnections(), properties.getBeamWidth(), GRAPH_SEED);
+            }
+            int node = vectors.add(vector);
+            graph.addNode(node);
+            markDeleted(id);
+            nodeById.put(id, node);
+            idByNode.add(id);
+            idsLog().writeByte(OP_ADD);
+            idsLog.writeInt(node);
+            idsLog.writeUTF(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除片段向量
+     *
+     * @param id 片段ID
+     * @return 是否存在
+     * @throws IOException 写入异常
+     */
+    public boolean delete(String id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (!markDeleted(id)) {
+                return false;
+            }
+            idsLog().writeByte(OP_DELETE);
+            idsLog.writeUTF(id);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索最相似的片段
+     *
+     * @param query 查询向量
+     * @param k 返回数量
+     * @param ef 候选队列大小，小于等于0时使用默认配置
+     * @return 按相似度降序排列的结果
+     */
+    public List<VectorHit> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            if (graph == null) {
+                return Collections.emptyList();
+            }
+            if (query.length != vectors.dimension()) {
+                throw new IllegalArgumentException("Vector dimension mismatch: expected " + vectors.dimension() + " but got " + query.length);
+            }
+            int candidates = ef > 0 ? ef : properties.getEf();
+            List<ScoredNode> nodes = graph.search(vectors.similarity().prepare(query), k, candidates, node -> !deleted.get(node));
+            List<VectorHit> hits = new ArrayList<>(nodes.size());
+            for (ScoredNode node : nodes) {
+                hits.add(new VectorHit(idByNode.get(node.getNode()), node.getScore()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取存活的向量数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 刷盘：向量和ID记录落盘，写出图快照；已删除节点过多时压缩
+     *
+     * @throws IOException 写入异常
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            flushLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 是否已关闭（被管理器淘汰后需要重新打开）
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushLocked();
+            if (idsLog != null) {
+                idsLog.close();
+                idsLog = null;
+            }
+            if (vectors != null) {
+                vectors.close();
+                vectors = null;
+            }
+            graph = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void flushLocked() throws IOException {
+        if (vectors == null) {
+            return;
+        }
+        int deletedCount = deleted.cardinality();
+        if (deletedCount >= MIN_DELETED_FOR_COMPACT && deletedCount > nodeById.size()) {
+            compact();
+            return;
+        }
+        vectors.flush();
+        if (idsLog != null) {
+            idsLog.flush();
+        }
+        writeGraph();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Vector index is closed: " + directory);
+        }
+    }
+
+    /**
+     * 只保留存活节点重建索引，量化后的向量直接复制
+     * 新数据写入下一代目录，CURRENT切换前崩溃时旧代完整可用，切换后新代完整可用
+     */
+    private void compact() throws IOException {
+        int nextGeneration = generation + 1;
+        Path next = directory.resolve(GENERATION_PREFIX + nextGeneration);
+        deleteRecursively(next);
+        Files.createDirectories(next);
+
+        int before = idByNode.size();
+        QuantizedVectorStore newVectors = QuantizedVectorStore.open(next.resolve(VECTORS_FILE), vectors.similarity(), vectors.dimension());
+        HnswGraph newGraph = new HnswGraph(newVectors, properties.getMaxConnections(), properties.getBeamWidth(), GRAPH_SEED);
+        List<String> newIds = new ArrayList<>(nodeById.size());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(next.resolve(IDS_FILE))))) {
+                for (int node = 0; node < before; node++) {
+                    if (deleted.get(node)) {
+                        continue;
+                    }
+                    int newNode = newVectors.copyFrom(vectors, node);
+                    newGraph.addNode(newNode);
+                    newIds.add(idByNode.get(node));
+                    out.writeByte(OP_ADD);
+                    out.writeInt(newNode);
+                    out.writeUTF(idByNode.get(node));
+                }
+            }
+            writeGraph(newGraph, next.resolve(GRAPH_FILE));
+        } finally {
+            newVectors.close();
+        }
+
+        if (idsLog != null) {
+            idsLog.close();
+            idsLog = null;
+        }
+        vectors.flush();
+        vectors.close();
+        vectors = null;
+        Path previous = dataDir;
+        writeCurrent(nextGeneration);
+        dataDir = next;
+        generation = nextGeneration;
+        deleteGenerationFiles(previous);
+
+        vectors = QuantizedVectorStore.open(dataDir.resolve(VECTORS_FILE), properties.getSimilarity(), 0);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dataDir.resolve(GRAPH_FILE))))) {
+            graph = HnswGraph.read(in, vectors, GRAPH_SEED);
+        }
+        nodeById.clear();
+        idByNode.clear();
+        deleted.clear();
+        for (int node = 0; node < newIds.size(); node++) {
+            nodeById.put(newIds.get(node), node);
+            idByNode.add(newIds.get(node));
+        }
+        log.info("Compacted vector index {}: {} -> {} nodes", directory, before, newIds.size());
+    }
+
+    /**
+     * 按CURRENT确定当前代，并清理压缩中断留下的其他代和已切换掉的旧文件
+     */
+    private void resolveGeneration() throws IOException {
+        Path current = directory.resolve(CURRENT_FILE);
+        generation = 0;
+        if (Files.exists(current)) {
+            String name = Files.readString(current, StandardCharsets.UTF_8).trim();
+            try {
+                generation = Integer.parseInt(name.substring(GENERATION_PREFIX.length()));
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupted vector index CURRENT file: " + current);
+            }
+        }
+        dataDir = generation == 0 ? directory : directory.resolve(GENERATION_PREFIX + generation);
+        Files.deleteIfExists(directory.resolve(CURRENT_FILE + ".tmp"));
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.toList()) {
+                String name = path.getFileName().toString();
+                if ((name.startsWith(GENERATION_PREFIX) || name.equals(LEGACY_COMPACT_DIR)) && !path.equals(dataDir)) {
+                    deleteRecursively(path);
+                }
+            }
+        }
+        if (generation > 0) {
+            deleteGenerationFiles(directory);
+        }
+    }
+
+    /**
+     * 写入新的CURRENT：先写临时文件并落盘，再原子替换
+     */
+    private void writeCurrent(int newGeneration) throws IOException {
+        Path tmp = directory.resolve(CURRENT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap((GENERATION_PREFIX + newGeneration).getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(CURRENT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 删除一代的数据；索引目录本身作为第0代时只删除数据文件
+     */
+    private void deleteGenerationFiles(Path dir) throws IOException {
+        if (!dir.equals(directory)) {
+            deleteRecursively(dir);
+            return;
+        }
+        for (String file : new String[]{VECTORS_FILE, IDS_FILE, GRAPH_FILE, GRAPH_FILE + ".tmp"}) {
+            Files.deleteIfExists(dir.resolve(file));
+        }
+    }
+
+    /**
+     * 加载已有索引：回放ID记录，加载图快照并补建之后写入的节点
+     */
+    private void load() throws IOException {
+        vectors = QuantizedVectorStore.open(dataDir.resolve(VECTORS_FILE), properties.getSimilarity(), properties.getDimension());
+        int count = vectors.size();
+        for (int node = 0; node < count; node++) {
+            idByNode.add(null);
+        }
+
+        Path idsFile = dataDir.resolve(IDS_FILE);
+        if (Files.exists(idsFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(idsFile)))) {
+                while (true) {
+                    byte op = in.readByte();
+                    if (op == OP_ADD) {
+                        int node = in.readInt();
+                        String id = in.readUTF();
+                        if (node < count) {
+                            markDeleted(id);
+                            nodeById.put(id, node);
+                            idByNode.set(node, id);
+                        }
+                    } else if (op == OP_DELETE) {
+                        markDeleted(in.readUTF());
+                    } else {
+                        throw new IOException("Corrupted vector id log: " + idsFile);
+                    }
+                }
+            } catch (EOFException e) {
+                // 读到末尾，最后一条记录可能不完整
+            }
+        }
+        // 没有ID记录的节点（写入中途退出）视为已删除
+        for (int node = 0; node < count; node++) {
+            if (idByNode.get(node) == null) {
+                deleted.set(node);
+            }
+        }
+
+        Path graphFile = dataDir.resolve(GRAPH_FILE);
+        if (Files.exists(graphFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(graphFile)))) {
+                graph = HnswGraph.read(in, vectors, GRAPH_SEED);
+            } catch (IOException e) {
+                log.warn("Failed to load HNSW graph {}, rebuilding: {}", graphFile, e.getMessage());
+                graph = null;
+            }
+        }
+        if (graph == null) {
+            graph = new HnswGraph(vectors, properties.getMaxConnections(), properties.getBeamWidth(), GRAPH_SEED);
+        }
+        int rebuilt = 0;
+        for (int node = graph.size(); node < count; node++) {
+            graph.addNode(node);
+            rebuilt++;
+        }
+        log.info("Opened vector index {}: {} vectors, {} live, {} nodes added to graph", directory, count, nodeById.size(), rebuilt);
+    }
+
+    private boolean markDeleted(String id) {
+        Integer old = nodeById.remove(id);
+        if (old == null) {
+            return false;
+        }
+        deleted.set(old);
+        return true;
+    }
+
+    private DataOutputStream idsLog() throws IOException {
+        if (idsLog == null) {
+            idsLog = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataDir.resolve(IDS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        }
+        return idsLog;
+    }
+
+    private void writeGraph() throws IOException {
+        Path tmp = dataDir.resolve(GRAPH_FILE + ".tmp");
+        writeGraph(graph, tmp);
+        Files.move(tmp, dataDir.resolve(GRAPH_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeGraph(HnswGraph graph, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            graph.write(out);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path p : paths.sorted(Collections.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
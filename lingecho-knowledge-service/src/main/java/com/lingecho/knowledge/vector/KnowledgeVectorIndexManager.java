@@ -0,0 +1,208 @@
+package com.lingecho.knowledge.vector;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 知识库向量索引管理
+ * 按知识库ID懒加载索引，超过最大打开数时关闭最久未使用的索引；已打开的索引按间隔定时刷盘
+ */
+@Slf4j
+@Component
+public class KnowledgeVectorIndexManager {
+
+    private final VectorIndexProperties properties;
+
+    private final Map<Long, KnowledgeVectorIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ScheduledExecutorService flushScheduler;
+
+    public KnowledgeVectorIndexManager(VectorIndexProperties properties) {
+        this.properties = properties;
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "knowledge-vector-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000L, properties.getFlushIntervalMs());
+        flushScheduler.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取知识库的向量索引，不存在时创建
+     *
+     * @param knowledgeId 知识库ID
+     * @return 向量索引
+     */
+    public synchronized KnowledgeVectorIndex getIndex(Long knowledgeId) {
+        KnowledgeVectorIndex index = indexes.get(knowledgeId);
+        if (index != null) {
+            return index;
+        }
+        try {
+            index = KnowledgeVectorIndex.open(indexPath(knowledgeId), properties);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open vector index for knowledge " + knowledgeId, e);
+        }
+        indexes.put(knowledgeId, index);
+        evictIfNecessary();
+        return index;
+    }
+
+    /**
+     * 写入片段向量
+     */
+    public void insert(Long knowledgeId, String chunkId, float[] vector) {
+        withIndex(knowledgeId, index -> {
+            index.insert(chunkId, vector);
+            return null;
+        });
+    }
+
+    /**
+     * 删除片段向量
+     */
+    public boolean delete(Long knowledgeId, String chunkId) {
+        return withIndex(knowledgeId, index -> index.delete(chunkId));
+    }
+
+    /**
+     * 检索知识库中最相似的片段
+     *
+     * @param knowledgeId 知识库ID
+     * @param vector 查询向量
+     * @param topK 返回数量
+     * @param ef 候选队列大小，小于等于0时使用默认配置
+     * @return 检索结果
+     */
+    public List<VectorHit> search(Long knowledgeId, float[] vector, int topK, int ef) {
+        if (!Files.exists(indexPath(knowledgeId))) {
+            return Collections.emptyList();
+        }
+        return withIndex(knowledgeId, index -> index.search(vector, topK, ef));
+    }
+
+    /**
+     * 删除知识库的向量索引
+     *
+     * @param knowledgeId 知识库ID
+     * @throws IOException 删除目录失败
+     */
+    public synchronized void drop(Long knowledgeId) throws IOException {
+        KnowledgeVectorIndex index = indexes.remove(knowledgeId);
+        if (index != null) {
+            closeQuietly(knowledgeId, index);
+        }
+        Path path = indexPath(knowledgeId);
+        if (Files.exists(path)) {
+            try (Stream<Path> paths = Files.walk(path)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * 刷盘所有已打开的索引
+     * 在快照上逐个刷盘，不持有管理器的锁，刷盘和压缩期间其他知识库的读写不受影响
+     */
+    public void flushAll() {
+        List<Map.Entry<Long, KnowledgeVectorIndex>> open;
+        synchronized (this) {
+            open = new ArrayList<>(indexes.entrySet());
+        }
+        for (Map.Entry<Long, KnowledgeVectorIndex> entry : open) {
+            KnowledgeVectorIndex index = entry.getValue();
+            if (index.isClosed()) {
+                continue;
+            }
+            try {
+                index.flush();
+            } catch (IOException e) {
+                log.warn("Failed to flush vector index for knowledge {}", entry.getKey(), e);
+            } catch (IllegalStateException e) {
+                // 刷盘前被淘汰或删除，关闭时已经刷过盘
+                if (!index.isClosed()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flushScheduler.shutdown();
+        try {
+            flushScheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (Map.Entry<Long, KnowledgeVectorIndex> entry : new ArrayList<>(indexes.entrySet())) {
+                closeQuietly(entry.getKey(), entry.getValue());
+            }
+            indexes.clear();
+        }
+    }
+
+    /**
+     * 在索引上执行操作；索引恰好被淘汰关闭时重新打开后重试
+     */
+    private <T> T withIndex(Long knowledgeId, IndexOperation<T> operation) {
+        while (true) {
+            KnowledgeVectorIndex index = getIndex(knowledgeId);
+            try {
+                return operation.apply(index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (IllegalStateException e) {
+                if (!index.isClosed()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void evictIfNecessary() {
+        while (indexes.size() > Math.max(1, properties.getMaxOpenIndexes())) {
+            Map.Entry<Long, KnowledgeVectorIndex> eldest = indexes.entrySet().iterator().next();
+            indexes.remove(eldest.getKey());
+            closeQuietly(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void closeQuietly(Long knowledgeId, KnowledgeVectorIndex index) {
+        try {
+            index.close();
+        } catch (IOException e) {
+            log.warn("Failed to close vector index for knowledge {}", knowledgeId, e);
+        }
+    }
+
+    private Path indexPath(Long knowledgeId) {
+        return Paths.get(properties.getBasePath(), String.valueOf(knowledgeId));
+    }
+
+    @FunctionalInterface
+    private interface IndexOperation<T> {
+        T apply(KnowledgeVectorIndex index) throws IOException;
+    }
+}
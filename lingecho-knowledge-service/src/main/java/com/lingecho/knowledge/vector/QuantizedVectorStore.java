@@ -0,0 +1,284 @@
+package com.lingecho.knowledge.vector;
+
+import com.lingecho.common.core.search.vector.VectorSimilarity;
+import com.lingecho.common.core.search.vector.VectorStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内存映射的int8标量量化向量存储
+ * 每个向量保存一个缩放系数和dimension个int8分量（按最大绝对值量化），占用约为float的1/4；
+ * 文件按块映射，追加写入不需要重新映射已有数据，数据页由操作系统按需加载；
+ * 最后一块按需扩大映射（每次翻倍直到块大小），小知识库的文件不会一开始就占满一整块
+ */
+public class QuantizedVectorStore implements VectorStore, Closeable {
+
+    private static final int MAGIC = 0x4C515653;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int COUNT_OFFSET = 16;
+    private static final int CHUNK_BYTES = 1 << 26;
+    private static final int INITIAL_TAIL_BYTES = 1 << 16;
+
+    private final VectorSimilarity similarity;
+    private final int dimension;
+    private final int recordSize;
+    private final int recordsPerChunk;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    // 最后一块已映射的记录数，之前的块都已完整映射
+    private int tailCapacity;
+    // 每个线程复用的分量缓冲区，批量读出后在数组上计算，避免逐字节访问映射内存
+    private final ThreadLocal<byte[][]> scratch;
+    private int size;
+
+    private QuantizedVectorStore(FileChannel channel, VectorSimilarity similarity, int dimension) throws IOException {
+        this.channel = channel;
+        this.similarity = similarity;
+        this.dimension = dimension;
+        this.recordSize = Float.BYTES + dimension;
+        this.recordsPerChunk = Math.max(1, CHUNK_BYTES / recordSize);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.header.order(ByteOrder.LITTLE_ENDIAN);
+        this.scratch = ThreadLocal.withInitial(() -> new byte[2][dimension]);
+    }
+
+    /**
+     * 打开或创建向量文件
+     *
+     * @param file 文件路径
+     * @param similarity 相似度
+     * @param dimension 向量维度，打开已有文件时为0表示使用文件中的维度
+     * @return 向量存储
+     * @throws IOException 文件不合法或维度、相似度与文件不一致
+     */
+    public static QuantizedVectorStore open(Path file, VectorSimilarity similarity, int dimension) throws IOException {
+        boolean exists = Files.exists(file) && Files.size(file) >= HEADER_SIZE;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (!exists) {
+                if (dimension <= 0) {
+                    throw new IllegalArgumentException("Vector dimension must be positive: " + dimension);
+                }
+                QuantizedVectorStore store = new QuantizedVectorStore(channel, similarity, dimension);
+                store.header.putInt(0, MAGIC);
+                store.header.putInt(4, VERSION);
+                store.header.putInt(8, dimension);
+                store.header.putInt(12, similarity.ordinal());
+                store.header.putInt(COUNT_OFFSET, 0);
+                return store;
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a vector file: " + file);
+            }
+            int fileDimension = header.getInt(8);
+            if (dimension > 0 && dimension != fileDimension) {
+                throw new IOException("Vector dimension mismatch: file has " + fileDimension + " but " + dimension + " was configured");
+            }
+            VectorSimilarity fileSimilarity = VectorSimilarity.values()[header.getInt(12)];
+            if (fileSimilarity != similarity) {
+                throw new IOException("Vector similarity mismatch: file uses " + fileSimilarity + " but " + similarity + " was configured");
+            }
+            QuantizedVectorStore store = new QuantizedVectorStore(channel, similarity, fileDimension);
+            store.size = header.getInt(COUNT_OFFSET);
+            if (store.size > 0) {
+                store.chunkFor(store.size - 1);
+            }
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 追加向量
+     *
+     * @param vector 向量
+     * @return 节点编号
+     * @throws IOException 写入异常
+     */
+    public int add(float[] vector) throws IOException {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension mismatch: expected " + dimension + " but got " + vector.length);
+        }
+        float[] prepared = similarity.prepare(vector);
+        float maxAbs = 0f;
+        for (float v : prepared) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        float scale = maxAbs == 0f ? 1f : maxAbs / 127f;
+
+        int node = size;
+        MappedByteBuffer chunk = chunkFor(node);
+        int offset = offsetOf(node);
+        chunk.putFloat(offset, scale);
+        for (int i = 0; i < dimension; i++) {
+            chunk.put(offset + Float.BYTES + i, (byte) Math.round(prepared[i] / scale));
+        }
+        size++;
+        header.putInt(COUNT_OFFSET, size);
+        return node;
+    }
+
+    /**
+     * 从另一个存储复制已量化的向量（不重新量化）
+     *
+     * @param source 源存储
+     * @param node 源节点编号
+     * @return 新节点编号
+     * @throws IOException 写入异常
+     */
+    public int copyFrom(QuantizedVectorStore source, int node) throws IOException {
+        if (source.dimension != dimension) {
+            throw new IllegalArgumentException("Vector dimension mismatch: expected " + dimension + " but got " + source.dimension);
+        }
+        MappedByteBuffer from = source.chunks.get(node / source.recordsPerChunk);
+        int fromOffset = source.offsetOf(node);
+        int target = size;
+        MappedByteBuffer to = chunkFor(target);
+        int toOffset = offsetOf(target);
+        for (int i = 0; i < recordSize; i++) {
+            to.put(toOffset + i, from.get(fromOffset + i));
+        }
+        size++;
+        header.putInt(COUNT_OFFSET, size);
+        return target;
+    }
+
+    /**
+     * 将数据刷到磁盘
+     */
+    public void flush() {
+        header.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    public VectorSimilarity similarity() {
+        return similarity;
+    }
+
+    @Override
+    public float score(float[] query, int node) {
+        byte[] codes = scratch.get()[0];
+        float scale = read(node, codes);
+        if (similarity == VectorSimilarity.EUCLIDEAN) {
+            float sum = 0f;
+            for (int i = 0; i < dimension; i++) {
+                float diff = query[i] - scale * codes[i];
+                sum += diff * diff;
+            }
+            return 1f / (1f + sum);
+        }
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * codes[i];
+        }
+        return sum * scale;
+    }
+
+    @Override
+    public float score(int a, int b) {
+        byte[][] buffers = scratch.get();
+        byte[] codesA = buffers[0];
+        byte[] codesB = buffers[1];
+        float scaleA = read(a, codesA);
+        float scaleB = read(b, codesB);
+        if (similarity == VectorSimilarity.EUCLIDEAN) {
+            float sum = 0f;
+            for (int i = 0; i < dimension; i++) {
+                float diff = scaleA * codesA[i] - scaleB * codesB[i];
+                sum += diff * diff;
+            }
+            return 1f / (1f + sum);
+        }
+        // int8乘积在int中累加，最后统一乘缩放系数
+        int sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += codesA[i] * codesB[i];
+        }
+        return sum * scaleA * scaleB;
+    }
+
+    /**
+     * 读出节点的量化分量
+     *
+     * @param node 节点编号
+     * @param codes 分量缓冲区
+     * @return 缩放系数
+     */
+    private float read(int node, byte[] codes) {
+        MappedByteBuffer chunk = chunks.get(node / recordsPerChunk);
+        int offset = offsetOf(node);
+        chunk.get(offset + Float.BYTES, codes, 0, dimension);
+        return chunk.getFloat(offset);
+    }
+
+    private int offsetOf(int node) {
+        return (node % recordsPerChunk) * recordSize;
+    }
+
+    /**
+     * 获取节点所在的块，映射范围不足时扩大最后一块的映射
+     */
+    private MappedByteBuffer chunkFor(int node) throws IOException {
+        int index = node / recordsPerChunk;
+        int needed = node % recordsPerChunk + 1;
+        while (chunks.size() <= index) {
+            if (!chunks.isEmpty() && tailCapacity < recordsPerChunk) {
+                mapTail(recordsPerChunk);
+            }
+            chunks.add(null);
+            tailCapacity = 0;
+            mapTail(chunks.size() - 1 < index ? recordsPerChunk
+                    : Math.max(needed, Math.min(recordsPerChunk, Math.max(1, INITIAL_TAIL_BYTES / recordSize))));
+        }
+        if (index == chunks.size() - 1 && needed > tailCapacity) {
+            mapTail(Math.min(recordsPerChunk, Math.max(needed, tailCapacity * 2)));
+        }
+        return chunks.get(index);
+    }
+
+    /**
+     * 重新映射最后一块，已写入的数据在文件中，新映射直接可见
+     */
+    private void mapTail(int records) throws IOException {
+        int index = chunks.size() - 1;
+        long position = HEADER_SIZE + (long) index * recordsPerChunk * recordSize;
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) records * recordSize);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        chunks.set(index, chunk);
+        tailCapacity = records;
+    }
+}
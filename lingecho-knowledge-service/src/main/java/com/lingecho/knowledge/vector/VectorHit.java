@@ -0,0 +1,24 @@
+package com.lingecho.knowledge.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 向量检索结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorHit {
+
+    /**
+     * 片段ID
+     */
+    private String id;
+
+    /**
+     * 相似度
+     */
+    private float score;
+}
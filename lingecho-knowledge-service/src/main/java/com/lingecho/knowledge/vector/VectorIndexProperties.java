@@ -0,0 +1,81 @@
+package com.lingecho.knowledge.vector;
+
+import com.lingecho.common.core.search.vector.HnswGraph;
+import com.lingecho.common.core.search.vector.VectorSimilarity;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 知识库向量索引配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "lingecho.knowledge.vector")
+public class VectorIndexProperties {
+
+    /**
+     * 索引根目录，每个知识库一个子目录
+     */
+    private String basePath = "./data/knowledge-vector";
+
+    /**
+     * 向量维度，0表示由第一个写入的向量决定
+     */
+    private int dimension = 0;
+
+    /**
+     * 相似度
+     */
+    private VectorSimilarity similarity = VectorSimilarity.COSINE;
+
+    /**
+     * HNSW每层最大连接数
+     */
+    private int maxConnections = HnswGraph.DEFAULT_MAX_CONNECTIONS;
+
+    /**
+     * HNSW构建时的候选队列大小
+     */
+    private int beamWidth = HnswGraph.DEFAULT_BEAM_WIDTH;
+
+    /**
+     * 默认检索候选队列大小，越大召回率越高、检索越慢
+     */
+    private int ef = 64;
+
+    /**
+     * 最多同时打开的知识库索引数
+     */
+    private int maxOpenIndexes = 64;
+
+    /**
+     * 已打开索引的定时刷盘间隔（毫秒），刷盘时写出图快照并在需要时压缩
+     */
+    private long flushIntervalMs = 30000;
+
+    /**
+     * 向量化服务地址（OpenAI兼容的embeddings接口），为空时不生成向量，知识库只做全文检索
+     */
+    private String embeddingUrl;
+
+    /**
+     * 向量化服务的API Key
+     */
+    private String embeddingApiKey;
+
+    /**
+     * 向量化模型
+     */
+    private String embeddingModel;
+
+    /**
+     * 每次请求向量化服务的文本数
+     */
+    private int embeddingBatchSize = 32;
+
+    /**
+     * 向量化请求超时（毫秒）
+     */
+    private long embeddingTimeoutMs = 10000;
+}